@@ -0,0 +1,37 @@
+package elements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import primitives.Point3D;
+
+/**
+ * The default light selection strategy. 
+ * Every light source is evaluated in every point, with a weight of 1.
+ */
+public class AllLightsSelector implements LightSelector {
+
+	/**
+	 * The lights of the scene.
+	 */
+	private List<LightSource> _lights = new ArrayList<LightSource>();
+	
+	@Override
+	public void build(List<LightSource> lights) {
+		_lights = new ArrayList<LightSource>(lights);
+	}
+
+	@Override
+	public int getMaxSelected() {
+		return _lights.size();
+	}
+
+	@Override
+	public int select(Point3D point, LightSource[] lights, double[] weights) {
+		for (int i = 0; i < _lights.size(); i++) {
+			lights[i] = _lights.get(i);
+			weights[i] = 1;
+		}
+		return _lights.size();
+	}
+}
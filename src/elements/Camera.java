@@ -2,12 +2,12 @@
 package elements;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 import geometries.Plane;
 import primitives.Point3D;
 import primitives.Vector;
 import primitives.Ray;
+import util.random;
 
 /**
  * This class represent a camera in the scene.
@@ -41,16 +41,11 @@ public class Camera {
 	
 	/**
 	 * The number of rays we send for the 'depth of field' effect.
+	 * The random points inside the pixel and the shutter are drawn 
+	 * from the random stream of the rendering thread (see {@link random}).
 	 */
 	private int _numFocusRays;
 	
-	/**
-	 * Random numbers generator for inside usage.
-	 * The usage is for generating the random points inside the 
-	 * pixel for the 'depth of field' effect.
-	 */
-	private Random random = new Random();
-	
 	/**
 	 * constructor for a new camera object that is being created
 	 * @param p0 Represents the position of the camera
@@ -237,7 +232,8 @@ public class Camera {
 	 * @param height The height of the picture - how 
 	 * many pixels there are in the height of the picture.
 	 * @param focalPlane The focal plane.
-	 * @return Four rays, one from every vertex of the shutter (here we use a square shutter)
+	 * @return Four rays, one from every vertex of the shutter (here we use a square shutter).
+	 * The footprint of every ray is the pixel of the view plane (see {@link Ray#getFootprint}).
 	 */
 	public ArrayList<Ray> constructPixelRays
 				(int pixelsX, 
@@ -266,8 +262,12 @@ public class Camera {
 													   //center of the current pixel.
 		ArrayList<Ray> rays = new ArrayList<Ray>();
 		
+		//The footprint of the rays is the pixel of the view plane: 
+		//its width grows by the angle that the pixel spans from the camera.
+		double spread = distance > 0 ? Math.min(width / pixelsX, height / pixelsY) / distance : 0;
+		
 		//The ray that intersects the center of the pixel in the view plane.
-		Ray originalRay = new Ray(_p0, new Vector(centerOfPixel.subtract(_p0)));
+		Ray originalRay = new Ray(_p0, new Vector(centerOfPixel.subtract(_p0)), 0, spread);
 		
 		if (_numFocusRays == 1) {
 			rays.add(originalRay);
@@ -286,7 +286,7 @@ public class Camera {
 		for (int index = 0; index < _numFocusRays; index++) {
 			//p is a randomly selected point inside the shutter.
 			p = helpVector.add(_vUp.scale(_shutter*((random.nextDouble() * 2) - 1)).add(_vRight.scale(_shutter*((random.nextDouble() * 2) - 1)))).getHead();
-			rays.add(new Ray(p, new Vector(focalPoint.subtract(p))));
+			rays.add(new Ray(p, new Vector(focalPoint.subtract(p)), 0, spread));
 		}
 		
 		//Every ray in that list has random start inside the shutter, and vector that starts 
@@ -0,0 +1,232 @@
+package elements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import primitives.Point3D;
+
+/**
+ * Light selection strategy that skips the lights that are too weak in a point.
+ * Every point light has a sphere of influence, outside which its attenuated
+ * intensity is below a given cutoff (see {@link PointLight#getInfluenceRadius}).
+ * The spheres are put in a uniform grid, so for every point only the lights
+ * whose sphere is in the point's cell are checked, and only the lights whose
+ * sphere covers the point are evaluated, with a weight of 1.
+ */
+public class InfluenceCullingSelector implements LightSelector {
+
+	/**
+	 * The largest number of cells along every axis of the grid.
+	 */
+	private static final int MAX_CELLS = 64;
+
+	/**
+	 * The largest number of cells a single sphere may cover. A larger sphere
+	 * is not put in the grid, it is checked in every point instead.
+	 */
+	private static final int MAX_CELLS_PER_LIGHT = 4096;
+
+	/**
+	 * The intensity below which a light is negligible.
+	 */
+	private double _cutoff;
+
+	/**
+	 * The number of lights that were given to the strategy.
+	 */
+	private int _numOfLights;
+
+	/**
+	 * The lights that are checked in every point, and the radii of their
+	 * spheres of influence (infinity for a light without a position).
+	 */
+	private List<LightSource> _unbounded = new ArrayList<LightSource>();
+	private List<Double> _unboundedRadii = new ArrayList<Double>();
+
+	/**
+	 * The lights in the grid, and the centers and radii of their spheres,
+	 * in the same index.
+	 */
+	private PointLight[] _lights = new PointLight[0];
+	private double[] _spheres = new double[0];
+
+	/**
+	 * The indexes of the lights whose sphere overlaps every cell, null for an empty cell.
+	 * The cell (i, j, k) is in index i + _nx * (j + _ny * k).
+	 */
+	private int[][] _cells;
+
+	/**
+	 * The grid's minimal corner, size of a cell and number of cells along every axis.
+	 */
+	private double _minX, _minY, _minZ, _cellSize;
+	private int _nx, _ny, _nz;
+
+	/**
+	 * Constructor for a new culling strategy.
+	 * @param cutoff The intensity, in the units of the colors, below which
+	 * a light is negligible in a point.
+	 */
+	public InfluenceCullingSelector(double cutoff) {
+		_cutoff = cutoff;
+	}
+
+	@Override
+	public void build(List<LightSource> lights) {
+		_numOfLights = lights.size();
+		_unbounded = new ArrayList<LightSource>();
+		_unboundedRadii = new ArrayList<Double>();
+		List<PointLight> bounded = new ArrayList<PointLight>();
+		List<Double> radii = new ArrayList<Double>();
+
+		for (LightSource light : lights) {
+			if (!(light instanceof PointLight)) {
+				_unbounded.add(light);
+				_unboundedRadii.add(Double.POSITIVE_INFINITY);
+				continue;
+			}
+			double radius = ((PointLight)light).getInfluenceRadius(_cutoff);
+			if (radius == Double.POSITIVE_INFINITY) {
+				_unbounded.add(light);
+				_unboundedRadii.add(radius);
+			} else if (radius > 0) {
+				bounded.add((PointLight)light);
+				radii.add(radius);
+			}
+		}
+
+		_lights = bounded.toArray(new PointLight[bounded.size()]);
+		_spheres = new double[4 * _lights.length];
+		_cells = null;
+		if (_lights.length == 0) {
+			return;
+		}
+
+		//The bounds of all the spheres, and their average radius.
+		double maxX, maxY, maxZ, sumRadii = 0;
+		_minX = _minY = _minZ = Double.MAX_VALUE;
+		maxX = maxY = maxZ = -Double.MAX_VALUE;
+		for (int i = 0; i < _lights.length; i++) {
+			Point3D position = _lights[i].getPosition();
+			double radius = radii.get(i);
+			_spheres[4 * i] = position.getX().getNumber();
+			_spheres[4 * i + 1] = position.getY().getNumber();
+			_spheres[4 * i + 2] = position.getZ().getNumber();
+			_spheres[4 * i + 3] = radius;
+			_minX = Math.min(_minX, _spheres[4 * i] - radius);
+			_minY = Math.min(_minY, _spheres[4 * i + 1] - radius);
+			_minZ = Math.min(_minZ, _spheres[4 * i + 2] - radius);
+			maxX = Math.max(maxX, _spheres[4 * i] + radius);
+			maxY = Math.max(maxY, _spheres[4 * i + 1] + radius);
+			maxZ = Math.max(maxZ, _spheres[4 * i + 2] + radius);
+			sumRadii += radius;
+		}
+
+		//A cell is about as large as an average sphere, but the grid is not too fine.
+		double extent = Math.max(maxX - _minX, Math.max(maxY - _minY, maxZ - _minZ));
+		_cellSize = Math.max(sumRadii / _lights.length, extent / MAX_CELLS);
+		_nx = Math.max(1, (int)Math.ceil((maxX - _minX) / _cellSize));
+		_ny = Math.max(1, (int)Math.ceil((maxY - _minY) / _cellSize));
+		_nz = Math.max(1, (int)Math.ceil((maxZ - _minZ) / _cellSize));
+
+		List<List<Integer>> cells = new ArrayList<List<Integer>>();
+		for (int cell = 0; cell < _nx * _ny * _nz; cell++) {
+			cells.add(null);
+		}
+		for (int light = 0; light < _lights.length; light++) {
+			double x = _spheres[4 * light], y = _spheres[4 * light + 1],
+				   z = _spheres[4 * light + 2], radius = _spheres[4 * light + 3];
+			int i0 = cellIndex(x - radius, _minX, _nx), i1 = cellIndex(x + radius, _minX, _nx),
+				j0 = cellIndex(y - radius, _minY, _ny), j1 = cellIndex(y + radius, _minY, _ny),
+				k0 = cellIndex(z - radius, _minZ, _nz), k1 = cellIndex(z + radius, _minZ, _nz);
+			if ((long)(i1 - i0 + 1) * (j1 - j0 + 1) * (k1 - k0 + 1) > MAX_CELLS_PER_LIGHT) {
+				_unbounded.add(_lights[light]);
+				_unboundedRadii.add(radius);
+				continue;
+			}
+			for (int k = k0; k <= k1; k++) {
+				for (int j = j0; j <= j1; j++) {
+					for (int i = i0; i <= i1; i++) {
+						int cell = i + _nx * (j + _ny * k);
+						if (cells.get(cell) == null) {
+							cells.set(cell, new ArrayList<Integer>());
+						}
+						cells.get(cell).add(light);
+					}
+				}
+			}
+		}
+
+		_cells = new int[cells.size()][];
+		for (int cell = 0; cell < _cells.length; cell++) {
+			List<Integer> list = cells.get(cell);
+			if (list != null) {
+				_cells[cell] = list.stream().mapToInt(Integer::intValue).toArray();
+			}
+		}
+	}
+
+	@Override
+	public int getMaxSelected() {
+		return _numOfLights;
+	}
+
+	@Override
+	public int select(Point3D point, LightSource[] lights, double[] weights) {
+		double x = point.getX().getNumber(),
+			   y = point.getY().getNumber(),
+			   z = point.getZ().getNumber();
+		int count = 0;
+
+		for (int i = 0; i < _unbounded.size(); i++) {
+			LightSource light = _unbounded.get(i);
+			double radius = _unboundedRadii.get(i);
+			if (radius == Double.POSITIVE_INFINITY ||
+					((PointLight)light).getPosition().distance(point) <= radius) {
+				lights[count] = light;
+				weights[count++] = 1;
+			}
+		}
+
+		if (_cells == null || x < _minX || y < _minY || z < _minZ) {
+			return count;
+		}
+		int i = (int)((x - _minX) / _cellSize),
+			j = (int)((y - _minY) / _cellSize),
+			k = (int)((z - _minZ) / _cellSize);
+		if (i > _nx || j > _ny || k > _nz) {
+			return count;
+		}
+		//A point on the far face of the grid is in the last cell, where a sphere may touch it.
+		i = Math.min(i, _nx - 1);
+		j = Math.min(j, _ny - 1);
+		k = Math.min(k, _nz - 1);
+		if (_cells[i + _nx * (j + _ny * k)] == null) {
+			return count;
+		}
+
+		for (int light : _cells[i + _nx * (j + _ny * k)]) {
+			double dx = _spheres[4 * light] - x,
+				   dy = _spheres[4 * light + 1] - y,
+				   dz = _spheres[4 * light + 2] - z,
+				   radius = _spheres[4 * light + 3];
+			if (dx * dx + dy * dy + dz * dz <= radius * radius) {
+				lights[count] = _lights[light];
+				weights[count++] = 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the index of the cell along one axis of the grid.
+	 * @param value The coordinate along the axis.
+	 * @param min The minimal coordinate of the grid along the axis.
+	 * @param numOfCells The number of cells along the axis.
+	 * @return The index of the cell, clamped to the grid.
+	 */
+	private int cellIndex(double value, double min, int numOfCells) {
+		int index = (int)((value - min) / _cellSize);
+		return index < 0 ? 0 : (index >= numOfCells ? numOfCells - 1 : index);
+	}
+}
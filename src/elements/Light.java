@@ -25,10 +25,10 @@ public abstract class Light {
 	/**
 	 * Getter for the intensity of the color/light that is represented by
 	 * this object.
-	 * @return A new Color that represents the intensity of this object.
+	 * @return The Color that represents the intensity of this object.
 	 */
 	public Color getIntensity() {
-		return new Color(_color);
+		return _color;
 	}
 	
 }
@@ -0,0 +1,38 @@
+package elements;
+
+import java.util.List;
+
+import primitives.Point3D;
+
+/**
+ * Interface for a strategy that chooses which light sources are 
+ * evaluated in a shading point.
+ * A strategy can evaluate all the lights, or only a few of them, as long 
+ * as the weights of the chosen lights keep the expected lighting the same.
+ */
+public interface LightSelector {
+	
+	/**
+	 * Prepares the strategy for the given lights.
+	 * This operation is called once, before the rendering starts.
+	 * @param lights All the light sources in the scene.
+	 */
+	public void build(List<LightSource> lights);
+	
+	/**
+	 * Getter for the largest number of lights that {@link #select} can choose.
+	 * @return The largest number of lights that can be chosen for one point.
+	 */
+	public int getMaxSelected();
+	
+	/**
+	 * Chooses the lights that are evaluated in a given point.
+	 * This operation may be called by many threads at once.
+	 * @param point The shading point.
+	 * @param lights The chosen lights are put in this array, from index 0.
+	 * @param weights The weight of every chosen light, in the same index. The 
+	 * contribution of the light to the point should be multiplied by its weight.
+	 * @return The number of chosen lights.
+	 */
+	public int select(Point3D point, LightSource[] lights, double[] weights);
+}
@@ -0,0 +1,222 @@
+package elements;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import primitives.Color;
+import primitives.Point3D;
+import util.random;
+
+/**
+ * Light selection strategy for scenes with many light sources.
+ * The point lights are clustered, by their position and power, into a
+ * binary tree. For every shading point, a few lights are picked by walking
+ * down the tree and choosing a child randomly, in proportion to an estimate
+ * of its contribution to the point (power divided by the squared distance).
+ * The weight of a picked light is the inverse of the probability to pick it,
+ * so the expected lighting is the same as when evaluating all the lights.
+ * Lights without a position (like a directional light) are always evaluated.
+ */
+public class LightTreeSelector implements LightSelector {
+
+	/**
+	 * A node of the light tree. A leaf holds a single light,
+	 * and an inner node holds the cluster of the lights below it.
+	 */
+	private static class Node {
+
+		/**
+		 * The light of a leaf, null for an inner node.
+		 */
+		PointLight light;
+
+		/**
+		 * The children of an inner node.
+		 */
+		Node left, right;
+
+		/**
+		 * The sum of the power of the lights in the cluster.
+		 */
+		double power;
+
+		/**
+		 * The bounds of the positions of the lights in the cluster.
+		 */
+		double minX, minY, minZ, maxX, maxY, maxZ;
+	}
+
+	/**
+	 * The number of lights that are picked from the tree for every point.
+	 */
+	private int _numOfSamples;
+
+	/**
+	 * The root of the light tree, null if there are no point lights.
+	 */
+	private Node _root;
+
+	/**
+	 * The lights that are always evaluated.
+	 */
+	private List<LightSource> _unbounded = new ArrayList<LightSource>();
+
+	/**
+	 * Constructor for a new light tree strategy.
+	 * @param numOfSamples The number of lights that are picked from the
+	 * tree for every shading point. If the parameter is not positive,
+	 * one light is picked.
+	 */
+	public LightTreeSelector(int numOfSamples) {
+		_numOfSamples = numOfSamples > 0 ? numOfSamples : 1;
+	}
+
+	@Override
+	public void build(List<LightSource> lights) {
+		List<Node> leaves = new ArrayList<Node>();
+		_unbounded = new ArrayList<LightSource>();
+		for (LightSource light : lights) {
+			if (light instanceof PointLight) {
+				leaves.add(createLeaf((PointLight)light));
+			} else {
+				_unbounded.add(light);
+			}
+		}
+		_root = leaves.isEmpty() ? null : buildTree(leaves);
+	}
+
+	@Override
+	public int getMaxSelected() {
+		return _unbounded.size() + (_root == null ? 0 : _numOfSamples);
+	}
+
+	@Override
+	public int select(Point3D point, LightSource[] lights, double[] weights) {
+		int count = 0;
+		for (LightSource light : _unbounded) {
+			lights[count] = light;
+			weights[count++] = 1;
+		}
+		if (_root == null) {
+			return count;
+		}
+
+		double x = point.getX().getNumber(),
+			   y = point.getY().getNumber(),
+			   z = point.getZ().getNumber();
+		int first = count;
+
+		for (int sample = 0; sample < _numOfSamples; sample++) {
+			Node node = _root;
+			double pdf = 1;
+			while (node.light == null) {
+				double leftImportance = importance(node.left, x, y, z),
+					   rightImportance = importance(node.right, x, y, z),
+					   sum = leftImportance + rightImportance,
+					   pLeft = sum > 0 ? leftImportance / sum : 0.5;
+				if (random.nextDouble() < pLeft) {
+					node = node.left;
+					pdf *= pLeft;
+				} else {
+					node = node.right;
+					pdf *= 1 - pLeft;
+				}
+			}
+
+			//A light that was picked more than once is evaluated once,
+			//with the sum of the weights.
+			double weight = 1 / (_numOfSamples * pdf);
+			int index = first;
+			while (index < count && lights[index] != node.light) {
+				index++;
+			}
+			if (index == count) {
+				lights[count] = node.light;
+				weights[count++] = weight;
+			} else {
+				weights[index] += weight;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Estimates how much the lights of a cluster contribute to a point.
+	 * The distance is at least the half diagonal of the cluster's bounds
+	 * (and at least one unit), so a point inside a cluster, or right next 
+	 * to a light, does not make it infinitely important.
+	 * @param node The cluster.
+	 * @param x The x of the point.
+	 * @param y The y of the point.
+	 * @param z The z of the point.
+	 * @return The estimated contribution of the cluster.
+	 */
+	private static double importance(Node node, double x, double y, double z) {
+		double dx = (node.minX + node.maxX) / 2 - x,
+			   dy = (node.minY + node.maxY) / 2 - y,
+			   dz = (node.minZ + node.maxZ) / 2 - z,
+			   ex = (node.maxX - node.minX) / 2,
+			   ey = (node.maxY - node.minY) / 2,
+			   ez = (node.maxZ - node.minZ) / 2;
+		double distance2 = Math.max(dx * dx + dy * dy + dz * dz, ex * ex + ey * ey + ez * ez);
+		return node.power / Math.max(distance2, 1);
+	}
+
+	/**
+	 * Creates a leaf of the tree.
+	 * @param light The light of the leaf.
+	 * @return A new leaf.
+	 */
+	private static Node createLeaf(PointLight light) {
+		Node leaf = new Node();
+		Point3D position = light.getPosition();
+		Color color = light.getIntensity();
+		leaf.light = light;
+		leaf.power = 0.2126 * color.getRed() + 0.7152 * color.getGreen() + 0.0722 * color.getBlue();
+		leaf.minX = leaf.maxX = position.getX().getNumber();
+		leaf.minY = leaf.maxY = position.getY().getNumber();
+		leaf.minZ = leaf.maxZ = position.getZ().getNumber();
+		return leaf;
+	}
+
+	/**
+	 * Builds the tree top down. The lights are sorted along the longest
+	 * axis of their bounds and split in the middle.
+	 * @param leaves The leaves of the lights of the cluster.
+	 * @return The root of the cluster's tree.
+	 */
+	private static Node buildTree(List<Node> leaves) {
+		if (leaves.size() == 1) {
+			return leaves.get(0);
+		}
+		Node node = new Node();
+		node.minX = node.minY = node.minZ = Double.MAX_VALUE;
+		node.maxX = node.maxY = node.maxZ = -Double.MAX_VALUE;
+		for (Node leaf : leaves) {
+			node.minX = Math.min(node.minX, leaf.minX);
+			node.minY = Math.min(node.minY, leaf.minY);
+			node.minZ = Math.min(node.minZ, leaf.minZ);
+			node.maxX = Math.max(node.maxX, leaf.maxX);
+			node.maxY = Math.max(node.maxY, leaf.maxY);
+			node.maxZ = Math.max(node.maxZ, leaf.maxZ);
+			node.power += leaf.power;
+		}
+
+		double dx = node.maxX - node.minX, dy = node.maxY - node.minY, dz = node.maxZ - node.minZ;
+		Comparator<Node> byAxis;
+		if (dx >= dy && dx >= dz) {
+			byAxis = Comparator.comparingDouble(leaf -> leaf.minX);
+		} else if (dy >= dz) {
+			byAxis = Comparator.comparingDouble(leaf -> leaf.minY);
+		} else {
+			byAxis = Comparator.comparingDouble(leaf -> leaf.minZ);
+		}
+		leaves.sort(byAxis);
+
+		int middle = leaves.size() / 2;
+		node.left = buildTree(new ArrayList<Node>(leaves.subList(0, middle)));
+		node.right = buildTree(new ArrayList<Node>(leaves.subList(middle, leaves.size())));
+		return node;
+	}
+}
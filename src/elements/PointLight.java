@@ -1,7 +1,5 @@
 package elements;
 
-import java.util.ArrayList;
-
 import primitives.Color;
 import primitives.Point3D;
 import primitives.Vector;
@@ -28,13 +26,17 @@ public class PointLight extends VolumedLightSrc {
 	 * intensity in any given point in the 3D space.
 	 */
 	protected double _Kc, _Kl, _Kq;
-	
-	
+
+	/**
+	 * The number of samples that are checked for every shadow ray.
+	 */
+	protected int _numOfSamples;
 	
 	/**
-	 * Index for the iteration over the '_spiralSamples' array.
+	 * The number of the first samples that decide whether 
+	 * the rest of the samples are needed, 0 for a fraction of the samples.
 	 */
-	protected int _iterationIndex;
+	protected int _numOfProbes = 0;
 	
 	/**
 	 * A constructor for this Point Light object for building
@@ -131,6 +133,33 @@ public class PointLight extends VolumedLightSrc {
 		return _color.scale(1/factor);
 	}
 	
+	/**
+	 * Calculates the distance from the light source beyond which the 
+	 * intensity of the light, in every color component, is below a given cutoff.
+	 * That is, the distance where Kc + Kl*d + Kq*d^2 reaches the 
+	 * strongest color component divided by the cutoff.
+	 * @param cutoff The intensity below which the light is negligible.
+	 * @return The radius of the sphere of influence of the light. Zero if the light is 
+	 * negligible everywhere, and infinity if it is never attenuated below the cutoff.
+	 */
+	public double getInfluenceRadius(double cutoff) {
+		if (cutoff <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double max = Math.max(_color.getRed(), Math.max(_color.getGreen(), _color.getBlue()));
+		double factor = max / cutoff;
+		if (factor <= _Kc) {
+			return 0;
+		}
+		if (_Kq > 0) {
+			return (-_Kl + Math.sqrt(_Kl * _Kl + 4 * _Kq * (factor - _Kc))) / (2 * _Kq);
+		}
+		if (_Kl > 0) {
+			return (factor - _Kc) / _Kl;
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+	
 	/**
 	 * This override function is for getting the vector from
 	 * the point-light source of light to the given point 
@@ -142,28 +171,49 @@ public class PointLight extends VolumedLightSrc {
 	}
 	
 	/**
-	 * Function for overwriting the initiated-one-entry array with 
-	 * vary number of samples.
+	 * Setter for the number of samples for each ray 
+	 * that is sent to the light source.
 	 * @param numberOfSamples The number of samples that will be checked 
-	 * for every ray that is sent to this light source.
+	 * for every ray that is sent to this light source. If the parameter 
+	 * is not positive, the function would do nothing.
 	 */
 	@Override
 	public void setSamples(int numberOfSamples) {
-		double angleDelta = (10 * Math.PI) / numberOfSamples;
-		
-		Scalars = new ArrayList<double[]>();
-		
-		for (int i = 0; i < numberOfSamples; i++) {
-			Scalars.add(new double[] { Math.sin(angleDelta * i), Math.cos(angleDelta * i) });
+		if (numberOfSamples > 0) {
+			_numOfSamples = numberOfSamples;
 		}
-
 	}
+	
 	/**
 	 * Getter for the number of samples for each ray 
 	 * that is sent to the light source.
 	 */
 	@Override
 	public int getNumOfSamples() {
-		return Scalars.size();
+		return _numOfSamples;
+	}
+	
+	/**
+	 * Setter for the number of the first samples that decide whether 
+	 * the rest of the samples are needed.
+	 * @param numberOfProbes The number of the probe samples. If the parameter 
+	 * is not positive, the function would do nothing. Until it is set, the 
+	 * number of the probes is a quarter of the samples, and at least two.
+	 */
+	public void setProbes(int numberOfProbes) {
+		if (numberOfProbes > 0) {
+			_numOfProbes = numberOfProbes;
+		}
+	}
+	
+	/**
+	 * Getter for the number of the first samples that decide whether 
+	 * the rest of the samples are needed.
+	 */
+	@Override
+	public int getNumOfProbes() {
+		int numOfProbes = _numOfProbes > 0 ? _numOfProbes 
+				: Math.max(_numOfSamples / SAMPLES_PER_PROBE, MIN_NUMBER_OF_PROBES);
+		return Math.min(numOfProbes, _numOfSamples);
 	}
 }
@@ -1,7 +1,5 @@
 package elements;
 
-import java.util.ArrayList;
-
 import primitives.Color;
 
 public abstract class VolumedLightSrc extends Light implements LightSource {
@@ -9,14 +7,22 @@ public abstract class VolumedLightSrc extends Light implements LightSource {
 	/**
 	 * Define the number of samples that are checked for every shadow ray 
 	 */
-	static protected int NUMBER_OF_SAMPLES = 1;
+	static protected int NUMBER_OF_SAMPLES = 8;
+	
+	/**
+	 * Define the number of the first samples that decide whether the rest 
+	 * of the samples are needed. If all of them agree (fully lit or fully 
+	 * shadowed), the point is not in a penumbra and the rest are skipped.
+	 * Unless it is set, the number of the probes is the number of the samples
+	 * divided by SAMPLES_PER_PROBE, and at least MIN_NUMBER_OF_PROBES.
+	 */
+	static protected int SAMPLES_PER_PROBE = 4, MIN_NUMBER_OF_PROBES = 2;
 	
 	/**
-	 * A list of scalar pairs for calculating the movement vectors 
-	 * from the center of the light source. 
-	 * The usage is for checking the shadow
+	 * The golden ratio conjugate. Turning the samples by this fraction
+	 * of a circle one after the other spreads them evenly around the light.
 	 */
-	public ArrayList<double[]> Scalars;
+	private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
 	
 	/**
 	 * Constructor
@@ -43,4 +49,33 @@ public abstract class VolumedLightSrc extends Light implements LightSource {
 	 * @return The number of samples that are in this volumed light source.
 	 */
 	abstract public int getNumOfSamples();
+	
+	/**
+	 * Getter for the number of the first samples that decide whether 
+	 * the rest of the samples are needed.
+	 * @return The number of the probe samples, at most the number of samples.
+	 */
+	abstract public int getNumOfProbes();
+	
+	/**
+	 * Calculates the position of a sample on the disk of the light, in the 
+	 * disk's own frame, where the center of the light is (0,0).
+	 * The disk is divided into rings of equal area, one sample in each ring, 
+	 * and every sample is turned by the golden ratio of a circle from the previous one.
+	 * The samples start at the outer ring, so the first (probe) samples are spread 
+	 * around the rim of the light, where a penumbra is first noticed.
+	 * @param index The index of the sample, between 0 and {@link #getNumOfSamples()}.
+	 * @param rotation A random number in [0, 1) that turns the whole pattern, 
+	 * the same for all the samples of one shading point.
+	 * @param jitter A random number in [0, 1) for the position of the sample inside its ring.
+	 * @param out out[0] and out[1] get the position of the sample, and out[2] gets zero.
+	 */
+	public void sampleDisk(int index, double rotation, double jitter, double[] out) {
+		int numOfSamples = getNumOfSamples(), ring = numOfSamples - 1 - index;
+		double r = getRadius() * Math.sqrt((ring + jitter) / numOfSamples),
+			   phi = 2 * Math.PI * (rotation + index * GOLDEN_RATIO_CONJUGATE);
+		out[0] = r * Math.cos(phi);
+		out[1] = r * Math.sin(phi);
+		out[2] = 0;
+	}
 }
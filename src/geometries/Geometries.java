@@ -3,6 +3,7 @@ package geometries;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +11,7 @@ import primitives.IGetEmission;
 import primitives.Material;
 import primitives.Point3D;
 import primitives.Ray;
+import util.TraversalStats;
 import util.binaryTree;
 
 /**
@@ -31,6 +33,12 @@ public class Geometries extends Geometry {
 	 */
 	private binaryTree _BVH_Tree;
 	
+	/**
+	 * The identifier of every geometry: its index in the list plus one.
+	 * Created with the tree.
+	 */
+	private Map<Geometry, Integer> _ids = new IdentityHashMap<Geometry, Integer>();
+	
 	/**
 	 * Constructor for setting a default set of geometries.
 	 * @param emissionImp The IGetEmission implementor
@@ -66,6 +74,7 @@ public class Geometries extends Geometry {
 		Map<Geometry, List<Point3D>> intersectionPoints = 
 				new HashMap<Geometry, List<Point3D>> ();
 		List<Point3D> points;
+		TraversalStats.get().addRay();
 		for (Geometry geometry : _BVH_Tree.minListGeometries(ray)) {
 			points = geometry.findIntersections(ray);
 			if (points.size() != 0)
@@ -94,6 +103,21 @@ public class Geometries extends Geometry {
 	 */
 	public void createTree() {
 		_BVH_Tree = new binaryTree(_shapes);
+		_ids = new IdentityHashMap<Geometry, Integer>();
+		for (int index = 0; index < _shapes.size(); index++) {
+			_ids.put(_shapes.get(index), index + 1);
+		}
+	}
+	
+	/**
+	 * Getter for the identifier of a geometry of this Geometries,
+	 * which is its index in the list plus one. Valid after the tree is created.
+	 * @param geometry The geometry.
+	 * @return The identifier of the geometry, 0 if it is not in the list.
+	 */
+	public int getId(Geometry geometry) {
+		Integer id = _ids.get(geometry);
+		return id == null ? 0 : id;
 	}
 	
 	/**
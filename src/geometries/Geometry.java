@@ -13,7 +13,7 @@ public abstract class Geometry {
 
 	/**
 	 * Represents what kind of material in terms of diffusion, 
-	 * specularity and shininess.
+	 * specularity and shininess. The instance is interned (see {@link Material#intern}).
 	 */
 	protected Material _material;
 	
@@ -42,7 +42,7 @@ public abstract class Geometry {
 	 * @param emission The emission light that every Geometry has.
 	 */
 	public Geometry(Material material, IGetEmission emissionImp) {
-		_material = new Material(material);
+		_material = Material.intern(material);
 		_axis = new Axis(new Point3D(0,0,0), new Vector(1, 0, 0), new Vector(0, 1, 0), new Vector(0, 0, 1));
 		_emissionImp = emissionImp;
 	}
@@ -53,7 +53,7 @@ public abstract class Geometry {
 	 */
 	public Geometry(Geometry other) {
 		this._emissionImp = other._emissionImp;
-		this._material = new Material(other._material);
+		this._material = other._material;
 		this._axis = new Axis(other._axis);
 	}
 
@@ -70,14 +70,49 @@ public abstract class Geometry {
 		return this._emissionImp.getIntensity(point);
 	}
 	
+	/**
+	 * Getter for the emission of the geometry, for a sample whose
+	 * footprint has the given width in the point.
+	 * @param point The point on the geometry.
+	 * @param footprint The width of the footprint (see {@link Ray#getFootprint}).
+	 * @return The emission color in the point.
+	 */
+	public Color getEmission(Point3D point, double footprint) {
+		return this._emissionImp.getEmission(point, footprint);
+	}
+	
+	/**
+	 * Getter for the intensity of the emission of the geometry, for a 
+	 * sample whose footprint has the given width in the point.
+	 * @param point The point on the geometry.
+	 * @param footprint The width of the footprint (see {@link Ray#getFootprint}).
+	 * @return The intensity of the emission in the point.
+	 */
+	public double getIntensity(Point3D point, double footprint) {
+		return this._emissionImp.getIntensity(point, footprint);
+	}
+	
+	/**
+	 * Looks up the emission of the geometry and its intensity at once.
+	 * @param point The point on the geometry.
+	 * @param footprint The width of the footprint (see {@link Ray#getFootprint}).
+	 * @param emission The array into which the red, green and blue 
+	 * components of the emission are written.
+	 * @return The intensity of the emission in the point.
+	 */
+	public double lookupEmission(Point3D point, double footprint, double[] emission) {
+		return this._emissionImp.lookup(point, footprint, emission);
+	}
+	
 	/**
 	 * Getter for the material that represents what kind of material 
 	 * is this geometry made of.
-	 * @return A new Material that represents what kind of material 
-	 * is this geometry made of.
+	 * @return The Material that represents what kind of material 
+	 * is this geometry made of. Materials are immutable, so it 
+	 * is the geometry's own (interned) instance rather than a copy.
 	 */
 	public Material getMaterial() {
-		return new Material(_material);
+		return _material;
 	}
 	
 	/**
@@ -0,0 +1,43 @@
+package primitives;
+
+/**
+ * The frame of an axis as plain numbers, for projecting points on the axis
+ * (like {@link Axis#getXProjection} and the others) without creating the
+ * vectors of the projections. The frame is a snapshot of the axis, it does
+ * not follow later changes of the axis.
+ */
+final class AxisFrame {
+
+	/**
+	 * The origin, and the x, y and z vectors of the axis.
+	 */
+	private final double _ox, _oy, _oz, _xx, _xy, _xz, _yx, _yy, _yz, _zx, _zy, _zz;
+
+	/**
+	 * Constructor for the frame of an axis.
+	 * @param axis The axis.
+	 */
+	AxisFrame(Axis axis) {
+		Point3D origin = axis.getOrigin(),
+				x = axis.getXVector().getHead(), y = axis.getYVector().getHead(), z = axis.getZVector().getHead();
+		_ox = origin.getX().getNumber(); _oy = origin.getY().getNumber(); _oz = origin.getZ().getNumber();
+		_xx = x.getX().getNumber(); _xy = x.getY().getNumber(); _xz = x.getZ().getNumber();
+		_yx = y.getX().getNumber(); _yy = y.getY().getNumber(); _yz = y.getZ().getNumber();
+		_zx = z.getX().getNumber(); _zy = z.getY().getNumber(); _zz = z.getZ().getNumber();
+	}
+
+	/**
+	 * Projects a point on the axis.
+	 * @param point The point.
+	 * @param local The array into which the x, y and z projections are written.
+	 * @param offset The index of the x projection in the array.
+	 */
+	void project(Point3D point, double[] local, int offset) {
+		double dx = point.getX().getNumber() - _ox,
+			   dy = point.getY().getNumber() - _oy,
+			   dz = point.getZ().getNumber() - _oz;
+		local[offset] = dx * _xx + dy * _xy + dz * _xz;
+		local[offset + 1] = dx * _yx + dy * _yy + dz * _yz;
+		local[offset + 2] = dx * _zx + dy * _zy + dz * _zz;
+	}
+}
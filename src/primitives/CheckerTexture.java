@@ -0,0 +1,61 @@
+package primitives;
+
+/**
+ * A procedural checker board on the x and y coordinates: squares of two 
+ * textures, one after the other, with an outline of a third texture 
+ * between them. It is the checker of {@link Texture}, but its squares 
+ * may be any textures, and nothing is allocated for a lookup.
+ */
+public class CheckerTexture implements ProceduralTexture {
+	
+	/**
+	 * The textures of the squares, whose x and y indexes have an even sum
+	 * (the first) and an odd sum (the second), and of the outline.
+	 */
+	private final ProceduralTexture _first, _second, _outline;
+	
+	/**
+	 * The inverse of the size of a square, and half the width of the outline 
+	 * in units of squares, precomputed for the lookups.
+	 */
+	private final double _inverseSize, _halfOutline;
+	
+	/**
+	 * Constructor for a checker board.
+	 * @param first The texture of the first squares.
+	 * @param second The texture of the second squares.
+	 * @param outline The texture of the outline.
+	 * @param size The size of a square, with its outline.
+	 * @param outlineWidth The width of the outline, zero for no outline.
+	 */
+	public CheckerTexture(ProceduralTexture first, ProceduralTexture second, ProceduralTexture outline, 
+			double size, double outlineWidth) {
+		if (size <= 0 || outlineWidth < 0)
+			throw new IllegalArgumentException("The size of the squares must be positive and the outline cannot be negative");
+		_first = first;
+		_second = second;
+		_outline = outline;
+		_inverseSize = 1 / size;
+		_halfOutline = 0.5 * outlineWidth / size;
+	}
+	
+	@Override
+	public void evaluate(double x, double y, double z, double[] stack, int offset) {
+		double fx = x * _inverseSize, fy = y * _inverseSize,
+			   ix = Math.floor(fx), iy = Math.floor(fy);
+		fx -= ix;
+		fy -= iy;
+		ProceduralTexture square;
+		if (fx < _halfOutline || fx > 1 - _halfOutline || fy < _halfOutline || fy > 1 - _halfOutline) {
+			square = _outline;
+		} else {
+			square = (((long)ix + (long)iy) & 1) == 0 ? _first : _second;
+		}
+		square.evaluate(x, y, z, stack, offset);
+	}
+	
+	@Override
+	public int getStackSize() {
+		return Math.max(_first.getStackSize(), Math.max(_second.getStackSize(), _outline.getStackSize()));
+	}
+}
@@ -7,6 +7,8 @@ import util.Counter;
  * Limits to RGB with either integers or double,
  * ensures limits, (0-255) for integer or (0-1) for double, are not broken,
  * and allow single point of interface color manipulations.
+ * A color is immutable, so the same instance may be shared freely. Sums
+ * of many colors are better done in a {@link ColorAccumulator}.
  * @author orycohen
  */
 public class Color {
@@ -14,27 +16,27 @@ public class Color {
 	/**
 	 * The basic red color of this Color object
 	 */
-	private double _red;
+	private final double _red;
 	
 	/**
 	 * The basic green color of this Color object
 	 */
-	private double _green;
+	private final double _green;
 	
 	/**
 	 * The basic blue color of this Color object
 	 */
-	private double _blue;
+	private final double _blue;
 	
 	/**
 	 * The color black for reusing.
 	 */
-	public static Color black = new Color(0,0,0);
+	public static final Color black = new Color(0,0,0);
 	
 	/**
 	 * The white color for reusing
 	 */
-	public static Color white = new Color(255,255,255);
+	public static final Color white = new Color(255,255,255);
 	
 	private static Counter counter = new Counter();;
 	public static Counter getNewCounter() {return counter;}
@@ -116,6 +118,16 @@ public class Color {
 				_blue > 255.0 ? 255 : (int)_blue);
 	}
 	
+	/**
+	 * Adding a single color to this color, without the array of
+	 * {@link #add(Color...)}.
+	 * @param other The color to add to this color.
+	 * @return A new Color that is the addition of the two colors.
+	 */
+	public Color add(Color other) {
+		return new Color(_red + other._red, _green + other._green, _blue + other._blue);
+	}
+	
 	/**
 	 * Adding one or more colors to this color. The function
 	 * adds the colors to this object's color (!not changes it!)
@@ -161,15 +173,19 @@ public class Color {
 		return new Color(r, g, b);
 	}
 	
-	public void square() {
-		_red = _red * _red;
-		_blue = _blue * _blue;
-		_green = _green * _green;
+	/**
+	 * Function for squaring every component of the color.
+	 * @return A new color, this color is not changed.
+	 */
+	public Color square() {
+		return new Color(_red * _red, _green * _green, _blue * _blue);
 	}
 	
-	public void squareRoot() {
-		_red = Math.sqrt(_red);
-		_blue = Math.sqrt(_blue);
-		_green = Math.sqrt(_green);
+	/**
+	 * Function for the square root of every component of the color.
+	 * @return A new color, this color is not changed.
+	 */
+	public Color squareRoot() {
+		return new Color(Math.sqrt(_red), Math.sqrt(_green), Math.sqrt(_blue));
 	}
 }
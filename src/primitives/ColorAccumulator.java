@@ -0,0 +1,135 @@
+package primitives;
+
+/**
+ * A mutable sum of colors, for the inner loops of the rendering, in which
+ * adding and scaling {@link Color} objects would create a new color in every step.
+ * The components are added in the same order and with the same operations as
+ * in {@link Color#add(Color...)} and {@link Color#scale(double)}, so the sum
+ * is exactly the same as with the colors.
+ * An accumulator is not thread safe, every thread should have its own.
+ */
+public class ColorAccumulator {
+
+	/**
+	 * The components of the sum.
+	 */
+	private double _red, _green, _blue;
+
+	/**
+	 * Constructor for an empty (black) sum.
+	 */
+	public ColorAccumulator() {
+	}
+
+	/**
+	 * Constructor for a sum that starts with a color.
+	 * @param color The first color of the sum.
+	 */
+	public ColorAccumulator(Color color) {
+		set(color);
+	}
+
+	/**
+	 * Getter for the red component of the sum.
+	 * @return The red component.
+	 */
+	public double getRed() {
+		return _red;
+	}
+
+	/**
+	 * Getter for the green component of the sum.
+	 * @return The green component.
+	 */
+	public double getGreen() {
+		return _green;
+	}
+
+	/**
+	 * Getter for the blue component of the sum.
+	 * @return The blue component.
+	 */
+	public double getBlue() {
+		return _blue;
+	}
+
+	/**
+	 * Empties the sum, so the accumulator may be reused.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator reset() {
+		_red = _green = _blue = 0;
+		return this;
+	}
+
+	/**
+	 * Replaces the sum with a color.
+	 * @param color The color.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator set(Color color) {
+		_red = color.getRed();
+		_green = color.getGreen();
+		_blue = color.getBlue();
+		return this;
+	}
+
+	/**
+	 * Adds a color to the sum.
+	 * @param color The color to add.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator add(Color color) {
+		_red += color.getRed();
+		_green += color.getGreen();
+		_blue += color.getBlue();
+		return this;
+	}
+
+	/**
+	 * Adds a scaled color to the sum, as {@code add(color.scale(scale))} does,
+	 * without the scaled color.
+	 * @param color The color to add.
+	 * @param scale The scale of the color.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator add(Color color, double scale) {
+		_red += color.getRed() * scale;
+		_green += color.getGreen() * scale;
+		_blue += color.getBlue() * scale;
+		return this;
+	}
+
+	/**
+	 * Adds another scaled sum to the sum.
+	 * @param other The sum to add, which is not changed.
+	 * @param scale The scale of the other sum.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator add(ColorAccumulator other, double scale) {
+		_red += other._red * scale;
+		_green += other._green * scale;
+		_blue += other._blue * scale;
+		return this;
+	}
+
+	/**
+	 * Scales the sum.
+	 * @param scale The parameter for the scale operation.
+	 * @return The accumulator itself.
+	 */
+	public ColorAccumulator scale(double scale) {
+		_red *= scale;
+		_green *= scale;
+		_blue *= scale;
+		return this;
+	}
+
+	/**
+	 * Creates a color of the sum.
+	 * @return A new color, which does not change with the accumulator.
+	 */
+	public Color toColor() {
+		return new Color(_red, _green, _blue);
+	}
+}
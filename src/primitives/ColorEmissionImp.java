@@ -2,7 +2,7 @@ package primitives;
 
 public class ColorEmissionImp implements IGetEmission {
 
-	private Color _emission;
+	private final Color _emission;
 	
 	public ColorEmissionImp(Color color) {
 		this._emission = new Color(color);
@@ -10,12 +10,20 @@ public class ColorEmissionImp implements IGetEmission {
 	
 	@Override
 	public Color getEmission(Point3D point) {
-		return new Color(this._emission);
+		return _emission;
 	}
 
 	@Override
 	public double getIntensity(Point3D point) {
 		return 1;
 	}
+	
+	@Override
+	public double lookup(Point3D point, double footprint, double[] emission) {
+		emission[0] = _emission.getRed();
+		emission[1] = _emission.getGreen();
+		emission[2] = _emission.getBlue();
+		return 1;
+	}
 
 }
@@ -0,0 +1,47 @@
+package primitives;
+
+/**
+ * A procedural texture of a single color, the leaf of most texture trees.
+ */
+public class ConstantTexture implements ProceduralTexture {
+	
+	/**
+	 * The components of the color.
+	 */
+	private final double _red, _green, _blue;
+	
+	/**
+	 * The intensity of the color.
+	 */
+	private final double _intensity;
+	
+	/**
+	 * Constructor for a texture of a color with the full intensity.
+	 * @param color The color.
+	 */
+	public ConstantTexture(Color color) {
+		this(color, 1);
+	}
+	
+	/**
+	 * Constructor for a texture of a color.
+	 * @param color The color.
+	 * @param intensity The intensity of the color, from 0 to 1.
+	 */
+	public ConstantTexture(Color color, double intensity) {
+		if (intensity < 0 || intensity > 1)
+			throw new IllegalArgumentException("The intensity must be between 0 and 1");
+		_red = color.getRed();
+		_green = color.getGreen();
+		_blue = color.getBlue();
+		_intensity = intensity;
+	}
+	
+	@Override
+	public void evaluate(double x, double y, double z, double[] stack, int offset) {
+		stack[offset + RED] = _red;
+		stack[offset + GREEN] = _green;
+		stack[offset + BLUE] = _blue;
+		stack[offset + INTENSITY] = _intensity;
+	}
+}
@@ -7,4 +7,44 @@ package primitives;
 public interface IGetEmission {
 	public Color getEmission(Point3D point);
 	public double getIntensity(Point3D point);
+	
+	/**
+	 * Getter for the emission in a point, for a sample whose footprint 
+	 * has the given width in that point (see {@link Ray#getFootprint}).
+	 * A texture is read in the level of detail of the footprint.
+	 * @param point The point.
+	 * @param footprint The width of the footprint, zero for a single point.
+	 * @return The emission in the point.
+	 */
+	public default Color getEmission(Point3D point, double footprint) {
+		return getEmission(point);
+	}
+	
+	/**
+	 * Getter for the intensity of the emission in a point, for a sample 
+	 * whose footprint has the given width in that point.
+	 * @param point The point.
+	 * @param footprint The width of the footprint, zero for a single point.
+	 * @return The intensity in the point.
+	 */
+	public default double getIntensity(Point3D point, double footprint) {
+		return getIntensity(point);
+	}
+	
+	/**
+	 * Looks up the emission and its intensity in a point at once, so whatever 
+	 * they share (such as the mapping of the point to a texture) is found once.
+	 * @param point The point.
+	 * @param footprint The width of the footprint, zero for a single point.
+	 * @param emission The array into which the red, green and blue components 
+	 * of the emission are written.
+	 * @return The intensity in the point.
+	 */
+	public default double lookup(Point3D point, double footprint, double[] emission) {
+		Color color = getEmission(point, footprint);
+		emission[0] = color.getRed();
+		emission[1] = color.getGreen();
+		emission[2] = color.getBlue();
+		return getIntensity(point, footprint);
+	}
 }
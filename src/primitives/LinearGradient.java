@@ -0,0 +1,42 @@
+package primitives;
+
+/**
+ * A scalar field that grows linearly along a direction: 0 up to a start 
+ * distance along the direction, 1 from an end distance, and linear between them.
+ */
+public class LinearGradient implements ScalarField {
+	
+	/**
+	 * The unit direction of the gradient.
+	 */
+	private final double _dx, _dy, _dz;
+	
+	/**
+	 * The distance of the start along the direction, and the inverse of 
+	 * the distance between the start and the end.
+	 */
+	private final double _start, _inverseLength;
+	
+	/**
+	 * Constructor for a gradient.
+	 * @param direction The direction of the gradient.
+	 * @param start The distance along the direction (from the origin) where the field is 0.
+	 * @param end The distance along the direction where the field is 1.
+	 */
+	public LinearGradient(Vector direction, double start, double end) {
+		if (end == start)
+			throw new IllegalArgumentException("The start and the end of the gradient must differ");
+		Point3D head = direction.normalizedVector().getHead();
+		_dx = head.getX().getNumber();
+		_dy = head.getY().getNumber();
+		_dz = head.getZ().getNumber();
+		_start = start;
+		_inverseLength = 1 / (end - start);
+	}
+	
+	@Override
+	public double evaluate(double x, double y, double z) {
+		double t = ((x * _dx + y * _dy + z * _dz) - _start) * _inverseLength;
+		return t < 0 ? 0 : (t > 1 ? 1 : t);
+	}
+}
@@ -1,11 +1,17 @@
 package primitives;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * This class represents a m material 
  * with three factors.
  * The diffusion factor _Kd.
  * The specularity factor _Ks.
  * The shininess factor _Ns
+ * Materials are immutable, so they are shared rather than copied. The geometries
+ * {@link #intern intern} their materials: equal materials are a single instance.
  */
 public class Material {
 	
@@ -20,13 +26,13 @@ public class Material {
 	 * That is the distance from the point of the original ray
 	 * to the point where we move the head of the vector in the ray.
 	 */
-	private final double CONE_LENGTH = 270;
+	private static final double CONE_LENGTH = 270;
 	
 	/**
 	 * The radius of the abstract finite cone that blocks the random
 	 * rays that are reflected from the material.
 	 */
-	private final double MAX_RADIUS = 20;
+	private static final double MAX_RADIUS = 20;
 	
 	
 //-------------------------------------
@@ -35,41 +41,48 @@ public class Material {
 	/**
 	 * This parameter represents the diffusion factor of the material.
 	 */
-	private double _Kd;
+	private final double _Kd;
 	
 	/**
 	 * This parameter represents the specular factor of the material.
 	 */
-	private double _Ks;
+	private final double _Ks;
 	
 	/**
 	 * This parameter represents the shininess factor of the material.
 	 */
-	private int _nShininess;
+	private final int _nShininess;
 	
 	/**
 	 * Represents how much the object is reflective
 	 */
-	private double _Kr;
+	private final double _Kr;
 	
 	/**
 	 * Represents the transparency of the object
 	 */
-	private double _Kt;
+	private final double _Kt;
 	
 	/**
 	 * For diffuse glass.
 	 * Represents how good we see through the material.
 	 * The value is the angle for the transparency rays.
 	 */
-	private double _TranspRadius;
+	private final double _TranspRadius;
 	
 	/**
 	 * For glossy surfaces.
 	 * Represents how good material reflects the light.
 	 * The value is the angle for the reflective rays.
 	 */
-	private double _ReflectRadius;
+	private final double _ReflectRadius;
+	
+	/**
+	 * The interned materials, by their values. The materials are held weakly,
+	 * so a material is dropped when no geometry uses it anymore.
+	 */
+	private static final Map<Material, WeakReference<Material>> INTERNED = 
+			new WeakHashMap<Material, WeakReference<Material>>();
 	
 	/**
 	 * Default constructor for new Material objects.
@@ -124,6 +137,51 @@ public class Material {
 		_TranspRadius = material._TranspRadius;
 		_ReflectRadius = material._ReflectRadius;
 	}
+	
+	/**
+	 * Finds the interned instance of a material: the single instance of all 
+	 * the materials that are equal to it and still in use. If there is no
+	 * such instance, the material itself becomes the interned instance.
+	 * @param material The material.
+	 * @return The interned instance.
+	 */
+	public static synchronized Material intern(Material material) {
+		WeakReference<Material> reference = INTERNED.get(material);
+		Material interned = reference == null ? null : reference.get();
+		if (interned == null) {
+			interned = material;
+			INTERNED.put(interned, new WeakReference<Material>(interned));
+		}
+		return interned;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || !(obj instanceof Material))
+			return false;
+		if (this == obj)
+			return true;
+		Material other = (Material)obj;
+		return Double.compare(_Kd, other._Kd) == 0 && 
+			   Double.compare(_Ks, other._Ks) == 0 && 
+			   _nShininess == other._nShininess && 
+			   Double.compare(_Kr, other._Kr) == 0 && 
+			   Double.compare(_Kt, other._Kt) == 0 && 
+			   Double.compare(_TranspRadius, other._TranspRadius) == 0 && 
+			   Double.compare(_ReflectRadius, other._ReflectRadius) == 0;
+	}
+	
+	@Override
+	public int hashCode() {
+		long hash = Double.doubleToLongBits(_Kd);
+		hash = 31 * hash + Double.doubleToLongBits(_Ks);
+		hash = 31 * hash + _nShininess;
+		hash = 31 * hash + Double.doubleToLongBits(_Kr);
+		hash = 31 * hash + Double.doubleToLongBits(_Kt);
+		hash = 31 * hash + Double.doubleToLongBits(_TranspRadius);
+		hash = 31 * hash + Double.doubleToLongBits(_ReflectRadius);
+		return (int)(hash ^ (hash >>> 32));
+	}
 
 	/**
 	 * Getter for the diffusion factor of the material.
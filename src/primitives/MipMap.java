@@ -0,0 +1,489 @@
+package primitives;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * A mip pyramid of a texture image: the decoded image, and smaller and 
+ * smaller copies of it, each of half the size of the previous one, down 
+ * to a single texel. A lookup reads the level whose texels are about as 
+ * large as the footprint of the sample, so a texture that is far away is 
+ * not point sampled from the full image, which aliases and reads texels 
+ * that are scattered all over the memory.
+ * The pyramid of an image file is held by the {@link TextureCache}, in tiles 
+ * that are loaded when they are first read and dropped when the cache is full.
+ * A tile is decoded from the part of the image under it alone, so the memory of 
+ * a load is bounded by the size of a tile, whatever the size of the image. The 
+ * first {@link #EXACT_LEVELS} levels are averaged from every texel of the image, 
+ * as the levels of an image in the memory; the coarser levels are averaged from 
+ * a subsampled read of the image, so they are close to it but not the same.
+ * The pyramid of an image that is already in the memory is built whole.
+ * Either way the pyramid is immutable, so it is shared by all the copies of 
+ * a texture.
+ */
+public class MipMap {
+	
+	/**
+	 * The levels of the pyramid of an image in the memory, from the full image 
+	 * (level 0) to a single texel. Null for the pyramid of an image file.
+	 */
+	private final TexelMap[] _levels;
+	
+	/**
+	 * The number of levels of the pyramid of an image file that are averaged from
+	 * every texel of the image. The tiles of the coarser levels are averaged from 
+	 * a read of the image that is subsampled to this number of levels above the tile,
+	 * so no tile decodes more than {@code (TILE_SIZE << EXACT_LEVELS)} squared pixels.
+	 */
+	public static final int EXACT_LEVELS = 2;
+	
+	/**
+	 * The cache and the path of the image file, null for an image in the memory.
+	 */
+	private final TextureCache _cache;
+	private final String _path;
+	
+	/**
+	 * The dimensions of every level, in texels.
+	 */
+	private final int[] _widths, _heights;
+	
+	/**
+	 * The number of tiles in a row of tiles of every level.
+	 */
+	private final int[] _tilesInRow;
+	
+	/**
+	 * The tiles of every level, one row of tiles after the other, 
+	 * null for a tile that is not loaded. The texels of a tile are 
+	 * one row after the other, and the tiles in the last column and 
+	 * the last row may be smaller than the others.
+	 */
+	private final AtomicReferenceArray<int[]>[] _tiles;
+	
+	/**
+	 * The time of the cache's clock when every tile was last read.
+	 */
+	private final long[][] _lastUse;
+	
+	/**
+	 * Whether the coarse levels of the image are being decoded in the background (see {@link TextureCache#preload}).
+	 */
+	private volatile boolean _loading = false;
+	
+	/**
+	 * Constructor that decodes an image and builds its whole pyramid.
+	 * @param image The image of the texture.
+	 */
+	public MipMap(BufferedImage image) {
+		List<TexelMap> levels = buildLevels(new TexelMap(image));
+		_levels = levels.toArray(new TexelMap[levels.size()]);
+		_cache = null;
+		_path = null;
+		_widths = _heights = _tilesInRow = null;
+		_tiles = null;
+		_lastUse = null;
+	}
+	
+	/**
+	 * Constructor for the pyramid of an image file in a cache. 
+	 * Only the dimensions of the image are read.
+	 * @param cache The cache.
+	 * @param path The path of the image file.
+	 * @throws IOException In case the file cannot be read, or it is not an image.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	MipMap(TextureCache cache, String path) throws IOException {
+		_levels = null;
+		_cache = cache;
+		_path = path;
+		int width, height;
+		try (ImageInputStream stream = openImage(path)) {
+			ImageReader reader = getReader(stream);
+			try {
+				width = reader.getWidth(0);
+				height = reader.getHeight(0);
+			} finally {
+				reader.dispose();
+			}
+		}
+		List<int[]> sizes = new ArrayList<int[]>();
+		sizes.add(new int[] {width, height});
+		while (width > 1 || height > 1) {
+			width = Math.max(1, width / 2);
+			height = Math.max(1, height / 2);
+			sizes.add(new int[] {width, height});
+		}
+		_widths = new int[sizes.size()];
+		_heights = new int[sizes.size()];
+		_tilesInRow = new int[sizes.size()];
+		_tiles = new AtomicReferenceArray[sizes.size()];
+		_lastUse = new long[sizes.size()][];
+		for (int level = 0; level < sizes.size(); level++) {
+			_widths[level] = sizes.get(level)[0];
+			_heights[level] = sizes.get(level)[1];
+			_tilesInRow[level] = (_widths[level] + TextureCache.TILE_SIZE - 1) / TextureCache.TILE_SIZE;
+			int numOfTiles = _tilesInRow[level] * ((_heights[level] + TextureCache.TILE_SIZE - 1) / TextureCache.TILE_SIZE);
+			_tiles[level] = new AtomicReferenceArray<int[]>(numOfTiles);
+			_lastUse[level] = new long[numOfTiles];
+		}
+	}
+	
+	/**
+	 * Getter for the number of levels of the pyramid.
+	 * @return The number of levels, one more than the base 2 logarithm of the larger dimension of the image.
+	 */
+	public int getNumOfLevels() {
+		return _levels != null ? _levels.length : _widths.length;
+	}
+	
+	/**
+	 * Getter for the width of a level.
+	 * @param level The index of the level, 0 for the full image.
+	 * @return The number of texels in the breadth of the level.
+	 */
+	public int getWidth(int level) {
+		return _levels != null ? _levels[level].getWidth() : _widths[level];
+	}
+	
+	/**
+	 * Getter for the height of a level.
+	 * @param level The index of the level, 0 for the full image.
+	 * @return The number of texels in the height of the level.
+	 */
+	public int getHeight(int level) {
+		return _levels != null ? _levels[level].getHeight() : _heights[level];
+	}
+	
+	/**
+	 * Getter for a texel of a level. The indexes are clamped to the level.
+	 * @param level The index of the level, 0 for the full image.
+	 * @param x The column of the texel.
+	 * @param y The row of the texel, where 0 is the top row.
+	 * @return The packed texel, 0xRRGGBB.
+	 */
+	public int getTexel(int level, int x, int y) {
+		if (_levels != null) {
+			return _levels[level].getTexel(x, y);
+		}
+		int width = _widths[level], height = _heights[level];
+		x = x < 0 ? 0 : (x >= width ? width - 1 : x);
+		y = y < 0 ? 0 : (y >= height ? height - 1 : y);
+		int tileX = x / TextureCache.TILE_SIZE, tileY = y / TextureCache.TILE_SIZE,
+			index = tileY * _tilesInRow[level] + tileX;
+		int[] tile = _tiles[level].get(index);
+		if (tile == null) {
+			//The rendering does not wait for an image that is decoded in the background.
+			if (_loading) {
+				return _cache.getPlaceholder();
+			}
+			tile = load(level, index);
+		}
+		_lastUse[level][index] = _cache.getClock();
+		int tileWidth = Math.min(TextureCache.TILE_SIZE, width - tileX * TextureCache.TILE_SIZE);
+		return tile[(y - tileY * TextureCache.TILE_SIZE) * tileWidth + x - tileX * TextureCache.TILE_SIZE];
+	}
+	
+	/**
+	 * Calculates the level of detail of a footprint: the base 2 logarithm of 
+	 * the number of texels of the full image that the footprint spans.
+	 * @param footprintU The width of the footprint along the width of the map, where 1 is the whole map.
+	 * @param footprintV The width of the footprint along the height of the map, where 1 is the whole map.
+	 * @return The level of detail, 0 for a footprint of a single texel or less.
+	 */
+	public double levelOfDetail(double footprintU, double footprintV) {
+		double texels = Math.max(footprintU * getWidth(0), footprintV * getHeight(0));
+		return texels <= 1 ? 0 : Math.log(texels) / Math.log(2);
+	}
+	
+	/**
+	 * Looks up a point of the map, in a level of detail. Without filtering the 
+	 * nearest texel of the nearest level is read. With filtering, the two levels 
+	 * around the level of detail are read bilinearly and interpolated (trilinear filtering).
+	 * @param u The position along the width of the map, from 0 to 1.
+	 * @param v The position along the height of the map, from 0 (the bottom) to 1 (the top).
+	 * @param levelOfDetail The level of detail (see {@link #levelOfDetail}).
+	 * @param filter Whether to filter the texels.
+	 * @return The packed texel, 0xRRGGBB.
+	 */
+	public int lookup(double u, double v, double levelOfDetail, boolean filter) {
+		int numOfLevels = getNumOfLevels();
+		if (levelOfDetail >= numOfLevels - 1) {
+			levelOfDetail = numOfLevels - 1;
+		} else if (levelOfDetail < 0) {
+			levelOfDetail = 0;
+		}
+		if (!filter) {
+			return nearest((int)(levelOfDetail + 0.5), u, v);
+		}
+		int level = (int)levelOfDetail;
+		double t = levelOfDetail - level;
+		int texel = bilinear(level, u, v);
+		return t == 0 ? texel : TexelMap.lerp(texel, bilinear(level + 1, u, v), t);
+	}
+	
+	/**
+	 * Looks up the nearest texel to a point of a level.
+	 * @param level The index of the level.
+	 * @param u The position along the width of the map, from 0 to 1.
+	 * @param v The position along the height of the map, from 0 (the bottom) to 1 (the top).
+	 * @return The packed texel, 0xRRGGBB.
+	 */
+	private int nearest(int level, double u, double v) {
+		int height = getHeight(level);
+		return getTexel(level, (int)(u * getWidth(level)), height - 1 - (int)(v * (height - 1)));
+	}
+	
+	/**
+	 * Interpolates the four texels around a point of a level. The centers of 
+	 * the texels are in the middles of their cells, and the edges are clamped.
+	 * @param level The index of the level.
+	 * @param u The position along the width of the map, from 0 to 1.
+	 * @param v The position along the height of the map, from 0 (the bottom) to 1 (the top).
+	 * @return The interpolated texel, 0xRRGGBB.
+	 */
+	private int bilinear(int level, double u, double v) {
+		double x = u * getWidth(level) - 0.5, y = (1 - v) * getHeight(level) - 0.5;
+		int x0 = (int)Math.floor(x), y0 = (int)Math.floor(y);
+		double fx = x - x0, fy = y - y0;
+		int t00 = getTexel(level, x0, y0), t10 = getTexel(level, x0 + 1, y0),
+			t01 = getTexel(level, x0, y0 + 1), t11 = getTexel(level, x0 + 1, y0 + 1);
+		int texel = 0;
+		//Every channel, from blue (the lowest byte) to red.
+		for (int shift = 0; shift <= 16; shift += 8) {
+			double top = ((t00 >> shift) & 0xFF) * (1 - fx) + ((t10 >> shift) & 0xFF) * fx,
+				   bottom = ((t01 >> shift) & 0xFF) * (1 - fx) + ((t11 >> shift) & 0xFF) * fx;
+			texel |= (int)(top * (1 - fy) + bottom * fy + 0.5) << shift;
+		}
+		return texel;
+	}
+	
+	/**
+	 * Loads a tile that is not in the cache, from the part of the image under it.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @return The tile.
+	 */
+	private int[] load(int level, int index) {
+		int[] tile;
+		try {
+			tile = loadTile(level, index);
+		} catch (IOException e) {
+			throw new IllegalStateException("The texture " + _path + " cannot be read", e);
+		}
+		_cache.evict();
+		return tile;
+	}
+	
+	/**
+	 * Starts to decode the levels of the image that are a single tile in the background, 
+	 * so a texture that is far away is ready without waiting for its image. The finer 
+	 * tiles are loaded when they are read, as the tiles of an image that is not preloaded.
+	 * @param executor The threads that decode the images.
+	 * @return The decoding of the image, whose failure is the IOException of the image, 
+	 * or null if the image is already being decoded.
+	 */
+	Future<?> loadInBackground(ExecutorService executor) {
+		synchronized (this) {
+			if (_loading) {
+				return null;
+			}
+			_loading = true;
+		}
+		return executor.submit(() -> {
+			try {
+				for (int level = _widths.length - 1; level >= 0 && _tiles[level].length() == 1; level--) {
+					loadTile(level, 0);
+				}
+			} finally {
+				_loading = false;
+			}
+			_cache.evict();
+			return null;
+		});
+	}
+	
+	/**
+	 * Loads a tile, unless it is already loaded. The cache is not trimmed here, 
+	 * since the image's lock is held: the caller evicts after it releases the lock.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @return The tile.
+	 * @throws IOException In case of an error while reading the image.
+	 */
+	private synchronized int[] loadTile(int level, int index) throws IOException {
+		int[] tile = _tiles[level].get(index);
+		return tile != null ? tile : decodeTile(level, index);
+	}
+	
+	/**
+	 * Decodes the part of the image under a tile, and puts the tile in the cache.
+	 * The part is read subsampled for the levels above {@link #EXACT_LEVELS}, and 
+	 * averaged down to the tile's level.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @return The tile.
+	 * @throws IOException In case of an error while reading the image.
+	 */
+	private int[] decodeTile(int level, int index) throws IOException {
+		int size = TextureCache.TILE_SIZE << level,
+			x = (index % _tilesInRow[level]) * size, y = (index / _tilesInRow[level]) * size,
+			reductions = Math.min(level, EXACT_LEVELS);
+		Rectangle region = new Rectangle(x, y, Math.min(size, _widths[0] - x), Math.min(size, _heights[0] - y));
+		TexelMap part = new TexelMap(readImage(region, 1 << (level - reductions)));
+		for (int l = 0; l < reductions; l++) {
+			part = part.downsample();
+		}
+		int[] tile = cut(part, level, index, x >> level, y >> level);
+		store(level, index, tile);
+		return tile;
+	}
+	
+	/**
+	 * Cuts a tile out of a map of (a part of) its level.
+	 * @param map The map.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @param mapX The column of the map's first texel in the level.
+	 * @param mapY The row of the map's first texel in the level.
+	 * @return The texels of the tile.
+	 */
+	private int[] cut(TexelMap map, int level, int index, int mapX, int mapY) {
+		int x = (index % _tilesInRow[level]) * TextureCache.TILE_SIZE, 
+			y = (index / _tilesInRow[level]) * TextureCache.TILE_SIZE;
+		int width = Math.min(TextureCache.TILE_SIZE, _widths[level] - x), 
+			height = Math.min(TextureCache.TILE_SIZE, _heights[level] - y);
+		int[] tile = new int[width * height];
+		for (int row = 0; row < height; row++) {
+			for (int column = 0; column < width; column++) {
+				tile[row * width + column] = map.getTexel(x + column - mapX, y + row - mapY);
+			}
+		}
+		return tile;
+	}
+	
+	/**
+	 * Puts a loaded tile in the cache.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @param tile The texels of the tile.
+	 */
+	private void store(int level, int index, int[] tile) {
+		_lastUse[level][index] = _cache.tick();
+		_tiles[level].set(index, tile);
+		_cache.added(4L * tile.length);
+	}
+	
+	/**
+	 * Adds the loaded tiles of the image to a list of candidates for eviction.
+	 * @param tiles The list.
+	 */
+	void addTiles(List<TextureCache.Tile> tiles) {
+		for (int level = 0; level < _tiles.length; level++) {
+			for (int index = 0; index < _tiles[level].length(); index++) {
+				if (_tiles[level].get(index) != null) {
+					TextureCache.Tile tile = new TextureCache.Tile();
+					tile.image = this;
+					tile.level = level;
+					tile.index = index;
+					tile.lastUse = _lastUse[level][index];
+					tiles.add(tile);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Drops a tile from the cache.
+	 * @param level The index of the level of the tile.
+	 * @param index The index of the tile in its level.
+	 * @return The memory that the tile took, in bytes, 0 if it was not loaded.
+	 */
+	long unload(int level, int index) {
+		int[] tile = _tiles[level].getAndSet(index, null);
+		return tile == null ? 0 : 4L * tile.length;
+	}
+	
+	/**
+	 * Reads a part of the image file.
+	 * @param region The part of the image.
+	 * @param step The distance between the pixels that are read, in both axes, 1 for every pixel.
+	 * The pixels are read in the middles of the squares of the step.
+	 * @return The decoded part.
+	 * @throws IOException In case of an error while reading the image.
+	 */
+	private BufferedImage readImage(Rectangle region, int step) throws IOException {
+		try (ImageInputStream stream = openImage(_path)) {
+			ImageReader reader = getReader(stream);
+			try {
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(region);
+				if (step > 1) {
+					//The middles of the squares of the step, rather than their corners
+					//(but inside the region, in a thin image).
+					param.setSourceSubsampling(step, step, 
+							Math.min(step / 2, region.width - 1), Math.min(step / 2, region.height - 1));
+				}
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Opens an image file for reading.
+	 * @param path The path of the file.
+	 * @return The stream of the file.
+	 * @throws IOException In case the file cannot be opened.
+	 */
+	private static ImageInputStream openImage(String path) throws IOException {
+		ImageInputStream stream = ImageIO.createImageInputStream(new File(path));
+		if (stream == null)
+			throw new IOException("The texture " + path + " cannot be opened");
+		return stream;
+	}
+	
+	/**
+	 * Finds a reader for an image, and sets its input.
+	 * @param stream The stream of the image file.
+	 * @return The reader, which should be disposed when the image is read.
+	 * @throws IOException In case the file is not in a known image format.
+	 */
+	private static ImageReader getReader(ImageInputStream stream) throws IOException {
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+		if (!readers.hasNext())
+			throw new IOException("The texture is not in a known image format");
+		ImageReader reader = readers.next();
+		reader.setInput(stream, true, true);
+		return reader;
+	}
+	
+	/**
+	 * Builds the levels of a pyramid.
+	 * @param image The full image.
+	 * @return The levels, from the full image to a single texel.
+	 */
+	private static List<TexelMap> buildLevels(TexelMap image) {
+		List<TexelMap> levels = new ArrayList<TexelMap>();
+		levels.add(image);
+		while (image.getWidth() > 1 || image.getHeight() > 1) {
+			image = image.downsample();
+			levels.add(image);
+		}
+		return levels;
+	}
+}
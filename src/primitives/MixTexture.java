@@ -0,0 +1,55 @@
+package primitives;
+
+/**
+ * A procedural texture that blends two textures (their colors and their 
+ * intensities) by the weight of a scalar field: the first texture where 
+ * the field is 0 and the second where it is 1.
+ */
+public class MixTexture implements ProceduralTexture {
+	
+	/**
+	 * The blended textures.
+	 */
+	private final ProceduralTexture _first, _second;
+	
+	/**
+	 * The weight of the second texture.
+	 */
+	private final ScalarField _weight;
+	
+	/**
+	 * Constructor for a blend.
+	 * @param first The first texture.
+	 * @param second The second texture.
+	 * @param weight The weight of the second texture.
+	 */
+	public MixTexture(ProceduralTexture first, ProceduralTexture second, ScalarField weight) {
+		_first = first;
+		_second = second;
+		_weight = weight;
+	}
+	
+	@Override
+	public void evaluate(double x, double y, double z, double[] stack, int offset) {
+		double t = _weight.evaluate(x, y, z);
+		if (t <= 0) {
+			_first.evaluate(x, y, z, stack, offset);
+			return;
+		}
+		if (t >= 1) {
+			_second.evaluate(x, y, z, stack, offset);
+			return;
+		}
+		//The result of the second texture is right after the result of the first.
+		_first.evaluate(x, y, z, stack, offset);
+		_second.evaluate(x, y, z, stack, offset + SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			stack[offset + i] = stack[offset + i] * (1 - t) + stack[offset + SIZE + i] * t;
+		}
+	}
+	
+	@Override
+	public int getStackSize() {
+		return Math.max(_first.getStackSize(), SIZE + _second.getStackSize());
+	}
+}
@@ -0,0 +1,126 @@
+package primitives;
+
+import java.util.Random;
+
+/**
+ * Gradient noise (Perlin's improved noise) as a scalar field, summed over 
+ * octaves of doubling frequencies and halving amplitudes (fractal noise).
+ * The noise of a seed is the same in every run.
+ */
+public class PerlinNoise implements ScalarField {
+	
+	/**
+	 * The permutation of the lattice, twice, so the hashes need no wrapping.
+	 */
+	private final int[] _permutation = new int[512];
+	
+	/**
+	 * The frequency of the first octave, and the number of octaves.
+	 */
+	private final double _frequency;
+	private final int _octaves;
+	
+	/**
+	 * The sum of the amplitudes of the octaves, which normalizes the noise.
+	 */
+	private final double _amplitudes;
+	
+	/**
+	 * Constructor for a noise.
+	 * @param seed The seed of the permutation of the lattice.
+	 * @param frequency The number of lattice cells in a unit of distance, in the first octave.
+	 * @param octaves The number of octaves.
+	 */
+	public PerlinNoise(long seed, double frequency, int octaves) {
+		if (frequency <= 0 || octaves <= 0)
+			throw new IllegalArgumentException("The frequency and the number of octaves must be positive");
+		Random random = new Random(seed);
+		for (int i = 0; i < 256; i++) {
+			_permutation[i] = i;
+		}
+		for (int i = 255; i > 0; i--) {
+			int j = random.nextInt(i + 1), swap = _permutation[i];
+			_permutation[i] = _permutation[j];
+			_permutation[j] = swap;
+		}
+		System.arraycopy(_permutation, 0, _permutation, 256, 256);
+		_frequency = frequency;
+		_octaves = octaves;
+		double amplitudes = 0, amplitude = 1;
+		for (int octave = 0; octave < octaves; octave++) {
+			amplitudes += amplitude;
+			amplitude *= 0.5;
+		}
+		_amplitudes = amplitudes;
+	}
+	
+	@Override
+	public double evaluate(double x, double y, double z) {
+		double sum = 0, frequency = _frequency, amplitude = 1;
+		for (int octave = 0; octave < _octaves; octave++) {
+			sum += amplitude * noise(x * frequency, y * frequency, z * frequency);
+			frequency *= 2;
+			amplitude *= 0.5;
+		}
+		double value = 0.5 * (sum / _amplitudes + 1);
+		return value < 0 ? 0 : (value > 1 ? 1 : value);
+	}
+	
+	/**
+	 * A single octave of the noise.
+	 * @param x The x coordinate, in lattice cells.
+	 * @param y The y coordinate, in lattice cells.
+	 * @param z The z coordinate, in lattice cells.
+	 * @return The noise, from about -1 to 1.
+	 */
+	private double noise(double x, double y, double z) {
+		double fx = Math.floor(x), fy = Math.floor(y), fz = Math.floor(z);
+		int X = (int)fx & 255, Y = (int)fy & 255, Z = (int)fz & 255;
+		x -= fx;
+		y -= fy;
+		z -= fz;
+		double u = fade(x), v = fade(y), w = fade(z);
+		int[] p = _permutation;
+		int A = p[X] + Y, AA = p[A] + Z, AB = p[A + 1] + Z,
+			B = p[X + 1] + Y, BA = p[B] + Z, BB = p[B + 1] + Z;
+		return lerp(w, lerp(v, lerp(u, grad(p[AA], x, y, z), grad(p[BA], x - 1, y, z)),
+							   lerp(u, grad(p[AB], x, y - 1, z), grad(p[BB], x - 1, y - 1, z))),
+					   lerp(v, lerp(u, grad(p[AA + 1], x, y, z - 1), grad(p[BA + 1], x - 1, y, z - 1)),
+							   lerp(u, grad(p[AB + 1], x, y - 1, z - 1), grad(p[BB + 1], x - 1, y - 1, z - 1))));
+	}
+	
+	/**
+	 * The fade curve of the interpolation, 6t^5 - 15t^4 + 10t^3.
+	 * @param t The fraction, from 0 to 1.
+	 * @return The faded fraction.
+	 */
+	private static double fade(double t) {
+		return t * t * t * (t * (t * 6 - 15) + 10);
+	}
+	
+	/**
+	 * Linear interpolation.
+	 * @param t The fraction.
+	 * @param a The value at 0.
+	 * @param b The value at 1.
+	 * @return The interpolated value.
+	 */
+	private static double lerp(double t, double a, double b) {
+		return a + t * (b - a);
+	}
+	
+	/**
+	 * The dot product of an offset with one of the twelve gradients of the lattice.
+	 * @param hash The hash of the lattice point, which chooses the gradient.
+	 * @param x The x offset from the lattice point.
+	 * @param y The y offset from the lattice point.
+	 * @param z The z offset from the lattice point.
+	 * @return The dot product.
+	 */
+	private static double grad(int hash, double x, double y, double z) {
+		int h = hash & 15;
+		double u = h < 8 ? x : y,
+			   v = h < 4 ? y : (h == 12 || h == 14 ? x : z);
+		return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+	}
+}
@@ -13,11 +13,32 @@ public class PlaneTextureImp extends TextureEmissionImp {
 	
 	@Override
 	public Color getEmission(Point3D point) {
-		double x = this._axis.getXProjection(point), y = this._axis.getYProjection(point);
-		return this._texture.getColor(x/_width, y/_height);
+		return getEmission(point, 0);
 	}
 	
 	public double getIntensity(Point3D point) {
-		return _texture.getIntensity(_axis.getXProjection(point), _axis.getYProjection(point));
+		return getIntensity(point, 0);
+	}
+	
+	@Override
+	public Color getEmission(Point3D point, double footprint) {
+		double[] local = project(point);
+		return _texture.getColor(local[0]/_width, local[1]/_height, footprint/_width, footprint/_height);
+	}
+	
+	/**
+	 * The intensity is looked up in the same place of the texture as the color,
+	 * where the width and the height of the plane's texture are 1.
+	 */
+	@Override
+	public double getIntensity(Point3D point, double footprint) {
+		double[] local = project(point);
+		return _texture.getIntensity(local[0]/_width, local[1]/_height, footprint/_width, footprint/_height);
+	}
+	
+	@Override
+	public double lookup(Point3D point, double footprint, double[] emission) {
+		double[] local = project(point);
+		return _texture.lookup(local[0]/_width, local[1]/_height, footprint/_width, footprint/_height, emission);
 	}
 }
@@ -0,0 +1,89 @@
+package primitives;
+
+/**
+ * The emission of a geometry from a procedural texture. The texture is evaluated
+ * in the coordinates of the point along an axis, so it may be moved, rotated 
+ * and scaled with the geometry, and it needs no image at all.
+ */
+public class ProceduralEmissionImp implements IGetEmission {
+	
+	/**
+	 * The texture.
+	 */
+	private final ProceduralTexture _texture;
+	
+	/**
+	 * The frame of the axis of the texture's space, precomputed for the projections of the points.
+	 */
+	private final AxisFrame _frame;
+	
+	/**
+	 * The number of units of the texture's space in a unit of the scene.
+	 */
+	private final double _scale;
+	
+	/**
+	 * The stack of the evaluations of every thread, followed by the 
+	 * coordinates of the evaluated point in the texture's space.
+	 */
+	private final ThreadLocal<double[]> _stack;
+	
+	/**
+	 * Constructor for a procedural emission.
+	 * @param texture The texture.
+	 * @param axis The axis of the texture's space.
+	 * @param scale The number of units of the texture's space in a unit of the scene.
+	 */
+	public ProceduralEmissionImp(ProceduralTexture texture, Axis axis, double scale) {
+		if (scale <= 0)
+			throw new IllegalArgumentException("The scale of the texture must be positive");
+		_texture = texture;
+		_frame = new AxisFrame(axis);
+		_scale = scale;
+		int stackSize = texture.getStackSize();
+		_stack = ThreadLocal.withInitial(() -> new double[stackSize + 3]);
+	}
+	
+	/**
+	 * Evaluates the texture in a point into the stack of the current thread.
+	 * @param point The point.
+	 * @return The stack, whose first {@link ProceduralTexture#SIZE} numbers are the result.
+	 */
+	private double[] evaluate(Point3D point) {
+		double[] stack = _stack.get();
+		int local = stack.length - 3;
+		_frame.project(point, stack, local);
+		_texture.evaluate(stack[local] * _scale, stack[local + 1] * _scale, stack[local + 2] * _scale, stack, 0);
+		return stack;
+	}
+	
+	/**
+	 * Evaluates the texture in a point into a given result.
+	 * @param point The point.
+	 * @param result The result: the color components and the intensity, 
+	 * in the indexes of {@link ProceduralTexture}.
+	 */
+	public void evaluate(Point3D point, double[] result) {
+		System.arraycopy(evaluate(point), 0, result, 0, ProceduralTexture.SIZE);
+	}
+	
+	@Override
+	public Color getEmission(Point3D point) {
+		double[] result = evaluate(point);
+		return new Color(result[ProceduralTexture.RED], result[ProceduralTexture.GREEN], result[ProceduralTexture.BLUE]);
+	}
+	
+	@Override
+	public double getIntensity(Point3D point) {
+		return evaluate(point)[ProceduralTexture.INTENSITY];
+	}
+	
+	@Override
+	public double lookup(Point3D point, double footprint, double[] emission) {
+		double[] result = evaluate(point);
+		emission[0] = result[ProceduralTexture.RED];
+		emission[1] = result[ProceduralTexture.GREEN];
+		emission[2] = result[ProceduralTexture.BLUE];
+		return result[ProceduralTexture.INTENSITY];
+	}
+}
@@ -0,0 +1,40 @@
+package primitives;
+
+/**
+ * A texture that is calculated in every point, instead of being read from an 
+ * image. The textures are nodes that are composed into trees (a checker of 
+ * two noises, a mix of two ramps and so on), and a tree is evaluated into an
+ * array of numbers that the caller provides, the stack of the evaluation,
+ * so nothing is allocated for a lookup.
+ * A node writes its result, the color and the intensity of the point, in 
+ * {@link #SIZE} numbers of the stack from a given offset, and it may use the 
+ * rest of its {@link #getStackSize()} numbers for the results of its children.
+ */
+public interface ProceduralTexture {
+	
+	/**
+	 * The indexes of the color components (from 0 to 255, like {@link Color})
+	 * and the intensity (from 0 to 1, like {@link IGetEmission#getIntensity})
+	 * in a result, and the size of a result.
+	 */
+	public static final int RED = 0, GREEN = 1, BLUE = 2, INTENSITY = 3, SIZE = 4;
+	
+	/**
+	 * Evaluates the texture in a point.
+	 * @param x The x coordinate of the point, in the space of the texture.
+	 * @param y The y coordinate of the point, in the space of the texture.
+	 * @param z The z coordinate of the point, in the space of the texture.
+	 * @param stack The stack of the evaluation, at least {@link #getStackSize()} numbers from the offset.
+	 * @param offset The index in the stack of the result.
+	 */
+	public void evaluate(double x, double y, double z, double[] stack, int offset);
+	
+	/**
+	 * Getter for the numbers of the stack that the evaluation uses, 
+	 * for its result and the results of its children.
+	 * @return The size of the stack.
+	 */
+	public default int getStackSize() {
+		return SIZE;
+	}
+}
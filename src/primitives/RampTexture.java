@@ -0,0 +1,67 @@
+package primitives;
+
+/**
+ * A procedural texture that maps a scalar field to colors: the colors are 
+ * given in stops along the values of the field, and the colors between two 
+ * stops are interpolated. The intensity of the texture is full.
+ */
+public class RampTexture implements ProceduralTexture {
+	
+	/**
+	 * The field.
+	 */
+	private final ScalarField _field;
+	
+	/**
+	 * The values of the stops, in increasing order.
+	 */
+	private final double[] _stops;
+	
+	/**
+	 * The colors of the stops, three components for every stop.
+	 */
+	private final double[] _colors;
+	
+	/**
+	 * Constructor for a ramp.
+	 * @param field The field.
+	 * @param stops The values of the stops, in increasing order. The color of 
+	 * the values below the first stop is the first color, and the color of the 
+	 * values above the last stop is the last color.
+	 * @param colors The colors of the stops.
+	 */
+	public RampTexture(ScalarField field, double[] stops, Color[] colors) {
+		if (stops.length == 0 || stops.length != colors.length)
+			throw new IllegalArgumentException("Every stop of the ramp must have a color");
+		for (int i = 1; i < stops.length; i++) {
+			if (stops[i] < stops[i - 1])
+				throw new IllegalArgumentException("The stops of the ramp must be in increasing order");
+		}
+		_field = field;
+		_stops = stops.clone();
+		_colors = new double[3 * colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			_colors[3 * i] = colors[i].getRed();
+			_colors[3 * i + 1] = colors[i].getGreen();
+			_colors[3 * i + 2] = colors[i].getBlue();
+		}
+	}
+	
+	@Override
+	public void evaluate(double x, double y, double z, double[] stack, int offset) {
+		double value = _field.evaluate(x, y, z);
+		int last = _stops.length - 1, stop = 0;
+		while (stop < last && value > _stops[stop + 1]) {
+			stop++;
+		}
+		double t = 0;
+		if (stop < last && value > _stops[stop]) {
+			t = (value - _stops[stop]) / (_stops[stop + 1] - _stops[stop]);
+		}
+		int next = Math.min(stop + 1, last);
+		for (int component = 0; component < 3; component++) {
+			stack[offset + component] = _colors[3 * stop + component] * (1 - t) + _colors[3 * next + component] * t;
+		}
+		stack[offset + INTENSITY] = 1;
+	}
+}
@@ -17,6 +17,13 @@ public class Ray {
 	 * The direction of the ray.
 	 */
 	private final Vector _direction;
+	/**
+	 * The ray is the axis of a cone, the footprint of a pixel along the ray: 
+	 * the width of the cone where the ray starts, and how much the width 
+	 * grows in every unit of distance (the spread angle, in radians).
+	 * Both are zero for a ray without a footprint.
+	 */
+	private final double _width, _spread;
 	
 	private static Counter counter = new Counter();
 	public static Counter getNewCounter() {return counter;}
@@ -27,11 +34,27 @@ public class Ray {
 	 * @param direction the direction of the ray.
 	 */
 	public Ray(Point3D point, Vector direction) {
+		this(point, direction, 0, 0);
+	}
+	
+	/**
+	 * Constructor for a ray with a footprint.
+	 * @param point the start of the ray.
+	 * @param direction the direction of the ray.
+	 * @param width The width of the footprint where the ray starts.
+	 * @param spread The spread angle of the footprint, in radians.
+	 */
+	public Ray(Point3D point, Vector direction, double width, double spread) {
 		if (direction.vectorLength() == 0)
 			throw new IllegalArgumentException
 			("the direction vector cannot be the zero vector");
+		if (width < 0 || spread < 0)
+			throw new IllegalArgumentException
+			("the footprint of a ray cannot be negative");
 		_point = new Point3D(point);
 		_direction = new Vector(direction).normalizedVector();
+		_width = width;
+		_spread = spread;
 		counter.increase();
 	}
 	
@@ -42,6 +65,8 @@ public class Ray {
 	public Ray(Ray other) {
 		this._point = new Point3D(other._point);
 		this._direction = new Vector(other._direction).normalizedVector();
+		this._width = other._width;
+		this._spread = other._spread;
 		counter.increase();
 	}
 	
@@ -81,4 +106,21 @@ public class Ray {
 	public Vector getDirection() {
 		return new Vector(_direction);
 	}
+	
+	/**
+	 * Getter for the width of the ray's footprint in a distance along the ray.
+	 * @param distance The distance from the point from which the ray starts.
+	 * @return The width of the footprint, zero for a ray without a footprint.
+	 */
+	public double getFootprint(double distance) {
+		return _width + _spread * distance;
+	}
+	
+	/**
+	 * Getter for the spread angle of the ray's footprint.
+	 * @return How much the width of the footprint grows in every unit of distance.
+	 */
+	public double getSpread() {
+		return _spread;
+	}
 }
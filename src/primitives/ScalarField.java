@@ -0,0 +1,18 @@
+package primitives;
+
+/**
+ * A number in every point of the space, from 0 to 1, such as noise or 
+ * a gradient. The fields drive the procedural textures (see {@link RampTexture} 
+ * and {@link MixTexture}).
+ */
+public interface ScalarField {
+	
+	/**
+	 * Evaluates the field in a point.
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point.
+	 * @param z The z coordinate of the point.
+	 * @return The value of the field, from 0 to 1.
+	 */
+	public double evaluate(double x, double y, double z);
+}
@@ -9,20 +9,54 @@ public class SphericalTextureImp extends TextureEmissionImp {
 		this._radius = radius;
 	}
 	
-	private Point2D translatePoint(Point3D point) {
-		double phi = Math.acos(_axis.getYProjection(point) / _radius);
-		double psi = Math.asin(_axis.getXProjection(point) / (_radius * Math.sin(phi)));
-		return new Point2D(psi / (2*Math.PI), 1 - (phi / Math.PI));
+	/**
+	 * Maps a point on the sphere to the texture. The latitude is measured from the
+	 * y axis of the sphere, 1 at its top and 0 at its bottom. The longitude is measured
+	 * from the z axis, a quarter turn to each side (the back of the sphere mirrors its front).
+	 * Both are found with atan2, which needs no radius, and is not NaN near the poles.
+	 * @param point The point on the sphere.
+	 * @return The longitude and the latitude, as fractions of a whole turn and of 
+	 * half a turn, in the array of the current thread (see {@link #project}).
+	 */
+	private double[] translatePoint(Point3D point) {
+		double[] uv = project(point);
+		double x = uv[0], y = uv[1], z = uv[2];
+		double phi = Math.atan2(Math.sqrt(x * x + z * z), y);
+		double psi = Math.atan2(x, Math.abs(z));
+		uv[0] = psi / (2*Math.PI);
+		uv[1] = 1 - (phi / Math.PI);
+		return uv;
 	}
 	
 	@Override
 	public Color getEmission(Point3D point) {
-		Point2D p2d = translatePoint(point);
-		return _texture.getColor(p2d.getX().getNumber(), p2d.getY().getNumber());
+		return getEmission(point, 0);
 	}
 	
 	public double getIntensity(Point3D point) {
-		Point2D p2d = translatePoint(point);
-		return _texture.getIntensity(p2d.getX().getNumber(), p2d.getY().getNumber());
+		return getIntensity(point, 0);
+	}
+	
+	/**
+	 * The footprint is mapped like the point: a whole turn around 
+	 * the sphere is 1 along the width of the texture, and half a 
+	 * turn (from pole to pole) is 1 along its height.
+	 */
+	@Override
+	public Color getEmission(Point3D point, double footprint) {
+		double[] uv = translatePoint(point);
+		return _texture.getColor(uv[0], uv[1], footprint / (2*Math.PI*_radius), footprint / (Math.PI*_radius));
+	}
+	
+	@Override
+	public double getIntensity(Point3D point, double footprint) {
+		double[] uv = translatePoint(point);
+		return _texture.getIntensity(uv[0], uv[1], footprint / (2*Math.PI*_radius), footprint / (Math.PI*_radius));
+	}
+	
+	@Override
+	public double lookup(Point3D point, double footprint, double[] emission) {
+		double[] uv = translatePoint(point);
+		return _texture.lookup(uv[0], uv[1], footprint / (2*Math.PI*_radius), footprint / (Math.PI*_radius), emission);
 	}
 }
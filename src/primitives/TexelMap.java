@@ -0,0 +1,119 @@
+package primitives;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A texture image that is decoded once, when it is loaded, into an 
+ * array of packed RGB texels (0xRRGGBB), one row after the other.
+ * A lookup is a direct index into the array, instead of a call to 
+ * {@link BufferedImage#getRGB(int, int)} and a new color for every sample.
+ * The map is immutable; it is a level of a {@link MipMap}, or the part of 
+ * an image from which tiles of its levels are cut.
+ */
+public class TexelMap {
+	
+	/**
+	 * The dimensions of the map in texels.
+	 */
+	private final int _width, _height;
+	
+	/**
+	 * The packed texels, the texel (x,y) is in the index y * width + x,
+	 * where the row 0 is the top of the image.
+	 */
+	private final int[] _texels;
+	
+	/**
+	 * Constructor that decodes an image.
+	 * @param image The image of the texture.
+	 */
+	public TexelMap(BufferedImage image) {
+		_width = image.getWidth();
+		_height = image.getHeight();
+		_texels = image.getRGB(0, 0, _width, _height, null, 0, _width);
+		for (int i = 0; i < _texels.length; i++) {
+			_texels[i] &= 0xFFFFFF;
+		}
+	}
+	
+	/**
+	 * Constructor for a map of decoded texels.
+	 * @param width The number of texels in the breadth.
+	 * @param height The number of texels in the height.
+	 * @param texels The packed texels, one row after the other.
+	 */
+	private TexelMap(int width, int height, int[] texels) {
+		_width = width;
+		_height = height;
+		_texels = texels;
+	}
+	
+	/**
+	 * Creates the next level of a mip pyramid: a map of half the width and half
+	 * the height (but at least one texel), where every texel is the average of 
+	 * the two by two texels it covers.
+	 * @return The new map.
+	 */
+	public TexelMap downsample() {
+		int width = Math.max(1, _width / 2), height = Math.max(1, _height / 2);
+		int[] texels = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int t00 = getTexel(2 * x, 2 * y), t10 = getTexel(2 * x + 1, 2 * y),
+					t01 = getTexel(2 * x, 2 * y + 1), t11 = getTexel(2 * x + 1, 2 * y + 1);
+				int texel = 0;
+				for (int shift = 0; shift <= 16; shift += 8) {
+					int sum = ((t00 >> shift) & 0xFF) + ((t10 >> shift) & 0xFF) + 
+							  ((t01 >> shift) & 0xFF) + ((t11 >> shift) & 0xFF);
+					texel |= ((sum + 2) / 4) << shift;
+				}
+				texels[y * width + x] = texel;
+			}
+		}
+		return new TexelMap(width, height, texels);
+	}
+	
+	/**
+	 * Getter for the number of texels in the breadth.
+	 * @return The width of the map.
+	 */
+	public int getWidth() {
+		return _width;
+	}
+	
+	/**
+	 * Getter for the number of texels in the height.
+	 * @return The height of the map.
+	 */
+	public int getHeight() {
+		return _height;
+	}
+	
+	/**
+	 * Getter for a texel. The indexes are clamped to the map.
+	 * @param x The column of the texel.
+	 * @param y The row of the texel, where 0 is the top row.
+	 * @return The packed texel, 0xRRGGBB.
+	 */
+	public int getTexel(int x, int y) {
+		x = x < 0 ? 0 : (x >= _width ? _width - 1 : x);
+		y = y < 0 ? 0 : (y >= _height ? _height - 1 : y);
+		return _texels[y * _width + x];
+	}
+	
+	/**
+	 * Interpolates two packed texels, channel by channel.
+	 * @param first The first texel, 0xRRGGBB.
+	 * @param second The second texel, 0xRRGGBB.
+	 * @param t The weight of the second texel, from 0 to 1.
+	 * @return The interpolated texel, 0xRRGGBB.
+	 */
+	static int lerp(int first, int second, double t) {
+		int texel = 0;
+		for (int shift = 0; shift <= 16; shift += 8) {
+			double value = ((first >> shift) & 0xFF) * (1 - t) + ((second >> shift) & 0xFF) * t;
+			texel |= (int)(value + 0.5) << shift;
+		}
+		return texel;
+	}
+}
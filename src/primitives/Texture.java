@@ -1,21 +1,19 @@
 package primitives;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
-
-import javax.imageio.ImageIO;
 
 public class Texture {
 	
-	private BufferedImage _colorFirstMap;
-	private BufferedImage _colorSecondMap;
-	private BufferedImage _intensityMap;
+	private MipMap _colorFirstMap;
+	private MipMap _colorSecondMap;
+	private MipMap _intensityMap;
 	private double _width;
 	private double _height;
 	private double _checkerSize;
 	private double _outlineWidth;
 	private boolean _isChecker = false;
 	private boolean _outlineIntensity = false;
+	private boolean _bilinear = false;
 	private Color _firstCheckerColor;
 	private Color _secondCheckerColor;
 	private Color _outlineCheckerColor;
@@ -45,13 +43,15 @@ public class Texture {
 	
 	/**
 	 * Constructor for an image based texture mapping.
+	 * The image is taken from the {@link TextureCache}, so textures of the same 
+	 * file share it, and its texels are loaded when they are first read.
 	 * @param colorMapImageDirectory The file name that contains the color mapping
 	 * @param width the width of the texture in Cartesian units
 	 * @param height the height of the texture in Cartesian units
 	 */
 	public Texture(String colorMapImageDirectory, double width, double height) {
 		try {
-			_colorFirstMap = ImageIO.read(new File(colorMapImageDirectory));
+			_colorFirstMap = TextureCache.getInstance().get(colorMapImageDirectory);
 		} catch (Exception e) {
 			System.out.println(e.getMessage());
 		}
@@ -74,6 +74,7 @@ public class Texture {
 		this._outlineWidth = other._outlineWidth;
 		this._isChecker = other._isChecker;
 		this._outlineIntensity = other._outlineIntensity;
+		this._bilinear = other._bilinear;
 		this._firstCheckerColor = new Color(other._firstCheckerColor);
 		this._secondCheckerColor = new Color(other._secondCheckerColor);
 		this._outlineCheckerColor = new Color(other._outlineCheckerColor);
@@ -85,7 +86,7 @@ public class Texture {
 			if (_colorFirstMap == null) {
 				throw new Exception("First color map cannot be null with checker.");
 			}
-			_colorSecondMap = ImageIO.read(new File(secondColorMapImageDirectory));
+			_colorSecondMap = TextureCache.getInstance().get(secondColorMapImageDirectory);
 		} catch (Exception e) {
 			System.out.println(e.getMessage());
 		}
@@ -96,32 +97,108 @@ public class Texture {
 	}
 	
 	public Color getColor(double x, double y) {
-		return _isChecker ? _getCheckerColor(x, y) : _getColor(_colorFirstMap, x, y);
+		return getColor(x, y, 0, 0);
+	}
+	
+	/**
+	 * Method that gets a point x, y in the area of the texture and the size 
+	 * of the sample's footprint around it, to map it to the appropriate color 
+	 * on the texture. The texture maps are read in the level of their mip 
+	 * pyramids that matches the footprint.
+	 * @param x The number that is mapped to the width of the texture
+	 * @param y The number that is mapped to the height of the texture
+	 * @param footprintX The width of the footprint along the width of the texture, in the units of x
+	 * @param footprintY The width of the footprint along the height of the texture, in the units of y
+	 * @return The appropriate color on the texture
+	 */
+	public Color getColor(double x, double y, double footprintX, double footprintY) {
+		return _isChecker ? _getCheckerColor(x, y, footprintX, footprintY) : _getColor(_colorFirstMap, x, y, footprintX, footprintY);
 	}
 	
 	/**
-	 * Method that gets two numbers x, y that are in the range [0, 1] to map it to 
+	 * Method that gets a point x, y in the area of the texture to map it to 
 	 * the appropriate color on the texture.
+	 * @param map The texture map
 	 * @param x The number that is mapped to the width of the texture
 	 * @param y The number that is mapped to the height of the texture
-	 * @param image The texture map
+	 * @param footprintX The width of the footprint along the width of the texture
+	 * @param footprintY The width of the footprint along the height of the texture
 	 * @return The appropriate color on the texture map
 	 */
-	private Color _getColor(BufferedImage image, double x, double y) {
-		int imageHeight = image.getHeight() - 1;
-		java.awt.Color c = new java.awt.Color(image.getRGB((int)((x/_width)*image.getWidth()), imageHeight - (int)((y/_height)*imageHeight)));
-		return new Color(c.getRed(), c.getGreen(), c.getBlue());
+	private Color _getColor(MipMap map, double x, double y, double footprintX, double footprintY) {
+		int texel = _lookup(map, x, y, footprintX, footprintY);
+		return new Color((texel >> 16) & 0xFF, (texel >> 8) & 0xFF, texel & 0xFF);
+	}
+	
+	/**
+	 * Looks up a texel of a map, in the level of the footprint and 
+	 * with the filtering of this texture.
+	 * @param map The texture map
+	 * @param x The number that is mapped to the width of the texture
+	 * @param y The number that is mapped to the height of the texture
+	 * @param footprintX The width of the footprint along the width of the texture
+	 * @param footprintY The width of the footprint along the height of the texture
+	 * @return The packed texel, 0xRRGGBB
+	 */
+	private int _lookup(MipMap map, double x, double y, double footprintX, double footprintY) {
+		double levelOfDetail = map.levelOfDetail(footprintX/_width, footprintY/_height);
+		return map.lookup(x/_width, y/_height, levelOfDetail, _bilinear);
+	}
+	
+	
+	/**
+	 * Method that looks up the color and the intensity of a point at once, 
+	 * so the place of the point in the checker is found once for both.
+	 * @param x The number that is mapped to the width of the texture
+	 * @param y The number that is mapped to the height of the texture
+	 * @param footprintX The width of the footprint along the width of the texture, in the units of x
+	 * @param footprintY The width of the footprint along the height of the texture, in the units of y
+	 * @param color The array into which the red, green and blue components of the color are written
+	 * @return The intensity, from 0 to 1
+	 */
+	public double lookup(double x, double y, double footprintX, double footprintY, double[] color) {
+		checkerPlace place = _isChecker || (_intensityMap == null && _outlineIntensity) ? _checkPlace(x, y) : null;
+		if (!_isChecker) {
+			_putTexel(_lookup(_colorFirstMap, x, y, footprintX, footprintY), color);
+		} else if (place == checkerPlace.first && _colorFirstMap != null) {
+			_putTexel(_lookup(_colorFirstMap, x, y, footprintX, footprintY), color);
+		} else if (place == checkerPlace.second && _colorSecondMap != null) {
+			_putTexel(_lookup(_colorSecondMap, x, y, footprintX, footprintY), color);
+		} else {
+			Color checkerColor = place == checkerPlace.first ? _firstCheckerColor : 
+				(place == checkerPlace.second ? _secondCheckerColor : _outlineCheckerColor);
+			color[0] = checkerColor.getRed();
+			color[1] = checkerColor.getGreen();
+			color[2] = checkerColor.getBlue();
+		}
+		if (_intensityMap != null) {
+			return ((_lookup(_intensityMap, x, y, footprintX, footprintY) >> 16) & 0xFF)/255.0;
+		}
+		if (_outlineIntensity) {
+			return place == checkerPlace.outline ? 1 : 0;
+		}
+		return 1;
 	}
 	
+	/**
+	 * Writes the components of a packed texel.
+	 * @param texel The texel, 0xRRGGBB
+	 * @param color The array into which the red, green and blue components are written
+	 */
+	private static void _putTexel(int texel, double[] color) {
+		color[0] = (texel >> 16) & 0xFF;
+		color[1] = (texel >> 8) & 0xFF;
+		color[2] = texel & 0xFF;
+	}
 	
-	private Color _getCheckerColor(double x, double y) {
+	private Color _getCheckerColor(double x, double y, double footprintX, double footprintY) {
 		switch (_checkPlace(x, y)) {
 		case first:
-			return _colorFirstMap == null ? new Color(_firstCheckerColor) : _getColor(_colorFirstMap, x, y);
+			return _colorFirstMap == null ? _firstCheckerColor : _getColor(_colorFirstMap, x, y, footprintX, footprintY);
 		case second:
-			return _colorSecondMap == null ? new Color(_secondCheckerColor) : _getColor(_colorSecondMap, x, y);
+			return _colorSecondMap == null ? _secondCheckerColor : _getColor(_colorSecondMap, x, y, footprintX, footprintY);
 		case outline:
-			return new Color(_outlineCheckerColor);
+			return _outlineCheckerColor;
 		default:
 			return new Color(255, 0, 0);
 		}
@@ -141,10 +218,22 @@ public class Texture {
 	}
 	
 	public double getIntensity(double x, double y) {
+		return getIntensity(x, y, 0, 0);
+	}
+	
+	/**
+	 * Method that gets a point x, y in the area of the texture and the size 
+	 * of the sample's footprint around it, to map it to the intensity of the 
+	 * texture's own color in that point.
+	 * @param x The number that is mapped to the width of the texture
+	 * @param y The number that is mapped to the height of the texture
+	 * @param footprintX The width of the footprint along the width of the texture, in the units of x
+	 * @param footprintY The width of the footprint along the height of the texture, in the units of y
+	 * @return The intensity, from 0 to 1
+	 */
+	public double getIntensity(double x, double y, double footprintX, double footprintY) {
 		if (_intensityMap != null) {
-			int height = _intensityMap.getHeight() - 1;
-			java.awt.Color c = new java.awt.Color(_intensityMap.getRGB((int)((x/_width)*_intensityMap.getWidth()), height - (int)((y/_height)*height)));
-			return ((double)c.getRed())/255.0;
+			return ((_lookup(_intensityMap, x, y, footprintX, footprintY) >> 16) & 0xFF)/255.0;
 		}
 		if (_outlineIntensity) {
 			return _checkPlace(x,y) == checkerPlace.outline ? 1 : 0;
@@ -156,10 +245,20 @@ public class Texture {
 		_outlineIntensity = outlineIntensity;
 	}
 	public void setOutlineIntensity(BufferedImage intensityMap) {
-		_intensityMap = intensityMap;
+		_intensityMap = intensityMap == null ? null : new MipMap(intensityMap);
 		_outlineIntensity = true;
 	}
 	
+	/**
+	 * Setter for the filtering of the texture maps.
+	 * @param bilinear True for interpolating the four nearest texels, 
+	 * and the two nearest levels of the mip pyramids (trilinear filtering),
+	 * false (the default) for the nearest texel of the nearest level.
+	 */
+	public void setBilinear(boolean bilinear) {
+		_bilinear = bilinear;
+	}
+	
 	public double getWidth() {return _width;}
 	public double getHeight() {return _height;}
 }
@@ -0,0 +1,310 @@
+package primitives;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of the texture images of the process. Every image file has a single
+ * {@link MipMap}, whichever textures use it, and the texels of the pyramids are 
+ * loaded in square tiles, when they are first read. The tiles of all the images 
+ * share a memory budget: when the tiles take more memory than the budget, the 
+ * tiles that were not read for the longest time are dropped, and they are loaded
+ * again from their images if they are read again.
+ * Images may also be preloaded: their coarse levels are decoded in the background, 
+ * in parallel, and until an image is ready its texels are a placeholder color, so 
+ * the rendering does not wait for all the textures of the scene.
+ */
+public class TextureCache {
+	
+	/**
+	 * The size of the (square) tiles, in texels.
+	 */
+	public static final int TILE_SIZE = 64;
+	
+	/**
+	 * The cache of the process, whose budget is a quarter of the heap.
+	 */
+	private static final TextureCache INSTANCE = new TextureCache(Runtime.getRuntime().maxMemory() / 4);
+	
+	/**
+	 * A loaded tile, as a candidate for eviction.
+	 */
+	static class Tile {
+		MipMap image;
+		int level, index;
+		long lastUse;
+	}
+	
+	/**
+	 * The images of the cache, by the canonical paths of their files.
+	 */
+	private final Map<String, MipMap> _images = new HashMap<String, MipMap>();
+	
+	/**
+	 * The memory budget of the tiles, in bytes.
+	 */
+	private volatile long _budget;
+	
+	/**
+	 * The memory that the loaded tiles take, in bytes.
+	 */
+	private final AtomicLong _size = new AtomicLong();
+	
+	/**
+	 * The clock of the cache, which ticks whenever a tile is loaded.
+	 * Every tile is stamped with the clock when it is read.
+	 */
+	private final AtomicLong _clock = new AtomicLong();
+	
+	/**
+	 * The threads that decode the preloaded images, created with the first 
+	 * preloaded image, and the number of the threads.
+	 */
+	private ExecutorService _loader;
+	private int _loaderThreads = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * The preloaded images that may not be ready yet.
+	 */
+	private final List<Future<?>> _pending = new ArrayList<Future<?>>();
+	
+	/**
+	 * The texel of the images that are not ready yet, mid gray by default.
+	 */
+	private volatile int _placeholder = 0x808080;
+	
+	/**
+	 * Constructor for a new cache.
+	 * @param budget The memory budget of the tiles, in bytes.
+	 */
+	public TextureCache(long budget) {
+		setBudget(budget);
+	}
+	
+	/**
+	 * Getter for the cache of the process.
+	 * @return The cache that the textures use.
+	 */
+	public static TextureCache getInstance() {
+		return INSTANCE;
+	}
+	
+	/**
+	 * Getter for the pyramid of an image file. Only the dimensions of the 
+	 * image are read here, its texels are loaded when they are first read.
+	 * @param path The path of the image file.
+	 * @return The pyramid of the image, the same instance for every path of the same file.
+	 * @throws IOException In case the file cannot be read, or it is not an image.
+	 */
+	public MipMap get(String path) throws IOException {
+		String canonicalPath = new File(path).getCanonicalPath();
+		synchronized (this) {
+			MipMap image = _images.get(canonicalPath);
+			if (image == null) {
+				image = new MipMap(this, canonicalPath);
+				_images.put(canonicalPath, image);
+			}
+			return image;
+		}
+	}
+	
+	/**
+	 * Preloads an image file: the levels of the image that are a single tile are 
+	 * decoded in the background, and until they are ready, the texels that are read 
+	 * from the image are the placeholder color (see {@link #setPlaceholder}). 
+	 * The finer tiles are loaded when they are read. At most {@link #setLoaderThreads} 
+	 * images are decoded at once.
+	 * @param path The path of the image file.
+	 * @return The pyramid of the image, the same instance as {@link #get}.
+	 * @throws IOException In case the file cannot be read, or it is not an image.
+	 */
+	public MipMap preload(String path) throws IOException {
+		MipMap image = get(path);
+		ExecutorService loader;
+		synchronized (this) {
+			if (_loader == null) {
+				_loader = Executors.newFixedThreadPool(_loaderThreads, runnable -> {
+					Thread thread = new Thread(runnable, "texture loader");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			loader = _loader;
+		}
+		//The image's lock is taken without the cache's lock, so the two
+		//locks are never held together, in either order.
+		Future<?> loading = image.loadInBackground(loader);
+		if (loading != null) {
+			synchronized (this) {
+				_pending.add(loading);
+			}
+		}
+		return image;
+	}
+	
+	/**
+	 * Waits until all the preloaded images are ready, for example before
+	 * rendering a frame that should not have placeholders. All the images are
+	 * waited for, also when some of them cannot be decoded.
+	 * @throws InterruptedException In case the thread is interrupted while waiting.
+	 * @throws IOException In case an image cannot be decoded, where the failures
+	 * of the other images are suppressed in it.
+	 */
+	public void awaitLoading() throws InterruptedException, IOException {
+		List<Future<?>> pending;
+		synchronized (this) {
+			pending = new ArrayList<Future<?>>(_pending);
+			_pending.clear();
+		}
+		IOException failure = null;
+		for (Future<?> loading : pending) {
+			try {
+				loading.get();
+			} catch (ExecutionException e) {
+				IOException cause = e.getCause() instanceof IOException ? (IOException)e.getCause() :
+									new IOException("A texture cannot be preloaded", e.getCause());
+				if (failure == null)
+					failure = cause;
+				else
+					failure.addSuppressed(cause);
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * Setter for the number of threads that decode the preloaded images.
+	 * The images that are already being decoded are not affected.
+	 * @param threads The number of threads.
+	 */
+	public synchronized void setLoaderThreads(int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("The number of loader threads must be positive");
+		_loaderThreads = threads;
+		if (_loader != null) {
+			_loader.shutdown();
+			_loader = null;
+		}
+	}
+	
+	/**
+	 * Setter for the color of the texels of the images that are not ready yet.
+	 * @param placeholder The color, whose components are clamped to 255.
+	 */
+	public void setPlaceholder(Color placeholder) {
+		_placeholder = ((int)Math.min(placeholder.getRed(), 255) << 16) | 
+					   ((int)Math.min(placeholder.getGreen(), 255) << 8) | 
+					   (int)Math.min(placeholder.getBlue(), 255);
+	}
+	
+	/**
+	 * Getter for the texel of the images that are not ready yet.
+	 * @return The packed texel, 0xRRGGBB.
+	 */
+	int getPlaceholder() {
+		return _placeholder;
+	}
+	
+	/**
+	 * Setter for the memory budget of the tiles. If the tiles take more 
+	 * than the new budget, the least recently read ones are dropped.
+	 * @param budget The budget in bytes.
+	 */
+	public void setBudget(long budget) {
+		if (budget <= 0)
+			throw new IllegalArgumentException("The budget of the texture cache must be positive");
+		_budget = budget;
+		evict();
+	}
+	
+	/**
+	 * Getter for the memory budget of the tiles.
+	 * @return The budget in bytes.
+	 */
+	public long getBudget() {
+		return _budget;
+	}
+	
+	/**
+	 * Getter for the memory that the loaded tiles take.
+	 * @return The size of the tiles in bytes.
+	 */
+	public long getSize() {
+		return _size.get();
+	}
+	
+	/**
+	 * Drops all the loaded tiles. The images stay in the cache, and their 
+	 * tiles are loaded again if they are read again.
+	 */
+	public synchronized void clear() {
+		List<Tile> tiles = new ArrayList<Tile>();
+		for (MipMap image : _images.values()) {
+			image.addTiles(tiles);
+		}
+		for (Tile tile : tiles) {
+			_size.addAndGet(-tile.image.unload(tile.level, tile.index));
+		}
+	}
+	
+	/**
+	 * Ticks the clock, when a tile is loaded.
+	 * @return The new time.
+	 */
+	long tick() {
+		return _clock.incrementAndGet();
+	}
+	
+	/**
+	 * Getter for the time of the clock.
+	 * @return The time.
+	 */
+	long getClock() {
+		return _clock.get();
+	}
+	
+	/**
+	 * Adds the memory of a loaded tile to the size of the cache.
+	 * @param bytes The memory of the tile.
+	 */
+	void added(long bytes) {
+		_size.addAndGet(bytes);
+	}
+	
+	/**
+	 * Drops the least recently read tiles, if the tiles take more memory than 
+	 * the budget. Enough tiles are dropped to get an eighth of the budget below
+	 * it, so the tiles are not sorted again for every tile that is loaded.
+	 */
+	void evict() {
+		if (_size.get() <= _budget) {
+			return;
+		}
+		synchronized (this) {
+			if (_size.get() <= _budget) {
+				return;
+			}
+			List<Tile> tiles = new ArrayList<Tile>();
+			for (MipMap image : _images.values()) {
+				image.addTiles(tiles);
+			}
+			Collections.sort(tiles, (first, second) -> Long.compare(first.lastUse, second.lastUse));
+			long target = _budget - _budget / 8;
+			for (int i = 0; i < tiles.size() && _size.get() > target; i++) {
+				Tile tile = tiles.get(i);
+				_size.addAndGet(-tile.image.unload(tile.level, tile.index));
+			}
+		}
+	}
+}
@@ -4,8 +4,32 @@ public abstract class TextureEmissionImp implements IGetEmission {
 	protected Axis _axis;
 	protected Texture _texture;
 	
+	/**
+	 * The frame of the axis, precomputed for the projections of the points.
+	 */
+	private final AxisFrame _frame;
+	
+	/**
+	 * The projection of every thread, so a lookup does not allocate.
+	 */
+	private final ThreadLocal<double[]> _local = ThreadLocal.withInitial(() -> new double[3]);
+	
 	public TextureEmissionImp(Axis axis, Texture texture) {
 		this._axis = new Axis(axis);
 		this._texture = texture;
+		_frame = new AxisFrame(_axis);
+	}
+	
+	/**
+	 * Projects a point on the axis, like {@link Axis#getXProjection} and the others,
+	 * but without creating the vectors of the projections.
+	 * @param point The point.
+	 * @return The x, y and z projections, in the array of the current thread,
+	 * which is overwritten by the next projection of the thread.
+	 */
+	protected double[] project(Point3D point) {
+		double[] local = _local.get();
+		_frame.project(point, local, 0);
+		return local;
 	}
 }
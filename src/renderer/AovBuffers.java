@@ -0,0 +1,317 @@
+package renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The auxiliary buffers (AOVs) of a render: named channels of data about
+ * every pixel of the image, besides its color. The data of the surfaces
+ * is of the first surface that is hit through the pixel: the albedo and the
+ * normal are averaged over the samples of the pixel, and the depth and the
+ * geometry identifier are of the nearest hit. The counters are the work of
+ * all the samples of the pixel, so the hot spots of a scene can be seen as
+ * a heatmap.
+ * The albedo, normal and depth guide the {@link Denoiser}, since their edges
+ * are the edges of the geometries and the textures, without the noise of
+ * the lighting.
+ */
+public class AovBuffers {
+
+	/**
+	 * The channels of the buffers.
+	 */
+	public enum Channel {
+		/**
+		 * The albedo (red, green and blue) of the surface, where 255 is 1.0.
+		 */
+		ALBEDO("albedo", 3, 0, false),
+		/**
+		 * The shading normal (x, y and z) of the surface. The normals face
+		 * the camera, and the normal of the background is zero.
+		 */
+		NORMAL("normal", 3, 3, false),
+		/**
+		 * The distance from the camera along the ray, infinity for the background.
+		 */
+		DEPTH("depth", 1, 6, false),
+		/**
+		 * The identifier of the geometry (its index in the scene plus one), 0 for the background.
+		 */
+		GEOMETRY_ID("id", 1, 7, false),
+		/**
+		 * The number of nodes of the bounding volume hierarchy that were visited.
+		 */
+		NODES_VISITED("nodes", 1, 8, true),
+		/**
+		 * The number of rays that were traced: camera, shadow, reflected and refracted rays.
+		 */
+		RAYS("rays", 1, 9, true);
+
+		/**
+		 * The name of the channel, which is put in the name of its files.
+		 */
+		private final String _name;
+
+		/**
+		 * The number of components of every pixel, and the index of
+		 * the first one in a sample of a pixel.
+		 */
+		private final int _components, _offset;
+
+		/**
+		 * Whether the channel counts the work of the pixel.
+		 */
+		private final boolean _counter;
+
+		/**
+		 * Constructor for a channel.
+		 * @param name The name of the channel.
+		 * @param components The number of components of every pixel.
+		 * @param offset The index of the first component in a sample.
+		 * @param counter Whether the channel counts the work of the pixel.
+		 */
+		private Channel(String name, int components, int offset, boolean counter) {
+			_name = name;
+			_components = components;
+			_offset = offset;
+			_counter = counter;
+		}
+
+		/**
+		 * Getter for the name of the channel.
+		 * @return The name of the channel.
+		 */
+		public String getName() {
+			return _name;
+		}
+
+		/**
+		 * Getter for the number of components of every pixel.
+		 * @return 1 or 3.
+		 */
+		public int getComponents() {
+			return _components;
+		}
+
+		/**
+		 * Checks whether the channel counts the work of the pixel.
+		 * @return True for a counter, which is also written as a heatmap.
+		 */
+		public boolean isCounter() {
+			return _counter;
+		}
+	}
+
+	/**
+	 * The indexes of the channels in a sample of the buffers, and the size of a sample.
+	 */
+	static final int ALBEDO = 0, NORMAL = 3, DEPTH = 6, GEOMETRY_ID = 7, NODES_VISITED = 8, RAYS = 9, SAMPLE_SIZE = 10;
+
+	/**
+	 * The dimensions of the buffers, in pixels of the image.
+	 */
+	private final int _width, _height;
+
+	/**
+	 * The buffer of every channel, in the order of the channels. The components
+	 * of every pixel are one after the other, one pixel after the other and one
+	 * row after the other.
+	 */
+	private final float[][] _channels;
+
+	/**
+	 * Constructor for new buffers.
+	 * @param width The number of pixels in the breadth.
+	 * @param height The number of pixels in the height.
+	 */
+	public AovBuffers(int width, int height) {
+		_width = width;
+		_height = height;
+		_channels = new float[Channel.values().length][];
+		for (Channel channel : Channel.values()) {
+			_channels[channel.ordinal()] = new float[channel._components * width * height];
+		}
+		Arrays.fill(getChannel(Channel.DEPTH), Float.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Getter for the number of pixels in the breadth.
+	 * @return The number of pixels in the breadth.
+	 */
+	public int getWidth() {
+		return _width;
+	}
+
+	/**
+	 * Getter for the number of pixels in the height.
+	 * @return The number of pixels in the height.
+	 */
+	public int getHeight() {
+		return _height;
+	}
+
+	/**
+	 * Getter for the buffer of a channel.
+	 * @param channel The channel.
+	 * @return The instance itself, with {@link Channel#getComponents()} components for every pixel.
+	 */
+	public float[] getChannel(Channel channel) {
+		return _channels[channel.ordinal()];
+	}
+
+	/**
+	 * Getter for the albedo buffer.
+	 * @return The instance itself, three components for every pixel.
+	 */
+	public float[] getAlbedo() {
+		return getChannel(Channel.ALBEDO);
+	}
+
+	/**
+	 * Getter for the normal buffer.
+	 * @return The instance itself, three components for every pixel.
+	 */
+	public float[] getNormal() {
+		return getChannel(Channel.NORMAL);
+	}
+
+	/**
+	 * Getter for the depth buffer.
+	 * @return The instance itself, one component for every pixel.
+	 */
+	public float[] getDepth() {
+		return getChannel(Channel.DEPTH);
+	}
+
+	/**
+	 * Creates an empty sample, into which the hits of a pixel are accumulated.
+	 * @return A new sample, with zero albedo, normal, identifier and counters,
+	 * and infinite depth.
+	 */
+	static float[] newSample() {
+		float[] sample = new float[SAMPLE_SIZE];
+		sample[DEPTH] = Float.POSITIVE_INFINITY;
+		return sample;
+	}
+
+	/**
+	 * Puts a sample in a block of pixels of the image.
+	 * @param x The first column of the block.
+	 * @param y The first row of the block.
+	 * @param width The number of columns of the block.
+	 * @param height The number of rows of the block.
+	 * @param sample The sample.
+	 */
+	void putBlock(int x, int y, int width, int height, float[] sample) {
+		for (Channel channel : Channel.values()) {
+			float[] buffer = _channels[channel.ordinal()];
+			int components = channel._components;
+			for (int row = y; row < Math.min(y + height, _height); row++) {
+				for (int column = x; column < Math.min(x + width, _width); column++) {
+					System.arraycopy(sample, channel._offset, buffer, components * (row * _width + column), components);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes every channel next to the image, as a Portable Float Map named
+	 * {@code imageName.channel.pfm} (the albedo is divided by 255). The counters
+	 * are also written as heatmaps, named {@code imageName.channel.png}.
+	 * @param directory The directory of the image.
+	 * @param imageName The name of the image.
+	 * @throws IOException In case a file cannot be created or written.
+	 */
+	public void write(String directory, String imageName) throws IOException {
+		for (Channel channel : Channel.values()) {
+			String prefix = imageName + "." + channel._name;
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(directory, prefix + ".pfm")))) {
+				writePfm(channel, out);
+			}
+			if (channel._counter && !ImageIO.write(heatmap(channel), "png", new File(directory, prefix + ".png")))
+				throw new IOException("There is no PNG writer for the heatmaps");
+		}
+	}
+
+	/**
+	 * Writes a channel as a Portable Float Map, in color for three components
+	 * and in grayscale for one, from the bottom row up.
+	 * @param channel The channel.
+	 * @param out The stream of the file.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	private void writePfm(Channel channel, OutputStream out) throws IOException {
+		int components = channel._components;
+		float[] buffer = getChannel(channel);
+		float scale = channel == Channel.ALBEDO ? 1 / 255f : 1;
+		out.write(((components == 3 ? "PF" : "Pf") + "\n" + _width + " " + _height + "\n-1.0\n")
+				.getBytes(StandardCharsets.US_ASCII));
+		ByteBuffer row = ByteBuffer.allocate(4 * components * _width).order(ByteOrder.LITTLE_ENDIAN);
+		for (int y = _height - 1; y >= 0; y--) {
+			row.clear();
+			for (int index = components * y * _width; index < components * (y + 1) * _width; index++) {
+				row.putFloat(buffer[index] * scale);
+			}
+			out.write(row.array());
+		}
+	}
+
+	/**
+	 * Creates a heatmap of a channel with a single component. The values
+	 * from zero to the largest (finite) value go from dark blue, through
+	 * cyan, green and yellow, to red.
+	 * @param channel The channel.
+	 * @return The heatmap.
+	 */
+	public BufferedImage heatmap(Channel channel) {
+		if (channel._components != 1)
+			throw new IllegalArgumentException("A heatmap is of a channel with a single component");
+		float[] buffer = getChannel(channel);
+		float max = 0;
+		for (float value : buffer) {
+			if (value > max && value != Float.POSITIVE_INFINITY) {
+				max = value;
+			}
+		}
+		BufferedImage image = new BufferedImage(_width, _height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < _height; y++) {
+			for (int x = 0; x < _width; x++) {
+				float value = buffer[y * _width + x];
+				double t = max == 0 ? 0 : Math.min(value / max, 1);
+				image.setRGB(x, y, heatColor(t));
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * The color map of the heatmaps (the "jet" color map).
+	 * @param t The value, between 0 and 1.
+	 * @return The color, as an RGB integer.
+	 */
+	private static int heatColor(double t) {
+		double r = clamp(1.5 - Math.abs(4 * t - 3)), 
+			   g = clamp(1.5 - Math.abs(4 * t - 2)), 
+			   b = clamp(1.5 - Math.abs(4 * t - 1));
+		return ((int)(255 * r) << 16) | ((int)(255 * g) << 8) | (int)(255 * b);
+	}
+
+	/**
+	 * Clamps a number to the range of 0 to 1.
+	 * @param value The number.
+	 * @return The clamped number.
+	 */
+	private static double clamp(double value) {
+		return value < 0 ? 0 : (value > 1 ? 1 : value);
+	}
+}
@@ -0,0 +1,222 @@
+package renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file that keeps the progress of a render, so a render 
+ * that was stopped in the middle can be resumed from where it stopped.
+ * The file keeps the settings of the render, a flag for every tile that 
+ * was completed, and the framebuffer of the whole image. The file is 
+ * deleted when the render is completed, so it never outlives the scene.
+ * The pixels of a tile are put in the file before the tile is marked as
+ * completed, so a crash of the process never leaves a completed tile 
+ * without its pixels. The file is also forced to the disk at intervals, 
+ * against a crash of the whole system.
+ */
+class Checkpoint {
+	
+	/**
+	 * The magic number and the version of the file.
+	 */
+	private static final int MAGIC = 0x52434B50, VERSION = 4;
+	
+	/**
+	 * The size of the header: the magic number, the version, 
+	 * six integer settings and the seed.
+	 */
+	private static final int HEADER_SIZE = 40;
+	
+	/**
+	 * The largest number of bytes of pixels in a single mapped region.
+	 */
+	private static final int MAX_REGION_SIZE = 1 << 30;
+	
+	/**
+	 * The file of the checkpoint, and its channel.
+	 */
+	private File _file;
+	private FileChannel _channel;
+	
+	/**
+	 * The header and the flags of the tiles.
+	 */
+	private MappedByteBuffer _tiles;
+	
+	/**
+	 * The regions of the framebuffer, every one of them has 
+	 * {@link #_rowsInRegion} rows of the image.
+	 */
+	private MappedByteBuffer[] _regions;
+	private FloatBuffer[] _pixels;
+	private int _rowsInRegion;
+	
+	/**
+	 * The number of pixels in the breadth of the image.
+	 */
+	private int _width;
+	
+	/**
+	 * The time between two forces of the file to the disk in milliseconds, and the last one.
+	 */
+	private long _interval;
+	private volatile long _lastForce;
+	
+	/**
+	 * Opens the checkpoint of a render. If the file is a checkpoint of the same 
+	 * settings, the render is resumed from it. Otherwise, it is started again.
+	 * The settings do not include the scene itself, it is up to the caller
+	 * to resume only with the scene that the checkpoint was made with.
+	 * @param file The file of the checkpoint.
+	 * @param interval The time between two forces of the file to the disk, in milliseconds.
+	 * @param image The image writer of the render.
+	 * @param seed The seed of the frame.
+	 * @param tileSize The size of the tiles.
+	 * @param numOfTiles The number of tiles of the render.
+	 * @throws IOException In case of an error while opening or mapping the file.
+	 */
+	Checkpoint(File file, long interval, ImageWriter image, long seed, int tileSize, int numOfTiles) throws IOException {
+		_file = file;
+		_width = image.getWidth();
+		_interval = interval;
+		int height = image.getHeight();
+		_rowsInRegion = Math.max(1, Math.min(height, MAX_REGION_SIZE / (12 * _width)));
+		int numOfRegions = (height + _rowsInRegion - 1) / _rowsInRegion;
+		//The pixels start in a multiple of four bytes.
+		long pixelsStart = (HEADER_SIZE + numOfTiles + 3) & ~3L,
+			 size = pixelsStart + 12L * _width * height;
+		
+		_channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, 
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			boolean resume = _channel.size() == size;
+			if (!resume) {
+				_channel.truncate(0);
+			}
+			_tiles = _channel.map(MapMode.READ_WRITE, 0, pixelsStart);
+			_tiles.order(ByteOrder.LITTLE_ENDIAN);
+			resume = resume && _tiles.getInt(0) == MAGIC && _tiles.getInt(4) == VERSION && 
+					 _tiles.getInt(8) == _width && _tiles.getInt(12) == height &&
+					 _tiles.getInt(16) == image.getNx() && _tiles.getInt(20) == image.getNy() &&
+					 _tiles.getInt(24) == tileSize && _tiles.getInt(28) == numOfTiles &&
+					 _tiles.getLong(32) == seed;
+			if (!resume) {
+				//The magic number is written last, so a header that was 
+				//not completed is never taken as a checkpoint.
+				for (int index = 0; index < pixelsStart; index++) {
+					_tiles.put(index, (byte)0);
+				}
+				_tiles.putInt(4, VERSION).putInt(8, _width).putInt(12, height)
+					  .putInt(16, image.getNx()).putInt(20, image.getNy())
+					  .putInt(24, tileSize).putInt(28, numOfTiles).putLong(32, seed);
+				_tiles.putInt(0, MAGIC);
+			}
+			
+			_regions = new MappedByteBuffer[numOfRegions];
+			_pixels = new FloatBuffer[numOfRegions];
+			for (int region = 0; region < numOfRegions; region++) {
+				int rows = Math.min(_rowsInRegion, height - region * _rowsInRegion);
+				_regions[region] = _channel.map(MapMode.READ_WRITE, 
+						pixelsStart + 12L * _width * _rowsInRegion * region, 12L * _width * rows);
+				_pixels[region] = _regions[region].order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+			}
+		} catch (IOException e) {
+			_channel.close();
+			throw e;
+		}
+		_lastForce = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Checks whether a tile was completed.
+	 * @param tile The index of the tile.
+	 * @return True if the pixels of the tile are in the checkpoint.
+	 */
+	boolean isDone(int tile) {
+		return _tiles.get(HEADER_SIZE + tile) != 0;
+	}
+	
+	/**
+	 * Puts the pixels of a completed tile in the checkpoint, and marks it as completed.
+	 * Different threads may save different tiles at the same time.
+	 * @param tile The index of the tile.
+	 * @param buffer The framebuffer of the image writer.
+	 * @param bufferStart The first row of the image in the framebuffer.
+	 * @param x0 The first column of the image in the tile.
+	 * @param y0 The first row of the image in the tile.
+	 * @param x1 The column after the last column of the tile.
+	 * @param y1 The row after the last row of the tile.
+	 */
+	void save(int tile, float[] buffer, int bufferStart, int x0, int y0, int x1, int y1) {
+		for (int y = y0; y < y1; y++) {
+			FloatBuffer pixels = _pixels[y / _rowsInRegion];
+			int from = 3 * ((y - bufferStart) * _width + x0), 
+				to = 3 * ((y % _rowsInRegion) * _width + x0);
+			for (int index = 0; index < 3 * (x1 - x0); index++) {
+				pixels.put(to + index, buffer[from + index]);
+			}
+		}
+		_tiles.put(HEADER_SIZE + tile, (byte)1);
+		if (System.currentTimeMillis() - _lastForce >= _interval) {
+			force();
+		}
+	}
+	
+	/**
+	 * Restores the pixels of a completed tile from the checkpoint.
+	 * The parameters are the same as of {@link #save}.
+	 * @param buffer The framebuffer of the image writer.
+	 * @param bufferStart The first row of the image in the framebuffer.
+	 * @param x0 The first column of the image in the tile.
+	 * @param y0 The first row of the image in the tile.
+	 * @param x1 The column after the last column of the tile.
+	 * @param y1 The row after the last row of the tile.
+	 */
+	void restore(float[] buffer, int bufferStart, int x0, int y0, int x1, int y1) {
+		for (int y = y0; y < y1; y++) {
+			FloatBuffer pixels = _pixels[y / _rowsInRegion];
+			int to = 3 * ((y - bufferStart) * _width + x0), 
+				from = 3 * ((y % _rowsInRegion) * _width + x0);
+			for (int index = 0; index < 3 * (x1 - x0); index++) {
+				buffer[to + index] = pixels.get(from + index);
+			}
+		}
+	}
+	
+	/**
+	 * Forces the pixels and then the flags of the tiles to the disk.
+	 */
+	synchronized void force() {
+		for (MappedByteBuffer region : _regions) {
+			region.force();
+		}
+		_tiles.force();
+		_lastForce = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Closes the file of the checkpoint. The file of a render that was stopped is 
+	 * forced to the disk and kept, so rendering again continues from it, and the 
+	 * file of a completed render is deleted, as the image is already whole.
+	 * @param completed Whether all the tiles of the render were completed.
+	 */
+	void close(boolean completed) {
+		if (!completed) {
+			force();
+		}
+		try {
+			_channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		if (completed && !_file.delete()) {
+			System.err.println("The checkpoint " + _file + " cannot be deleted");
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An edge avoiding a-trous wavelet denoiser (Dammertz et al. 2010).
+ * Every iteration blurs the image with a 5x5 B3 spline kernel whose taps are 
+ * spread twice as far as in the iteration before, so a few iterations cover 
+ * a large area cheaply. The weight of every tap falls with the difference 
+ * between the colors, the normals, the albedos and the depths of the two 
+ * pixels, so the edges of the geometries and the textures are kept while the 
+ * noise of the lighting is blurred. The depths are compared relatively, so a
+ * surface far away is blurred as much as a near one, and an edge where a 
+ * surface is in front of another of the same normal and albedo is kept.
+ */
+public class Denoiser {
+	
+	/**
+	 * The B3 spline kernel along one axis.
+	 */
+	private static final float[] KERNEL = {1 / 16f, 1 / 4f, 3 / 8f, 1 / 4f, 1 / 16f};
+	
+	/**
+	 * The number of iterations.
+	 */
+	private int _iterations;
+	
+	/**
+	 * The tolerance of the differences of the colors (where 1.0 is the color 
+	 * component 255), the normals, the albedos and the depths (relative to 
+	 * the nearer depth).
+	 */
+	private double _colorSigma, _normalSigma, _albedoSigma, _depthSigma;
+	
+	/**
+	 * Constructor for a denoiser with 5 iterations and the default tolerances.
+	 */
+	public Denoiser() {
+		this(5, 0.5, 0.3, 0.1, 0.05);
+	}
+	
+	/**
+	 * Constructor for a new denoiser.
+	 * @param iterations The number of iterations. Must be positive.
+	 * @param colorSigma The tolerance of the differences of the colors in the first
+	 * iteration, where 1.0 is the component 255. It is halved in every iteration.
+	 * @param normalSigma The tolerance of the differences of the normals.
+	 * @param albedoSigma The tolerance of the differences of the albedos, where 1.0 is 255.
+	 * @param depthSigma The tolerance of the differences of the depths, relative to
+	 * the nearer of the two depths.
+	 */
+	public Denoiser(int iterations, double colorSigma, double normalSigma, double albedoSigma, double depthSigma) {
+		if (iterations <= 0)
+			throw new IllegalArgumentException("The number of iterations must be positive");
+		if (colorSigma <= 0 || normalSigma <= 0 || albedoSigma <= 0 || depthSigma <= 0)
+			throw new IllegalArgumentException("The tolerances must be positive");
+		_iterations = iterations;
+		_colorSigma = colorSigma;
+		_normalSigma = normalSigma;
+		_albedoSigma = albedoSigma;
+		_depthSigma = depthSigma;
+	}
+	
+	/**
+	 * Denoises an image in place.
+	 * @param color The framebuffer of the image writer.
+	 * @param aovs The auxiliary buffers of the image.
+	 * @param threads The number of threads that denoise the image.
+	 */
+	public void denoise(float[] color, AovBuffers aovs, int threads) {
+		int width = aovs.getWidth(), height = aovs.getHeight();
+		float[] albedo = aovs.getAlbedo(), normal = aovs.getNormal(), depth = aovs.getDepth();
+		float[] input = color, output = new float[color.length];
+		
+		for (int iteration = 0; iteration < _iterations; iteration++) {
+			int step = 1 << iteration;
+			//The exponents of the weights, with the squared tolerances and the 
+			//scale of the colors folded in.
+			double colorSigma = _colorSigma / step;
+			float colorFactor = (float)(1 / (colorSigma * colorSigma * 255 * 255)),
+				  normalFactor = (float)(1 / (_normalSigma * _normalSigma)),
+				  albedoFactor = (float)(1 / (_albedoSigma * _albedoSigma * 255 * 255)),
+				  depthFactor = (float)(1 / (_depthSigma * _depthSigma));
+			float[] source = input, target = output;
+			
+			AtomicInteger nextRow = new AtomicInteger(0);
+			Runnable worker = () -> {
+				for (int y = nextRow.getAndIncrement(); y < height; y = nextRow.getAndIncrement()) {
+					for (int x = 0; x < width; x++) {
+						int p = 3 * (y * width + x);
+						float sumR = 0, sumG = 0, sumB = 0, sumWeights = 0;
+						for (int ky = -2; ky <= 2; ky++) {
+							int qy = y + ky * step;
+							if (qy < 0 || qy >= height) {
+								continue;
+							}
+							for (int kx = -2; kx <= 2; kx++) {
+								int qx = x + kx * step;
+								if (qx < 0 || qx >= width) {
+									continue;
+								}
+								int q = 3 * (qy * width + qx);
+								float exponent = colorFactor * distance2(source, p, q) + 
+												 normalFactor * distance2(normal, p, q) + 
+												 albedoFactor * distance2(albedo, p, q) + 
+												 depthFactor * relativeDistance2(depth, p / 3, q / 3);
+								float weight = KERNEL[ky + 2] * KERNEL[kx + 2] * (float)Math.exp(-exponent);
+								sumR += weight * source[q];
+								sumG += weight * source[q + 1];
+								sumB += weight * source[q + 2];
+								sumWeights += weight;
+							}
+						}
+						//The pixel itself always has a positive weight.
+						target[p] = sumR / sumWeights;
+						target[p + 1] = sumG / sumWeights;
+						target[p + 2] = sumB / sumWeights;
+					}
+				}
+			};
+			Workers.run(worker, threads, "denoise");
+			
+			//The output of this iteration is the input of the next one.
+			output = input == color ? new float[color.length] : input;
+			input = target;
+		}
+		if (input != color) {
+			System.arraycopy(input, 0, color, 0, color.length);
+		}
+	}
+	
+	/**
+	 * Calculates the squared distance between two triplets of a buffer.
+	 * @param buffer The buffer.
+	 * @param p The index of the first triplet.
+	 * @param q The index of the second triplet.
+	 * @return The squared distance.
+	 */
+	private static float distance2(float[] buffer, int p, int q) {
+		float d0 = buffer[p] - buffer[q], d1 = buffer[p + 1] - buffer[q + 1], d2 = buffer[p + 2] - buffer[q + 2];
+		return d0 * d0 + d1 * d1 + d2 * d2;
+	}
+	
+	/**
+	 * Calculates the squared difference between two depths, relative to the nearer one.
+	 * @param depth The depth buffer.
+	 * @param p The index of the first depth.
+	 * @param q The index of the second depth.
+	 * @return The squared relative difference, 0 for two equal depths (also of the 
+	 * background), and infinity between the background and a surface.
+	 */
+	private static float relativeDistance2(float[] depth, int p, int q) {
+		float dp = depth[p], dq = depth[q];
+		if (dp == dq) {
+			return 0;
+		}
+		float d = (dp - dq) / Math.min(dp, dq);
+		return d * d;
+	}
+}
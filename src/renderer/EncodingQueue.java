@@ -0,0 +1,132 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A pipeline stage that encodes and writes images on background threads,
+ * so the next frame can be rendered while the former frames are written.
+ * The queue is bounded: when it is full, a new frame waits until there is
+ * room for it, so a renderer that is faster than the disk does not keep
+ * an unbounded number of frames in the memory.
+ */
+public class EncodingQueue implements AutoCloseable {
+	
+	/**
+	 * The job that stops a writing thread.
+	 */
+	private static final Runnable END = () -> {};
+	
+	/**
+	 * The frames that wait to be written.
+	 */
+	private final BlockingQueue<Runnable> _queue;
+	
+	/**
+	 * The writing threads.
+	 */
+	private final Thread[] _threads;
+	
+	/**
+	 * Whether the queue was closed.
+	 */
+	private volatile boolean _closed = false;
+	
+	/**
+	 * The first failure of a job, with the failures of the later jobs suppressed in it.
+	 */
+	private final AtomicReference<RuntimeException> _failure = new AtomicReference<RuntimeException>();
+	
+	/**
+	 * Constructor for a new queue. The writing threads start right away.
+	 * @param capacity The largest number of frames that wait to be written.
+	 * @param threads The number of threads that write the frames.
+	 */
+	public EncodingQueue(int capacity, int threads) {
+		if (capacity <= 0 || threads <= 0)
+			throw new IllegalArgumentException("The capacity and the number of threads must be positive");
+		_queue = new ArrayBlockingQueue<Runnable>(capacity);
+		_threads = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			_threads[i] = new Thread(() -> {
+				try {
+					for (Runnable job = _queue.take(); job != END; job = _queue.take()) {
+						//A failed job does not stop the thread, the next frames are still written.
+						try {
+							job.run();
+						} catch (RuntimeException e) {
+							if (!_failure.compareAndSet(null, e)) {
+								_failure.get().addSuppressed(e);
+							}
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "encode-queue-" + i);
+			_threads[i].start();
+		}
+	}
+	
+	/**
+	 * Puts a frame in the queue, to be written with its encoder. 
+	 * The frame must not be changed after that. If the queue is full,
+	 * the function waits until there is room for the frame. A frame that
+	 * cannot be written fails its job, as an UncheckedIOException.
+	 * @param frame The frame.
+	 */
+	public void submit(ImageWriter frame) {
+		submit(() -> {
+			try {
+				frame.writeToFile();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	/**
+	 * Puts a writing job in the queue, like writing the auxiliary buffers of a frame.
+	 * If the queue is full, the function waits until there is room for the job.
+	 * @param job The job.
+	 */
+	public void submit(Runnable job) {
+		if (_closed)
+			throw new IllegalStateException("The queue is closed");
+		try {
+			_queue.put(job);
+		} catch (InterruptedException e) {
+			//The job is not lost, it is done on the calling thread.
+			Thread.currentThread().interrupt();
+			job.run();
+		}
+	}
+	
+	/**
+	 * Waits until all the frames in the queue are written, and stops the writing threads.
+	 * @throws IllegalStateException When a job failed, with the failure of the first
+	 * failed job as its cause (and the failures of the others suppressed in it).
+	 */
+	@Override
+	public void close() {
+		if (_closed)
+			return;
+		_closed = true;
+		try {
+			for (int i = 0; i < _threads.length; i++) {
+				_queue.put(END);
+			}
+			for (Thread thread : _threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		RuntimeException failure = _failure.get();
+		if (failure != null)
+			throw new IllegalStateException("A frame could not be written", failure);
+	}
+}
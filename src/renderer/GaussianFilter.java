@@ -0,0 +1,40 @@
+package renderer;
+
+/**
+ * The Gaussian filter, shifted down so its weight reaches 0 in its radius.
+ */
+public class GaussianFilter implements ReconstructionFilter {
+	
+	/**
+	 * The radius of the filter.
+	 */
+	private final double _radius;
+	
+	/**
+	 * The falloff of the Gaussian, 1 / (2 sigma^2), and its value in the radius.
+	 */
+	private final double _alpha, _edge;
+	
+	/**
+	 * Constructor for a new Gaussian filter.
+	 * @param radius The radius of the filter in pixels. Must be positive.
+	 * @param sigma The standard deviation of the Gaussian in pixels. Must be positive.
+	 */
+	public GaussianFilter(double radius, double sigma) {
+		if (radius <= 0 || sigma <= 0)
+			throw new IllegalArgumentException("The radius and the standard deviation must be positive");
+		_radius = radius;
+		_alpha = 1 / (2 * sigma * sigma);
+		_edge = Math.exp(-_alpha * radius * radius);
+	}
+
+	@Override
+	public double getRadius() {
+		return _radius;
+	}
+
+	@Override
+	public double evaluate(double offset) {
+		return Math.max(0, Math.exp(-_alpha * offset * offset) - _edge);
+	}
+}
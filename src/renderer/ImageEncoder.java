@@ -0,0 +1,36 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Interface for an encoder of the images that are written by the {@link ImageWriter}.
+ * An encoder decides the format of the file. It can encode the quantized 
+ * 8 bit image, or the high dynamic range framebuffer itself.
+ */
+public interface ImageEncoder {
+	
+	/**
+	 * Lossy JPEG encoder of the quantized image. This is the default encoder.
+	 */
+	public static final ImageEncoder JPEG = new ImageIOEncoder("jpg", "jpg");
+	
+	/**
+	 * Lossless PNG encoder of the quantized image.
+	 */
+	public static final ImageEncoder PNG = new ImageIOEncoder("png", "png");
+	
+	/**
+	 * Getter for the extension of the files of this encoder.
+	 * @return The extension of the file, without the dot.
+	 */
+	public String getExtension();
+	
+	/**
+	 * Encodes the image of the given image writer into the given stream.
+	 * @param image The image writer, after the rendering was completed.
+	 * @param out The stream of the file. The encoder does not close the stream.
+	 * @throws IOException In case of an error while writing to the stream.
+	 */
+	public void encode(ImageWriter image, OutputStream out) throws IOException;
+}
@@ -0,0 +1,45 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Encoder of the quantized 8 bit image with one of the 
+ * formats of the Java image I/O (like "jpg" or "png").
+ */
+public class ImageIOEncoder implements ImageEncoder {
+
+	/**
+	 * The name of the format for the Java image I/O.
+	 */
+	private final String _format;
+	
+	/**
+	 * The extension of the files.
+	 */
+	private final String _extension;
+	
+	/**
+	 * Constructor for a new encoder.
+	 * @param format The informal name of the format for the Java image I/O.
+	 * @param extension The extension of the files, without the dot.
+	 */
+	public ImageIOEncoder(String format, String extension) {
+		_format = format;
+		_extension = extension;
+	}
+	
+	@Override
+	public String getExtension() {
+		return _extension;
+	}
+
+	@Override
+	public void encode(ImageWriter image, OutputStream out) throws IOException {
+		if (!ImageIO.write(image.getImage(), _format, out)) {
+			throw new IOException("No image writer for the format " + _format);
+		}
+	}
+}
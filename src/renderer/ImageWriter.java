@@ -2,10 +2,17 @@ package renderer;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
-import javax.imageio.ImageIO;
 
 public class ImageWriter {
 
@@ -42,15 +49,78 @@ public class ImageWriter {
 	private double _Ry;
 
 	/**
-	 * The path where the images are saved.
+	 * The default path where the images are saved.
 	 */
 	final String PROJECT_PATH = System.getProperty("user.dir");
 	
 	/**
-	 * The image, where we put the colors of the pixels.
+	 * The path where the images are saved.
+	 */
+	private String _directory = PROJECT_PATH;
+	
+	/**
+	 * The encoder that decides the format of the image's file.
+	 */
+	private ImageEncoder _encoder = ImageEncoder.JPEG;
+	
+	/**
+	 * The image, where the quantized colors of the pixels are 
+	 * put when the image is written.
 	 */
 	private BufferedImage _image;
 	
+	/**
+	 * The framebuffer, where we put the colors of the pixels.
+	 * The red, green and blue of every pixel are kept, not clamped, 
+	 * one pixel after the other and one row after the other. That is, 
+	 * the red of the pixel (x,y) is in the index 3 * (y * width + x).
+	 * Every pixel is written by a single rendering thread, so the 
+	 * threads write to the buffer without locking.
+	 * When the image is streamed, the buffer keeps only the current 
+	 * band of rows, and the first row of the band is {@link #_bandStart}.
+	 */
+	private float[] _buffer;
+	
+	/**
+	 * The sum of the weights of the samples that were splatted into every
+	 * pixel, null when the pixels are not accumulated.
+	 */
+	private float[] _weights;
+	
+	/**
+	 * The tone mapper of the displayable colors, null for clamping them.
+	 */
+	private ToneMapper _toneMapper;
+	
+	/**
+	 * The tone mapped colors of the framebuffer, kept for reusing.
+	 */
+	private float[] _display;
+	
+	/**
+	 * The encoder that writes the image to its file band after band,
+	 * null if the whole image is kept in the memory.
+	 */
+	private StreamEncoder _streamEncoder;
+	
+	/**
+	 * The file of the streamed image, while it is being written.
+	 */
+	private FileChannel _channel;
+	
+	/**
+	 * The first error of the file of the streamed image, which is
+	 * thrown when the stream is closed.
+	 */
+	private IOException _streamFailure;
+	
+	/**
+	 * The first row of the image that is in the framebuffer,
+	 * and the number of rows of a band (the height of the image
+	 * if the image is not streamed).
+	 */
+	private int _bandStart, _bandRows;
+	
 	/**
 	 * The name of the image.
 	 */
@@ -68,6 +138,22 @@ public class ImageWriter {
 	 * how many rows there are in the view plane.
 	 */
 	public ImageWriter(String imageName, int width, int height, int Nx, int Ny) {
+		this(imageName, width, height, Nx, Ny, null);
+	}
+	
+	/**
+	 * Constructor for creating a new object that may stream the image to
+	 * its file while it is rendered, instead of keeping it in the memory.
+	 * @param imageName The name of the image.
+	 * @param width The number of pixels in the breadth.
+	 * @param height The number of pixels in the height.
+	 * @param Nx The breadth of the view plane in length units.
+	 * @param Ny The height of the view plane in length units.
+	 * @param streamEncoder The encoder of the streamed image. If it is null,
+	 * the whole image is kept in the memory and written by {@link #writeToimage()}.
+	 * Otherwise, nothing is allocated until {@link #openStream(int)} is called.
+	 */
+	public ImageWriter(String imageName, int width, int height, int Nx, int Ny, StreamEncoder streamEncoder) {
 		_imageName = imageName;
 		_imageWidth = width;
 		_imageHeight = height;
@@ -77,7 +163,12 @@ public class ImageWriter {
 		_Rx = _imageWidth / Nx;
 		_Ry = _imageHeight / Ny;
 		
-		_image = new BufferedImage(_imageWidth, _imageHeight, BufferedImage.TYPE_INT_RGB);
+		_streamEncoder = streamEncoder;
+		if (_streamEncoder == null) {
+			_image = new BufferedImage(_imageWidth, _imageHeight, BufferedImage.TYPE_INT_RGB);
+			_buffer = new float[3 * _imageWidth * _imageHeight];
+			_bandRows = _imageHeight;
+		}
 	}
 	
 	/**
@@ -87,7 +178,10 @@ public class ImageWriter {
 	public ImageWriter (ImageWriter other) {
 		this(other._imageName,
 			 other._imageWidth, other._imageHeight,
-			 other._Nx, other._Ny);
+			 other._Nx, other._Ny, other._streamEncoder);
+		_directory = other._directory;
+		_encoder = other._encoder;
+		setToneMapper(other._toneMapper);
 	}
 	
 	/**
@@ -143,18 +237,339 @@ public class ImageWriter {
 	}
 	
 	/**
-	 * Function for creating the image into the user directory.
+	 * Getter for the name of the image.
+	 * @return The name of the image, without the extension.
+	 */
+	public String getImageName() {
+		return _imageName;
+	}
+	
+	/**
+	 * Getter for the directory where the image is saved.
+	 * @return The path of the directory.
+	 */
+	public String getDirectory() {
+		return _directory;
+	}
+	
+	/**
+	 * Setter for the directory where the image is saved.
+	 * @param directory The path of the directory. The default 
+	 * is the user directory of the project.
+	 */
+	public void setDirectory(String directory) {
+		_directory = directory == null ? PROJECT_PATH : directory;
+	}
+	
+	/**
+	 * Setter for the encoder that decides the format of the image's file.
+	 * @param encoder The encoder. The default is {@link ImageEncoder#JPEG}.
+	 */
+	public void setEncoder(ImageEncoder encoder) {
+		_encoder = encoder == null ? ImageEncoder.JPEG : encoder;
+	}
+	
+	/**
+	 * Setter for the tone mapper of the displayable (8 bit) formats. The high 
+	 * dynamic range formats get the colors of the framebuffer as they are.
+	 * The tone mapper is copied, so changing it afterwards does not affect the image.
+	 * @param toneMapper The tone mapper, null for clamping the colors at 255.
+	 */
+	public void setToneMapper(ToneMapper toneMapper) {
+		_toneMapper = toneMapper == null ? null : new ToneMapper(toneMapper);
+	}
+	
+	/**
+	 * Getter for the framebuffer, where the red, green and blue of every 
+	 * pixel are kept one after the other, without clamping.
+	 * @return The instance itself! every change in the returned 
+	 * value will affect the image. When the image is streamed, 
+	 * only the current band is returned.
+	 */
+	public float[] getBuffer() {
+		return _buffer;
+	}
+	
+	/**
+	 * Maps the framebuffer with the tone mapper, for the displayable formats.
+	 * @return The tone mapped colors, in the layout of the framebuffer. 
+	 * Without a tone mapper, the framebuffer itself is returned, and its 
+	 * colors are clamped when they are quantized.
+	 */
+	public float[] getDisplayBuffer() {
+		if (_toneMapper == null)
+			return _buffer;
+		if (_display == null || _display.length != _buffer.length)
+			_display = new float[_buffer.length];
+		_toneMapper.apply(_buffer, _display, 0, _buffer.length);
+		return _display;
+	}
+	
+	/**
+	 * Quantizes the framebuffer and returns the 8 bit image.
+	 * @return The instance itself, it is overwritten every time 
+	 * the framebuffer is quantized.
+	 * @throws IllegalStateException When the image is streamed, as 
+	 * it is never kept whole in the memory.
+	 */
+	public BufferedImage getImage() {
+		if (isStreaming())
+			throw new IllegalStateException("A streamed image is not kept in the memory");
+		quantize();
+		return _image;
+	}
+	
+	/**
+	 * Function for creating the image into the directory of the 
+	 * images, with the format of the encoder.
+	 * A streamed image is already in its file, so nothing is done.
+	 * An error is printed, see {@link #writeToFile()} to handle it.
 	 */
 	public void writeToimage(){
-		File ouFile = new File(PROJECT_PATH + "/" + _imageName + ".jpg");
-
 		try {
-			ImageIO.write(_image, "jpg", ouFile);
+			writeToFile();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * Writes the image into the directory of the images, with the format 
+	 * of the encoder, as {@link #writeToimage()} but with its errors thrown.
+	 * @throws IOException In case the file cannot be created or written.
+	 */
+	public void writeToFile() throws IOException {
+		if (isStreaming())
+			return;
+		File ouFile = new File(_directory, _imageName + "." + _encoder.getExtension());
+
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(ouFile))) {
+			_encoder.encode(this, out);
+		}
+	}
+	
+	/**
+	 * Getter for the first row of the image that is in the framebuffer.
+	 * @return The first row of the current band, zero if the image is not streamed.
+	 */
+	int getBandStart() {
+		return _bandStart;
+	}
+	
+	/**
+	 * Checks whether the image is streamed to its file while it is rendered.
+	 * @return True if the image has a stream encoder.
+	 */
+	public boolean isStreaming() {
+		return _streamEncoder != null;
+	}
+	
+	/**
+	 * Starts streaming the image: opens its file and allocates the 
+	 * framebuffer of a single band. The pixels of the first band may 
+	 * be written after that.
+	 * @param bandRows The number of rows of the image in every band.
+	 * The rows of every pixel that is written must be in the current band.
+	 * @throws UncheckedIOException In case the file cannot be created.
+	 */
+	public void openStream(int bandRows) {
+		if (!isStreaming())
+			throw new IllegalStateException("The image has no stream encoder");
+		if (bandRows <= 0)
+			throw new IllegalArgumentException("The number of rows in a band must be positive");
+		_bandRows = Math.min(bandRows, _imageHeight);
+		_bandStart = 0;
+		_streamFailure = null;
+		File outFile = new File(_directory, _imageName + "." + _streamEncoder.getExtension());
+		try {
+			_channel = FileChannel.open(outFile.toPath(), StandardOpenOption.CREATE, 
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			_streamEncoder.begin(_channel, _imageWidth, _imageHeight);
+		} catch (IOException e) {
+			//An error while closing is suppressed in the error of the opening.
+			_streamFailure = e;
+			closeChannel();
+			_streamFailure = null;
+			throw new UncheckedIOException(e);
+		}
+		_buffer = new float[3 * _imageWidth * _bandRows];
+	}
+	
+	/**
+	 * Writes the current band to the file, and moves on to the next band.
+	 * The framebuffer of the next band starts black. In case the band cannot
+	 * be written, the file is closed and the error is thrown by {@link #closeStream()}, 
+	 * so the rendering is not interrupted in the middle of a band.
+	 */
+	public void flushBand() {
+		int rows = Math.min(_bandRows, _imageHeight - _bandStart);
+		if (rows <= 0)
+			return;
+		if (_channel != null) {
+			try {
+				_streamEncoder.writeRows(_streamEncoder.isHighDynamicRange() ? _buffer : getDisplayBuffer(), _bandStart, rows);
+			} catch (IOException e) {
+				_streamFailure = e;
+				closeChannel();
+			}
+		}
+		_bandStart += _bandRows;
+		Arrays.fill(_buffer, 0);
+	}
+	
+	/**
+	 * Completes the streamed image: writes the current band, and black 
+	 * bands for the rows that were not reached, and closes the file.
+	 * @throws UncheckedIOException In case the file could not be written, 
+	 * with the first error of the file.
+	 */
+	public void closeStream() {
+		while (_bandStart < _imageHeight) {
+			flushBand();
+		}
+		if (_channel != null) {
+			try {
+				_streamEncoder.end();
+			} catch (IOException e) {
+				_streamFailure = e;
+			}
+			closeChannel();
+		}
+		_buffer = null;
+		IOException failure = _streamFailure;
+		_streamFailure = null;
+		if (failure != null)
+			throw new UncheckedIOException(failure);
+	}
+	
+	/**
+	 * Closes the file of the streamed image, after it is completed or failed.
+	 * An error while closing is kept, unless there is an earlier error.
+	 */
+	private void closeChannel() {
+		try {
+			if (_channel != null)
+				_channel.close();
+		} catch (IOException e) {
+			if (_streamFailure == null)
+				_streamFailure = e;
+			else
+				_streamFailure.addSuppressed(e);
+		}
+		_channel = null;
+	}
+	
+	/**
+	 * Quantizes the framebuffer into the image, in one pass over 
+	 * the pixels. The colors are tone mapped, and every color 
+	 * component is clamped to 255.
+	 */
+	private void quantize() {
+		int[] data = ((DataBufferInt)_image.getRaster().getDataBuffer()).getData();
+		float[] buffer = getDisplayBuffer();
+		for (int pixel = 0, index = 0; pixel < data.length; pixel++, index += 3) {
+			data[pixel] = (toByte(buffer[index]) << 16) | 
+						  (toByte(buffer[index + 1]) << 8) | 
+						   toByte(buffer[index + 2]);
+		}
+	}
+	
+	/**
+	 * Clamps a color component of the framebuffer to the range of a byte.
+	 * @param component The color component.
+	 * @return The component as an integer between 0 and 255.
+	 */
+	static int toByte(float component) {
+		return component >= 255 ? 255 : (component <= 0 ? 0 : (int)component);
+	}
+	
+	/**
+	 * Puts a color in the framebuffer, in a given (x,y) pixel of the image.
+	 * @param xIndex The x index of the pixel.
+	 * @param yIndex The y index of the pixel.
+	 * @param r The red component of the color.
+	 * @param g The green component of the color.
+	 * @param b The blue component of the color.
+	 */
+	private void putPixel(int xIndex, int yIndex, float r, float g, float b) {
+		int index = 3 * ((yIndex - _bandStart) * _imageWidth + xIndex);
+		_buffer[index] = r;
+		_buffer[index + 1] = g;
+		_buffer[index + 2] = b;
+	}
+	
+	/**
+	 * Puts a color in a given (x,y) pixel of the view plane. In case the 
+	 * view plane is smaller than the image, all the pixels of the image 
+	 * that the view plane's pixel covers get the color.
+	 * @param xIndex The x index of the pixel.
+	 * @param yIndex The y index of the pixel.
+	 * @param r The red component of the color.
+	 * @param g The green component of the color.
+	 * @param b The blue component of the color.
+	 */
+	private void putBlock(int xIndex, int yIndex, float r, float g, float b) {
+		//In case of super sampling, we put only one pixel.
+		//In other cases, we fill the first row of the block, and copy
+		//it to the other rows of the block.
+		int xPixels = (_Rx < 1 ? 1 : (int)_Rx), yPixels = (_Ry < 1 ? 1 : (int)_Ry);
+		int start = 3 * ((yIndex * yPixels - _bandStart) * _imageWidth + xIndex * xPixels), 
+			end = start + 3 * xPixels;
+		for (int index = start; index < end; index += 3) {
+			_buffer[index] = r;
+			_buffer[index + 1] = g;
+			_buffer[index + 2] = b;
+		}
+		for (int row = 1; row < yPixels; row++) {
+			System.arraycopy(_buffer, start, _buffer, start + 3 * row * _imageWidth, end - start);
+		}
+	}
+	
+	/**
+	 * Starts accumulating weighted samples in the pixels of the image.
+	 * The framebuffer is cleared, and every pixel keeps the weighted sum
+	 * of the samples until {@link #endSamples()} divides it by the weights.
+	 * @throws IllegalStateException When the image is streamed.
+	 */
+	public void beginSamples() {
+		if (isStreaming())
+			throw new IllegalStateException("Samples cannot be accumulated in a streamed image");
+		Arrays.fill(_buffer, 0);
+		_weights = new float[_imageWidth * _imageHeight];
+	}
+	
+	/**
+	 * Adds a weighted sample to a given (x,y) pixel of the image. 
+	 * Only one thread may add samples to a pixel at a time.
+	 * @param xIndex The x index of the pixel.
+	 * @param yIndex The y index of the pixel.
+	 * @param r The red component of the sample.
+	 * @param g The green component of the sample.
+	 * @param b The blue component of the sample.
+	 * @param weight The weight of the sample in the pixel.
+	 */
+	public void addSample(int xIndex, int yIndex, float r, float g, float b, float weight) {
+		int pixel = yIndex * _imageWidth + xIndex, index = 3 * pixel;
+		_weights[pixel] += weight;
+		_buffer[index] += weight * r;
+		_buffer[index + 1] += weight * g;
+		_buffer[index + 2] += weight * b;
+	}
+	
+	/**
+	 * Ends accumulating samples: every pixel becomes the weighted average 
+	 * of its samples. A pixel whose weights are not positive becomes black.
+	 */
+	public void endSamples() {
+		for (int pixel = 0, index = 0; pixel < _weights.length; pixel++, index += 3) {
+			float inverse = _weights[pixel] > 0 ? 1 / _weights[pixel] : 0;
+			_buffer[index] *= inverse;
+			_buffer[index + 1] *= inverse;
+			_buffer[index + 2] *= inverse;
+		}
+		_weights = null;
+	}
+	
 	/**
 	 * Puts a new rgb color in a given (x,y) pixel.
 	 * @param xIndex The x index of the pixel.
@@ -164,8 +579,7 @@ public class ImageWriter {
 	 * @param b The blue component of the color.
 	 */
 	public void writePixel(int xIndex, int yIndex, int r, int g, int b){
-		int rgb = new Color(r, g, b).getRGB();
-		_image.setRGB(xIndex, yIndex, rgb);
+		putPixel(xIndex, yIndex, r, g, b);
 	}
 	
 	/**
@@ -175,8 +589,7 @@ public class ImageWriter {
 	 * @param rgbArray Red green and blue are inside of that given array.
 	 */
 	public void writePixel(int xIndex, int yIndex, int[] rgbArray){
-		int rgb = new Color(rgbArray[0], rgbArray[1], rgbArray[2]).getRGB();
-		_image.setRGB(xIndex, yIndex, rgb);
+		putPixel(xIndex, yIndex, rgbArray[0], rgbArray[1], rgbArray[2]);
 	}
 	
 	/**
@@ -188,14 +601,19 @@ public class ImageWriter {
 	 * the given color.
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color){
-		//In case of super sampling, we call the 'setRGB' function only once.
-		//In other cases, we print number of pixels with the same color in the loop.
-		int xPixels = (_Rx < 1 ? 1 : (int)_Rx), yPixels = (_Ry < 1 ? 1 : (int)_Ry);
-		for (int row = 0; row < yPixels; row++) {
-			for (int column = 0; column < xPixels; column++) {
-				_image.setRGB(xIndex * xPixels + column, yIndex * yPixels + row, color.getRGB());
-			}
-		}
+		putBlock(xIndex, yIndex, color.getRed(), color.getGreen(), color.getBlue());
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * Puts a new high dynamic range color in a given (x,y) pixel.
+	 * The components are not clamped until the image is written.
+	 * @param xIndex The x index of the pixel.
+	 * @param yIndex The y index of the pixel.
+	 * @param r The red component of the color.
+	 * @param g The green component of the color.
+	 * @param b The blue component of the color.
+	 */
+	public void writePixel(int xIndex, int yIndex, float r, float g, float b){
+		putBlock(xIndex, yIndex, r, g, b);
+	}
+}
@@ -0,0 +1,60 @@
+package renderer;
+
+/**
+ * The Mitchell-Netravali filter, a cubic with two parameters B and C.
+ * Its negative lobes sharpen the image. The cubic is defined on
+ * [-2, 2], and it is stretched to the radius of the filter.
+ */
+public class MitchellFilter implements ReconstructionFilter {
+	
+	/**
+	 * The radius of the filter.
+	 */
+	private final double _radius;
+	
+	/**
+	 * The parameters of the cubic.
+	 */
+	private final double _b, _c;
+	
+	/**
+	 * Constructor for the filter that Mitchell and Netravali recommend,
+	 * with a radius of 2 pixels and B = C = 1/3.
+	 */
+	public MitchellFilter() {
+		this(2, 1 / 3.0, 1 / 3.0);
+	}
+	
+	/**
+	 * Constructor for a new Mitchell-Netravali filter.
+	 * @param radius The radius of the filter in pixels. Must be positive.
+	 * @param b The B parameter of the cubic.
+	 * @param c The C parameter of the cubic.
+	 */
+	public MitchellFilter(double radius, double b, double c) {
+		if (radius <= 0)
+			throw new IllegalArgumentException("The radius must be positive");
+		_radius = radius;
+		_b = b;
+		_c = c;
+	}
+
+	@Override
+	public double getRadius() {
+		return _radius;
+	}
+
+	@Override
+	public double evaluate(double offset) {
+		double x = Math.abs(2 * offset / _radius);
+		if (x >= 2) {
+			return 0;
+		}
+		if (x >= 1) {
+			return ((-_b - 6 * _c) * x * x * x + (6 * _b + 30 * _c) * x * x +
+					(-12 * _b - 48 * _c) * x + (8 * _b + 24 * _c)) / 6;
+		}
+		return ((12 - 9 * _b - 6 * _c) * x * x * x + (-18 + 12 * _b + 6 * _c) * x * x +
+				(6 - 2 * _b)) / 6;
+	}
+}
@@ -0,0 +1,142 @@
+package renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Encoder of 8 bits RGB PNG images that compresses large images on
+ * several threads. The rows are split into chunks, and every chunk is
+ * compressed on its own and flushed to a byte boundary, so the compressed
+ * chunks are put one after the other as a single stream. The checksum 
+ * of the stream is combined from the checksums of the chunks.
+ * The compression is a little worse than of a single stream, since 
+ * a chunk does not refer to the data of the chunks before it.
+ */
+public class ParallelPngEncoder implements ImageEncoder {
+	
+	/**
+	 * The size of the uncompressed data of a chunk, in bytes.
+	 */
+	private static final int CHUNK_SIZE = 1 << 20;
+	
+	/**
+	 * The modulus of the Adler-32 checksum.
+	 */
+	private static final int ADLER_BASE = 65521;
+	
+	/**
+	 * The number of threads that compress the chunks.
+	 */
+	private final int _threads;
+	
+	/**
+	 * Constructor for a new encoder.
+	 * @param threads The number of threads that compress the chunks.
+	 */
+	public ParallelPngEncoder(int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("The number of threads must be positive");
+		_threads = threads;
+	}
+
+	@Override
+	public String getExtension() {
+		return "png";
+	}
+
+	@Override
+	public void encode(ImageWriter image, OutputStream out) throws IOException {
+		int width = image.getWidth(), height = image.getHeight(), rowSize = 1 + 3 * width;
+		int rowsInChunk = Math.max(1, CHUNK_SIZE / rowSize),
+			numOfChunks = (height + rowsInChunk - 1) / rowsInChunk;
+		float[] buffer = image.getDisplayBuffer();
+		byte[][] compressed = new byte[numOfChunks][];
+		int[] checksums = new int[numOfChunks];
+		
+		AtomicInteger nextChunk = new AtomicInteger(0);
+		Runnable worker = () -> {
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			byte[] output = new byte[1 << 16];
+			for (int chunk = nextChunk.getAndIncrement(); chunk < numOfChunks; chunk = nextChunk.getAndIncrement()) {
+				int firstRow = chunk * rowsInChunk, rows = Math.min(rowsInChunk, height - firstRow);
+				byte[] filtered = new byte[rows * rowSize];
+				for (int row = 0; row < rows; row++) {
+					PngStreamEncoder.filterRow(buffer, 3 * (firstRow + row) * width, width, filtered, row * rowSize);
+				}
+				Adler32 adler = new Adler32();
+				adler.update(filtered);
+				checksums[chunk] = (int)adler.getValue();
+				
+				//Every chunk but the last is flushed to a byte boundary,
+				//the last one ends the stream.
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				deflater.reset();
+				deflater.setInput(filtered);
+				if (chunk == numOfChunks - 1) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						bytes.write(output, 0, deflater.deflate(output));
+					}
+				} else {
+					int length;
+					do {
+						length = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+						bytes.write(output, 0, length);
+					} while (length == output.length);
+				}
+				compressed[chunk] = bytes.toByteArray();
+			}
+			deflater.end();
+		};
+		Workers.run(worker, _threads, "encode");
+		
+		out.write(PngStreamEncoder.SIGNATURE);
+		//8 bits per sample, true color, no interlace.
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(width).putInt(height).put((byte)8).put((byte)2).put((byte)0).put((byte)0).put((byte)0);
+		write(out, PngStreamEncoder.chunk("IHDR", header.array(), 0, 13));
+		//The header of the zlib stream (deflate with a 32K window, default compression).
+		write(out, PngStreamEncoder.chunk("IDAT", new byte[] {0x78, (byte)0x9C}, 0, 2));
+		int checksum = 1;
+		for (int chunk = 0; chunk < numOfChunks; chunk++) {
+			write(out, PngStreamEncoder.chunk("IDAT", compressed[chunk], 0, compressed[chunk].length));
+			checksum = combineAdler(checksum, checksums[chunk], (long)Math.min(rowsInChunk, height - chunk * rowsInChunk) * rowSize);
+		}
+		write(out, PngStreamEncoder.chunk("IDAT", ByteBuffer.allocate(4).putInt(checksum).array(), 0, 4));
+		write(out, PngStreamEncoder.chunk("IEND", new byte[0], 0, 0));
+	}
+	
+	/**
+	 * Combines the Adler-32 checksums of two consecutive blocks of data
+	 * into the checksum of the whole data (as zlib's adler32_combine).
+	 * @param first The checksum of the first block.
+	 * @param second The checksum of the second block.
+	 * @param secondLength The length of the second block in bytes.
+	 * @return The checksum of the first block followed by the second block.
+	 */
+	static int combineAdler(int first, int second, long secondLength) {
+		long remainder = secondLength % ADLER_BASE;
+		long sum1 = first & 0xFFFF, 
+			 sum2 = (remainder * sum1) % ADLER_BASE;
+		sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+		sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+		sum1 %= ADLER_BASE;
+		sum2 %= ADLER_BASE;
+		return (int)(sum1 | (sum2 << 16));
+	}
+	
+	/**
+	 * Writes the bytes of a chunk.
+	 * @param out The stream of the file.
+	 * @param chunk The chunk.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	private static void write(OutputStream out, ByteBuffer chunk) throws IOException {
+		out.write(chunk.array(), chunk.position(), chunk.remaining());
+	}
+}
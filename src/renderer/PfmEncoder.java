@@ -0,0 +1,39 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder of the high dynamic range framebuffer in the Portable Float Map format.
+ * The colors are written as they are, without clamping, as 32 bit floats where 
+ * 1.0 is the color component 255. The rows are written from the bottom up,
+ * as the format requires.
+ */
+public class PfmEncoder implements ImageEncoder {
+
+	@Override
+	public String getExtension() {
+		return "pfm";
+	}
+
+	@Override
+	public void encode(ImageWriter image, OutputStream out) throws IOException {
+		int width = image.getWidth(), height = image.getHeight();
+		float[] buffer = image.getBuffer();
+		
+		//A negative scale means little endian floats.
+		out.write(("PF\n" + width + " " + height + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII));
+		
+		ByteBuffer row = ByteBuffer.allocate(12 * width).order(ByteOrder.LITTLE_ENDIAN);
+		for (int y = height - 1; y >= 0; y--) {
+			row.clear();
+			for (int index = 3 * y * width; index < 3 * (y + 1) * width; index++) {
+				row.putFloat(buffer[index] / 255f);
+			}
+			out.write(row.array(), 0, row.position());
+		}
+	}
+}
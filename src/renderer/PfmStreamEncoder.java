@@ -0,0 +1,79 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stream encoder of the Portable Float Map format (see {@link PfmEncoder}).
+ * The format keeps its rows from the bottom up, and every row has a fixed 
+ * size, so every band is written straight to its place in the file.
+ */
+public class PfmStreamEncoder implements StreamEncoder {
+	
+	/**
+	 * The channel of the current image's file.
+	 */
+	private FileChannel _channel;
+	
+	/**
+	 * The size of the header, in bytes.
+	 */
+	private long _headerSize;
+	
+	/**
+	 * The dimensions of the current image.
+	 */
+	private int _width, _height;
+	
+	/**
+	 * The bytes of a single row, for reusing.
+	 */
+	private ByteBuffer _row;
+
+	@Override
+	public String getExtension() {
+		return "pfm";
+	}
+
+	@Override
+	public boolean isHighDynamicRange() {
+		return true;
+	}
+
+	@Override
+	public void begin(FileChannel channel, int width, int height) throws IOException {
+		_channel = channel;
+		_width = width;
+		_height = height;
+		_row = ByteBuffer.allocate(12 * width).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer header = ByteBuffer.wrap(("PF\n" + width + " " + height + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII));
+		_headerSize = header.remaining();
+		while (header.hasRemaining()) {
+			channel.write(header, header.position());
+		}
+	}
+
+	@Override
+	public void writeRows(float[] band, int firstRow, int numOfRows) throws IOException {
+		for (int row = 0; row < numOfRows; row++) {
+			_row.clear();
+			for (int index = 3 * row * _width; index < 3 * (row + 1) * _width; index++) {
+				_row.putFloat(band[index] / 255f);
+			}
+			_row.flip();
+			long position = _headerSize + (long)(_height - 1 - (firstRow + row)) * _row.capacity();
+			while (_row.hasRemaining()) {
+				_channel.write(_row, position + _row.position());
+			}
+		}
+	}
+
+	@Override
+	public void end() throws IOException {
+		_channel = null;
+		_row = null;
+	}
+}
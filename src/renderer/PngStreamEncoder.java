@@ -0,0 +1,185 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Stream encoder of 8 bits RGB PNG images. The rows are filtered and 
+ * compressed as they arrive, and every full buffer of compressed data 
+ * is written as an IDAT chunk, so only a single row and the state of
+ * the compression are kept in the memory.
+ */
+public class PngStreamEncoder implements StreamEncoder {
+	
+	/**
+	 * The signature of every PNG file.
+	 */
+	static final byte[] SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	
+	/**
+	 * The filter type of the rows (Sub).
+	 */
+	private static final byte SUB_FILTER = 1;
+	
+	/**
+	 * The size of the buffer of the compressed data, and the largest IDAT chunk.
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+	
+	/**
+	 * The compression level of the encoder.
+	 */
+	private final int _level;
+	
+	/**
+	 * The channel of the current image's file.
+	 */
+	private FileChannel _channel;
+	
+	/**
+	 * The width of the current image.
+	 */
+	private int _width;
+	
+	/**
+	 * The compressor of the current image.
+	 */
+	private Deflater _deflater;
+	
+	/**
+	 * The filtered row, and the compressed data that was not written yet.
+	 */
+	private byte[] _row, _compressed;
+	
+	/**
+	 * Constructor for an encoder with the default compression level.
+	 */
+	public PngStreamEncoder() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	/**
+	 * Constructor for a new encoder.
+	 * @param level The compression level, from 0 (fastest) to 9 (smallest), or -1 for the default.
+	 */
+	public PngStreamEncoder(int level) {
+		if (level < -1 || level > 9)
+			throw new IllegalArgumentException("The compression level must be between -1 and 9");
+		_level = level;
+	}
+
+	@Override
+	public String getExtension() {
+		return "png";
+	}
+
+	@Override
+	public void begin(FileChannel channel, int width, int height) throws IOException {
+		_channel = channel;
+		_width = width;
+		_deflater = new Deflater(_level);
+		_row = new byte[1 + 3 * width];
+		_compressed = new byte[CHUNK_SIZE];
+		
+		write(ByteBuffer.wrap(SIGNATURE));
+		//8 bits per sample, true color, no interlace.
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(width).putInt(height).put((byte)8).put((byte)2).put((byte)0).put((byte)0).put((byte)0);
+		write(chunk("IHDR", header.array(), 0, 13));
+	}
+
+	@Override
+	public void writeRows(float[] band, int firstRow, int numOfRows) throws IOException {
+		for (int row = 0; row < numOfRows; row++) {
+			filterRow(band, 3 * row * _width, _width, _row, 0);
+			_deflater.setInput(_row);
+			while (!_deflater.needsInput()) {
+				deflate();
+			}
+		}
+	}
+
+	@Override
+	public void end() throws IOException {
+		_deflater.finish();
+		while (!_deflater.finished()) {
+			deflate();
+		}
+		_deflater.end();
+		write(chunk("IEND", new byte[0], 0, 0));
+		_deflater = null;
+		_channel = null;
+		_row = _compressed = null;
+	}
+	
+	/**
+	 * Compresses the pending input into the buffer, and writes the buffer as
+	 * an IDAT chunk when it is full or the compression is done.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	private void deflate() throws IOException {
+		int length = _deflater.deflate(_compressed);
+		if (length > 0) {
+			write(chunk("IDAT", _compressed, 0, length));
+		}
+	}
+	
+	/**
+	 * Quantizes and filters a row of the framebuffer with the Sub filter.
+	 * @param buffer The framebuffer.
+	 * @param first The index of the red of the row's first pixel in the framebuffer.
+	 * @param width The number of pixels in the row.
+	 * @param row The filtered row: the filter type and then 3 bytes for every pixel.
+	 * @param offset The index of the filter type in {@code row}.
+	 */
+	static void filterRow(float[] buffer, int first, int width, byte[] row, int offset) {
+		row[offset] = SUB_FILTER;
+		//Every byte is saved as the difference from the same channel of the pixel to its left.
+		int red = 0, green = 0, blue = 0;
+		for (int x = 0; x < width; x++) {
+			int r = ImageWriter.toByte(buffer[first + 3 * x]),
+				g = ImageWriter.toByte(buffer[first + 3 * x + 1]),
+				b = ImageWriter.toByte(buffer[first + 3 * x + 2]);
+			row[offset + 1 + 3 * x] = (byte)(r - red);
+			row[offset + 2 + 3 * x] = (byte)(g - green);
+			row[offset + 3 + 3 * x] = (byte)(b - blue);
+			red = r;
+			green = g;
+			blue = b;
+		}
+	}
+	
+	/**
+	 * Builds a chunk: its length, type, data and CRC.
+	 * @param type The type of the chunk.
+	 * @param data The data of the chunk.
+	 * @param offset The index of the first byte of the data.
+	 * @param length The length of the data.
+	 * @return The bytes of the chunk, ready to be written.
+	 */
+	static ByteBuffer chunk(String type, byte[] data, int offset, int length) {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, offset, length);
+		ByteBuffer chunk = ByteBuffer.allocate(12 + length);
+		chunk.putInt(length).put(typeBytes).put(data, offset, length).putInt((int)crc.getValue());
+		chunk.flip();
+		return chunk;
+	}
+	
+	/**
+	 * Writes the whole buffer at the end of the file.
+	 * @param buffer The bytes to write.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			_channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package renderer;
+
+/**
+ * Interface for a reconstruction filter of the super sampling. Every sample
+ * is splatted into all the pixels around it that are within the radius of 
+ * the filter, with the filter's weight, and every pixel is the weighted 
+ * average of the samples that were splatted into it.
+ * The filters are separable: the weight of a sample in a pixel is 
+ * the product of the filter along x and along y.
+ */
+public interface ReconstructionFilter {
+	
+	/**
+	 * Getter for the radius of the filter.
+	 * @return The distance, in pixels of the image, beyond which the weight is zero.
+	 */
+	public double getRadius();
+	
+	/**
+	 * Evaluates the filter along one axis.
+	 * @param offset The offset from the center of the pixel to the sample, in pixels of the image.
+	 * @return The weight of the sample along the axis. May be negative.
+	 */
+	public double evaluate(double offset);
+}
@@ -1,17 +1,24 @@
 package renderer;
 
 import primitives.Color;
+import primitives.ColorAccumulator;
 import primitives.Material;
 import primitives.Point3D;
 import primitives.Ray;
 import primitives.Vector;
 import scene.Scene;
+import util.RandomStream;
+import util.TraversalStats;
 import util.calcs;
 import util.random;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import elements.*;
 import geometries.Geometry;
@@ -34,6 +41,38 @@ public class Renderer {
 	 * the reflected and refracted colors.
 	 */
 	private final double NUM_REF_RAYS = 5;
+	
+	/**
+	 * The size, in pixels of the final image, of the square 
+	 * tiles that the rendering threads take one at a time.
+	 */
+	private final int TILE_SIZE = 32;
+	
+	/**
+	 * The largest difference between the shadow factors of the probe 
+	 * samples of a volumed light source, for which they still agree.
+	 */
+	private final double SHADOW_AGREEMENT = 1e-3;
+	
+	/**
+	 * The array of every rendering thread into which the emissions of the hits are looked up.
+	 */
+	private final ThreadLocal<double[]> _emission = ThreadLocal.withInitial(() -> new double[3]);
+	
+	/**
+	 * The array of every rendering thread into which the samples on the disks 
+	 * of the light sources are taken, in the disk's frame and in the world.
+	 */
+	private final ThreadLocal<double[]> _diskSample = ThreadLocal.withInitial(() -> new double[6]);
+	
+	/**
+	 * The arrays of every rendering thread into which the lights of a point are 
+	 * selected. They are reused in every shading point, since the lights are 
+	 * selected only after the recursion of the previous point returned, and they
+	 * grow when a selector may select more lights than they have room for.
+	 */
+	private final ThreadLocal<LightSource[]> _selectedLights = ThreadLocal.withInitial(() -> new LightSource[0]);
+	private final ThreadLocal<double[]> _lightWeights = ThreadLocal.withInitial(() -> new double[0]);
 		
 	/**
 	 * The scene from which we build the image.
@@ -45,6 +84,63 @@ public class Renderer {
 	 */
 	private ImageWriter _imageWriter;
 	
+	/**
+	 * The number of threads that render the image.
+	 */
+	private int _threads = 1;
+	
+	/**
+	 * The seed of the frame. The random stream of every pixel 
+	 * is derived from this seed and the pixel's index, so the same seed
+	 * gives the same image regardless of the number of threads.
+	 */
+	private long _seed = 0;
+	
+	/**
+	 * The path of the checkpoint file of the render, null for a
+	 * render without a checkpoint.
+	 */
+	private String _checkpointPath = null;
+	
+	/**
+	 * The time between two forces of the checkpoint to the disk, in milliseconds.
+	 */
+	private long _checkpointInterval = 10000;
+	
+	/**
+	 * The checkpoint of the current render, null if there is none.
+	 */
+	private Checkpoint _checkpoint;
+	
+	/**
+	 * The reconstruction filter of the super sampling, null for 
+	 * averaging the samples of every pixel (a box filter).
+	 */
+	private ReconstructionFilter _filter = null;
+	
+	/**
+	 * The weights of the filter for the current render. The weight of the
+	 * sample in the column {@code i} of a pixel, in the pixel that is {@code k}
+	 * columns from it, is {@code _filterWeightsX[i][k + _filterReach]}, and the same for the rows.
+	 */
+	private float[][] _filterWeightsX, _filterWeightsY;
+	private int _filterReach;
+	
+	/**
+	 * Whether the auxiliary buffers are rendered with the image.
+	 */
+	private boolean _aovsEnabled = false;
+	
+	/**
+	 * The auxiliary buffers of the last render, null if they were not rendered.
+	 */
+	private AovBuffers _aovs = null;
+	
+	/**
+	 * The denoiser that is applied to the image after it is rendered, null for none.
+	 */
+	private Denoiser _denoiser = null;
+	
 	/**
 	 * Inner class so the scene information can be 
 	 * saved more easelly when rendering an image.
@@ -150,31 +246,270 @@ public class Renderer {
 	 * Filling the buffer according to the geometries that are in the scene.
 	 * This function does not creating the picture, but rather filling the pixels 
 	 * according to the scene.
+	 * When the image writer streams the image, the tiles are rendered one 
+	 * row of tiles after the other, and every row of tiles is written to 
+	 * the file before the next one is rendered.
+	 * With a checkpoint, every completed tile is saved, and the tiles 
+	 * that were completed by a former render of the same settings are 
+	 * restored instead of being rendered again.
+	 * With a reconstruction filter, the samples are splatted into the pixels 
+	 * around them, so the tiles are rendered in four phases, in which no two 
+	 * tiles are next to each other, and no two threads splat into the same pixel.
+	 * With a denoiser, the image is denoised at the end, guided by the auxiliary buffers.
+	 * If the calling thread is interrupted, the rendering threads stop after their 
+	 * current tiles, and the function returns only when they have all stopped, 
+	 * with the interrupt flag of the calling thread set.
 	 */
 	public void renderImage() {
 		
 		_info.Initialize();
 		_scene.getGeometries().createTree();
+		_scene.getLightSelector().build(_scene.getLights());
 		int numInx = _info.Nx / _info.width, numIny = _info.Ny / _info.height;
 		
-		//In that case there is no super sampling.
-		if (_info.Nx <= _info.width && _info.Ny <= _info.height) {
-			for (int row = 0; row < _info.Ny; row++) {
-				System.out.println(row);
-				for (int column = 0; column < _info.Nx; column++) {
-					processPixel(row,column);
+		//In that case there is no super sampling, and every tile is 
+		//made of view plane pixels. Otherwise, every tile is made of 
+		//pixels of the final image.
+		boolean superSampling = !(_info.Nx <= _info.width && _info.Ny <= _info.height);
+		int columns = superSampling ? _info.width : _info.Nx,
+			rows = superSampling ? _info.height : _info.Ny;
+		int tilesInRow = (columns + TILE_SIZE - 1) / TILE_SIZE,
+			rowsOfTiles = (rows + TILE_SIZE - 1) / TILE_SIZE;
+		if (superSampling && _filter != null && (_imageWriter.isStreaming() || _checkpointPath != null))
+			throw new IllegalStateException("A reconstruction filter cannot be used with streaming or checkpoints");
+		if ((_aovsEnabled || _denoiser != null) && (_imageWriter.isStreaming() || _checkpointPath != null))
+			throw new IllegalStateException("Auxiliary buffers cannot be used with streaming or checkpoints");
+		_aovs = _aovsEnabled || _denoiser != null ? new AovBuffers(_info.width, _info.height) : null;
+		
+		if (_checkpointPath != null) {
+			try {
+				_checkpoint = new Checkpoint(new File(_checkpointPath), _checkpointInterval, 
+						_imageWriter, _seed, TILE_SIZE, tilesInRow * rowsOfTiles);
+			} catch (IOException e) {
+				//The image is rendered anyway, only without a checkpoint.
+				e.printStackTrace();
+			}
+		}
+		
+		boolean completed = false;
+		try {
+			if (superSampling && _filter != null) {
+				prepareFilter(numInx, numIny);
+				_imageWriter.beginSamples();
+				for (int phase = 0; phase < 4; phase++) {
+					renderTiles(0, tilesInRow * rowsOfTiles, tilesInRow, rows, columns, superSampling, numInx, numIny, phase);
 				}
-			} 
-			
-		//Here (else) we need to deal with super sampling.
-		} else {
-			for (int row = 0; row < _info.height; row++) {
-				System.out.println(row);
-				for (int column = 0; column < _info.width; column++) {
-					processSuperSamplingPixel(row, column, numInx, numIny);
+				_imageWriter.endSamples();
+				_filterWeightsX = _filterWeightsY = null;
+			} else if (!_imageWriter.isStreaming()) {
+				renderTiles(0, tilesInRow * rowsOfTiles, tilesInRow, rows, columns, superSampling, numInx, numIny, -1);
+			} else {
+				//A row of tiles covers this number of rows of the final image.
+				_imageWriter.openStream(TILE_SIZE * (superSampling ? 1 : Math.max(1, _info.height / _info.Ny)));
+				for (int rowOfTiles = 0; rowOfTiles < rowsOfTiles; rowOfTiles++) {
+					renderTiles(rowOfTiles * tilesInRow, (rowOfTiles + 1) * tilesInRow, tilesInRow, rows, columns, superSampling, numInx, numIny, -1);
+					_imageWriter.flushBand();
+				}
+				_imageWriter.closeStream();
+			}
+			completed = !Thread.currentThread().isInterrupted();
+		} finally {
+			//The checkpoint of an interrupted or failed render is kept for resuming it.
+			if (_checkpoint != null) {
+				_checkpoint.close(completed);
+				_checkpoint = null;
+			}
+		}
+		if (_denoiser != null) {
+			_denoiser.denoise(_imageWriter.getBuffer(), _aovs, _threads);
+		}
+	}
+	
+	/**
+	 * Renders a range of tiles on all the rendering threads.
+	 * @param firstTile The index of the first tile.
+	 * @param lastTile The index after the last tile.
+	 * @param tilesInRow The number of tiles in every row of tiles.
+	 * @param rows The number of rows of pixels that are rendered.
+	 * @param columns The number of columns of pixels that are rendered.
+	 * @param superSampling Whether every pixel is a pixel of the final image
+	 * that is super sampled, or a pixel of the view plane.
+	 * @param numInx Indicates how many columns there are in every final pixel. 
+	 * @param numIny Indicates how many rows there are in every final pixel. 
+	 * @param phase The phase of the tiles that are rendered: the parity of the row of 
+	 * the tile times 2 plus the parity of its column. -1 for rendering all the tiles.
+	 */
+	private void renderTiles(int firstTile, int lastTile, int tilesInRow, int rows, int columns, 
+							 boolean superSampling, int numInx, int numIny, int phase) {
+		//The number of pixels of the final image in every rendered pixel.
+		int blockWidth = superSampling ? 1 : Math.max(1, _info.width / _info.Nx),
+			blockHeight = superSampling ? 1 : Math.max(1, _info.height / _info.Ny);
+		
+		if (_checkpoint != null) {
+			for (int tile = firstTile; tile < lastTile; tile++) {
+				if (_checkpoint.isDone(tile)) {
+					int firstRow = (tile / tilesInRow) * TILE_SIZE, 
+						firstColumn = (tile % tilesInRow) * TILE_SIZE;
+					_checkpoint.restore(_imageWriter.getBuffer(), _imageWriter.getBandStart(),
+							firstColumn * blockWidth, firstRow * blockHeight, 
+							Math.min(firstColumn + TILE_SIZE, columns) * blockWidth, 
+							Math.min(firstRow + TILE_SIZE, rows) * blockHeight);
 				}
 			}
 		}
+		
+		AtomicInteger nextTile = new AtomicInteger(firstTile);
+		Runnable worker = () -> {
+			for (int tile = nextTile.getAndIncrement(); tile < lastTile; tile = nextTile.getAndIncrement()) {
+				//An interrupted render stops between tiles, the tiles that are done are kept.
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				if (_checkpoint != null && _checkpoint.isDone(tile)) {
+					continue;
+				}
+				if (phase >= 0 && 2 * ((tile / tilesInRow) % 2) + (tile % tilesInRow) % 2 != phase) {
+					continue;
+				}
+				int firstRow = (tile / tilesInRow) * TILE_SIZE, 
+					firstColumn = (tile % tilesInRow) * TILE_SIZE;
+				for (int row = firstRow; row < Math.min(firstRow + TILE_SIZE, rows); row++) {
+					for (int column = firstColumn; column < Math.min(firstColumn + TILE_SIZE, columns); column++) {
+						if (superSampling) {
+							processSuperSamplingPixel(row, column, numInx, numIny);
+						} else {
+							processPixel(row, column);
+						}
+					}
+				}
+				if (_checkpoint != null) {
+					_checkpoint.save(tile, _imageWriter.getBuffer(), _imageWriter.getBandStart(),
+							firstColumn * blockWidth, firstRow * blockHeight, 
+							Math.min(firstColumn + TILE_SIZE, columns) * blockWidth, 
+							Math.min(firstRow + TILE_SIZE, rows) * blockHeight);
+				}
+			}
+		};
+		Workers.run(worker, _threads, "render");
+	}
+	
+	/**
+	 * Setter for the number of threads that render the image.
+	 * @param threads The number of threads. If the parameter is
+	 * not positive, the function would do nothing.
+	 */
+	public void setThreads(int threads) {
+		if (threads > 0) {
+			_threads = threads;
+		}
+	}
+	
+	/**
+	 * Setter for the seed of the frame. Rendering the same scene 
+	 * with the same seed gives the same image.
+	 * @param seed The seed of the frame.
+	 */
+	public void setSeed(long seed) {
+		_seed = seed;
+	}
+	
+	/**
+	 * Sets a checkpoint file for the render. Every completed tile is saved in the 
+	 * file, so if the render is stopped, rendering again the same scene with the 
+	 * same settings (and the same checkpoint) continues from where it stopped.
+	 * The settings in the file are checked, but the scene is not. The file is 
+	 * deleted when the render is completed.
+	 * @param path The path of the checkpoint file, null for a render without checkpoint.
+	 * @param interval The time between two forces of the file to the disk, in milliseconds.
+	 * Until the file is forced, the saved tiles survive a crash of the process, 
+	 * but may not survive a crash of the system.
+	 */
+	public void setCheckpoint(String path, long interval) {
+		if (interval < 0)
+			throw new IllegalArgumentException("The interval must not be negative");
+		_checkpointPath = path;
+		_checkpointInterval = interval;
+	}
+	
+	/**
+	 * Setter for the reconstruction filter of the super sampling. A filter 
+	 * that is wider than a pixel blends every sample into the pixels around it,
+	 * which gives smoother edges for the same number of samples.
+	 * The filter is used only with super sampling, and not with streaming or checkpoints.
+	 * @param filter The filter, null for averaging the samples of every pixel.
+	 * The radius of the filter must not be larger than half a tile.
+	 */
+	public void setFilter(ReconstructionFilter filter) {
+		if (filter != null && filter.getRadius() > TILE_SIZE / 2)
+			throw new IllegalArgumentException("The radius of the filter must not be larger than " + TILE_SIZE / 2);
+		_filter = filter;
+	}
+	
+	/**
+	 * Computes the weights of the filter for every position of a sample 
+	 * inside a pixel. The samples are in the centers of the view plane's pixels, 
+	 * so there are only {@code numInx} different weights along x, and the same along y.
+	 * @param numInx Indicates how many columns there are in every final pixel. 
+	 * @param numIny Indicates how many rows there are in every final pixel. 
+	 */
+	private void prepareFilter(int numInx, int numIny) {
+		_filterReach = (int)Math.ceil(_filter.getRadius());
+		_filterWeightsX = filterWeights(numInx);
+		_filterWeightsY = filterWeights(numIny);
+	}
+	
+	/**
+	 * Computes the weights of the filter along one axis.
+	 * @param numOfSamples The number of samples along the axis in every pixel.
+	 * @return The weights of every sample in the pixels around it.
+	 */
+	private float[][] filterWeights(int numOfSamples) {
+		float[][] weights = new float[numOfSamples][2 * _filterReach + 1];
+		for (int sample = 0; sample < numOfSamples; sample++) {
+			for (int k = -_filterReach; k <= _filterReach; k++) {
+				//From the center of the sample to the center of the pixel.
+				weights[sample][k + _filterReach] = (float)_filter.evaluate(k + 0.5 - (sample + 0.5) / numOfSamples);
+			}
+		}
+		return weights;
+	}
+	
+	/**
+	 * Setter for rendering the auxiliary buffers with the image: the albedo, normal, 
+	 * depth and geometry of the first hit, and the work (rays and visited nodes) of every pixel.
+	 * @param enabled Whether the auxiliary buffers are rendered. 
+	 * They are always rendered when there is a denoiser.
+	 */
+	public void setAovs(boolean enabled) {
+		_aovsEnabled = enabled;
+	}
+	
+	/**
+	 * Getter for the auxiliary buffers of the last render.
+	 * @return The auxiliary buffers, null if they were not rendered.
+	 */
+	public AovBuffers getAovs() {
+		return _aovs;
+	}
+	
+	/**
+	 * Getter for the image of the renderer, which is a copy of the image
+	 * writer that the renderer was constructed with.
+	 * @return The instance itself! the image of the next render is rendered
+	 * into it, unless it was handed to an encoding queue.
+	 */
+	public ImageWriter getImageWriter() {
+		return _imageWriter;
+	}
+	
+	/**
+	 * Setter for the denoiser that is applied to the image after it is rendered.
+	 * The denoiser is guided by the auxiliary buffers, which are rendered 
+	 * for it, hence it cannot be used with streaming or checkpoints.
+	 * @param denoiser The denoiser, null for none.
+	 */
+	public void setDenoiser(Denoiser denoiser) {
+		_denoiser = denoiser;
 	}
 	
 	/**
@@ -185,7 +520,16 @@ public class Renderer {
 	 */
 	private void processPixel(int row, int column)
 	{
-		_imageWriter.writePixel(column, row, viewPlanePixelColor(row, column).getColor());
+		float[] aov = _aovs == null ? null : AovBuffers.newSample();
+		TraversalStats stats = TraversalStats.get();
+		long rays = stats.getRays(), nodes = stats.getNodesVisited();
+		Color color = viewPlanePixelColor(row, column, aov, 1);
+		writePixel(row, column, color);
+		if (aov != null) {
+			countWork(aov, stats, rays, nodes);
+			int blockWidth = Math.max(1, _info.width / _info.Nx), blockHeight = Math.max(1, _info.height / _info.Ny);
+			_aovs.putBlock(column * blockWidth, row * blockHeight, blockWidth, blockHeight, aov);
+		}
 	}	
 
 	/**
@@ -197,15 +541,76 @@ public class Renderer {
 	 */
 	private void processSuperSamplingPixel(int row, int column, int numInx, int numIny)
 	{
-		Color AveragePixelColor = Color.black;
+		float[] aov = _aovs == null ? null : AovBuffers.newSample();
+		double aovWeight = 1 / (double)(numInx * numIny);
+		TraversalStats stats = TraversalStats.get();
+		long rays = stats.getRays(), nodes = stats.getNodesVisited();
+		if (_filterWeightsX != null) {
+			for (int insidePixel_Y = 0; insidePixel_Y < numIny; insidePixel_Y++) {
+				for (int insidePixel_X = 0; insidePixel_X < numInx; insidePixel_X++) {
+					splat(row, column, insidePixel_X, insidePixel_Y, 
+						  viewPlanePixelColor(numIny * row + insidePixel_Y, numInx * column + insidePixel_X, aov, aovWeight));
+				} 
+			}
+			if (aov != null) {
+				countWork(aov, stats, rays, nodes);
+				_aovs.putBlock(column, row, 1, 1, aov);
+			}
+			return;
+		}
+		ColorAccumulator averagePixelColor = new ColorAccumulator();
 		//The next two loops are for the super sampling effect.
 		for (int insidePixel_Y = 0; insidePixel_Y < numIny; insidePixel_Y++) {
 			for (int insidePixel_X = 0; insidePixel_X < numInx; insidePixel_X++) {
-				AveragePixelColor = AveragePixelColor.add(viewPlanePixelColor(numIny * row + insidePixel_Y, numInx * column + insidePixel_X));
+				averagePixelColor.add(viewPlanePixelColor(numIny * row + insidePixel_Y, numInx * column + insidePixel_X, aov, aovWeight));
 			} 
 		}
-		AveragePixelColor = AveragePixelColor.scale(1/(double)(numInx*numIny));
-		_imageWriter.writePixel(column, row , AveragePixelColor.getColor());
+		averagePixelColor.scale(1/(double)(numInx*numIny));
+		_imageWriter.writePixel(column, row, (float)averagePixelColor.getRed(), (float)averagePixelColor.getGreen(), (float)averagePixelColor.getBlue());
+		if (aov != null) {
+			countWork(aov, stats, rays, nodes);
+			_aovs.putBlock(column, row, 1, 1, aov);
+		}
+	}
+	
+	/**
+	 * Splats a sample into the pixels of the image around it, with the weights of the filter.
+	 * @param row The final image's row of the sample.
+	 * @param column The final image's column of the sample.
+	 * @param insidePixel_X The column of the sample inside the pixel.
+	 * @param insidePixel_Y The row of the sample inside the pixel.
+	 * @param color The color of the sample.
+	 */
+	private void splat(int row, int column, int insidePixel_X, int insidePixel_Y, Color color)
+	{
+		float r = (float)color.getRed(), g = (float)color.getGreen(), b = (float)color.getBlue();
+		float[] weightsX = _filterWeightsX[insidePixel_X], weightsY = _filterWeightsY[insidePixel_Y];
+		int firstRow = Math.max(row - _filterReach, 0), lastRow = Math.min(row + _filterReach, _info.height - 1),
+			firstColumn = Math.max(column - _filterReach, 0), lastColumn = Math.min(column + _filterReach, _info.width - 1);
+		for (int y = firstRow; y <= lastRow; y++) {
+			float weightY = weightsY[y - row + _filterReach];
+			if (weightY == 0) {
+				continue;
+			}
+			for (int x = firstColumn; x <= lastColumn; x++) {
+				float weight = weightY * weightsX[x - column + _filterReach];
+				if (weight != 0) {
+					_imageWriter.addSample(x, y, r, g, b, weight);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the given color, without clamping it, to the 
+	 * ({@code column}, {@code row}) pixel of the image writer's framebuffer.
+	 * @param row The row indicator.
+	 * @param column The column indicator.
+	 * @param color The color of the pixel.
+	 */
+	private void writePixel(int row, int column, Color color)
+	{
+		_imageWriter.writePixel(column, row, (float)color.getRed(), (float)color.getGreen(), (float)color.getBlue());
 	}
 	
 	/**
@@ -214,32 +619,100 @@ public class Renderer {
 	 * {@code 0 <= ViewPlaneRow < }{@link sceneInfo#Ny}
 	 * @param ViewPlaneColumn The view plane's column indicator. The range of {@code ViewPlaneRow} is: <br> 
 	 * {@code 0 <= ViewPlaneColumn < }{@link sceneInfo#Nx}
+	 * @param aov The sample of the auxiliary buffers, into which the first hits of the 
+	 * pixel's rays are accumulated, or null if the auxiliary buffers are not rendered.
+	 * @param aovWeight The weight of this pixel of the view plane in the sample.
 	 * @return The appropriate color of the given (column, row) index 
 	 * of the view plane.
 	 */
-	private Color viewPlanePixelColor(int ViewPlaneRow, int ViewPlaneColumn)
+	private Color viewPlanePixelColor(int ViewPlaneRow, int ViewPlaneColumn, float[] aov, double aovWeight)
 	{
+		//Every pixel has its own random stream, whichever thread renders it.
+		random.getStream().setSeed(RandomStream.seedFor(_seed, ViewPlaneRow, ViewPlaneColumn));
 		ArrayList<Ray> rays = _info.camera.constructPixelRays(_info.Nx, _info.Ny, ViewPlaneRow, ViewPlaneColumn, _info.distance, _info.width, _info.height, _info.focalPlane);
 		Map<Geometry, List<Point3D>> intersectionPoints;
-		Color rayColor, toReturn = Color.black;
+		ColorAccumulator toReturn = new ColorAccumulator();
 		for (int focalIndex = 0; focalIndex < rays.size(); focalIndex++) {
 			intersectionPoints = _scene.getGeometries().findMapOfIntersections(rays.get(focalIndex));
 			if (intersectionPoints.size() == 0) {
-				toReturn = toReturn.add(_info.background);
+				toReturn.add(_info.background);
+				if (aov != null) {
+					addAovSample(aov, aovWeight / rays.size(), null, rays.get(focalIndex));
+				}
 			} else {
-				rayColor = calcColor(getClosestPoint(intersectionPoints, _scene.getCamera().getP0()), rays.get(focalIndex));
-				toReturn = toReturn.add(rayColor);
+				_geoPoint closestPoint = getClosestPoint(intersectionPoints, _scene.getCamera().getP0());
+				SurfaceInteraction surface = interact(closestPoint, rays.get(focalIndex));
+				toReturn.add(calcColor(surface, rays.get(focalIndex)));
+				if (aov != null) {
+					addAovSample(aov, aovWeight / rays.size(), surface, rays.get(focalIndex));
+				}
 			} 
 		}
-		toReturn = toReturn.scale(1.0/((double)rays.size()));
-		return toReturn;
+		return toReturn.scale(1.0/((double)rays.size())).toColor();
+	}
+	
+	/**
+	 * Puts the work of a pixel in its sample of the auxiliary buffers.
+	 * @param aov The sample.
+	 * @param stats The counters of the current thread.
+	 * @param rays The number of rays of the thread before the pixel was rendered.
+	 * @param nodes The number of visited nodes of the thread before the pixel was rendered.
+	 */
+	private static void countWork(float[] aov, TraversalStats stats, long rays, long nodes)
+	{
+		aov[AovBuffers.RAYS] = stats.getRays() - rays;
+		aov[AovBuffers.NODES_VISITED] = stats.getNodesVisited() - nodes;
+	}
+	
+	/**
+	 * Adds the first hit of a ray to a sample of the auxiliary buffers.
+	 * The albedo and the normal are added with the given weight, and the 
+	 * depth and the geometry identifier are of the nearest of the sample's hits.
+	 * @param aov The sample.
+	 * @param weight The weight of the ray in the sample.
+	 * @param hit The surface of the first hit of the ray, null if the ray hits nothing.
+	 * @param ray The ray.
+	 */
+	private void addAovSample(float[] aov, double weight, SurfaceInteraction hit, Ray ray)
+	{
+		Color albedo = _info.background;
+		if (hit != null) {
+			albedo = hit.emission.scale(hit.intensity);
+			Vector normal = hit.normal;
+			if (normal != null) {
+				//The normal faces the camera.
+				double normalWeight = normal.dotProduct(ray.getDirection()) > 0 ? -weight : weight;
+				Point3D head = normal.getHead();
+				aov[AovBuffers.NORMAL] += normalWeight * head.getX().getNumber();
+				aov[AovBuffers.NORMAL + 1] += normalWeight * head.getY().getNumber();
+				aov[AovBuffers.NORMAL + 2] += normalWeight * head.getZ().getNumber();
+			}
+			float depth = (float)ray.getPoint().distance(hit.point);
+			if (depth < aov[AovBuffers.DEPTH]) {
+				aov[AovBuffers.DEPTH] = depth;
+				aov[AovBuffers.GEOMETRY_ID] = _scene.getGeometries().getId(hit.geometry);
+			}
+		}
+		aov[AovBuffers.ALBEDO] += weight * albedo.getRed();
+		aov[AovBuffers.ALBEDO + 1] += weight * albedo.getGreen();
+		aov[AovBuffers.ALBEDO + 2] += weight * albedo.getBlue();
+	}
+	
+	/**
+	 * Finds the data of the surface in a hit, once for the whole shading of the hit.
+	 * @param hit The point of the hit and its geometry.
+	 * @param ray The ray that hits the geometry.
+	 * @return The data of the surface.
+	 */
+	private SurfaceInteraction interact(_geoPoint hit, Ray ray) {
+		return new SurfaceInteraction(hit.geometry, hit.point, ray, _emission.get());
 	}
 	
 	/**
 	 * Calculates the color in a given point.
 	 * The function gets a point and returns the color in this point.
-	 * @param geoPoint Includes the point in which it calculates the color
-	 * and the geometry that that point belongs to.
+	 * @param geoPoint The surface in the point in which it calculates the color
+	 * (see {@link SurfaceInteraction}).
 	 * @param inRay The ray which in the first call of this color 
 	 * is the ray from the camera to the point in which we calculate the color,
 	 * and in every recursive call is the ray the continues form that point either forward
@@ -248,38 +721,49 @@ public class Renderer {
 	 * @param k	The parameter decreased in every recursive call that determine how much we "see".
 	 * @return the color in the given point
 	 */
-	private Color calcColor(_geoPoint geoPoint, Ray inRay, int level, double K) {
+	private Color calcColor(SurfaceInteraction geoPoint, Ray inRay, int level, double K) {
 		//The recursion condition.
 		if (level == 0 || util.calcs.closeToZero(K))
 			return Color.black;
 		
-		double Kt = 1 - geoPoint.geometry.getIntensity(geoPoint.point);
-		Color color = _scene.getAmbientLight().getIntensity();
-		color = color.add(geoPoint.geometry.getEmission(geoPoint.point).scale(1 - Kt));
-		Vector normalToPoint = geoPoint.geometry.getNormal(geoPoint.point);
+		double Kt = 1 - geoPoint.intensity;
+		ColorAccumulator color = new ColorAccumulator(_scene.getAmbientLight().getIntensity());
+		color.add(geoPoint.emission, 1 - Kt);
+		Vector normalToPoint = geoPoint.normal;
 		Vector intersectsPoint = inRay.getDirection();
 		
 		//No color if there is no normal vector.
 		if (normalToPoint == null) {
 			return Color.black;
 		}
-		Material material = geoPoint.geometry.getMaterial();
+		double viewDotNormal = intersectsPoint.dotProduct(normalToPoint);
+		Material material = geoPoint.material;
 		int nShininess = material.getShininess();
 		double Kd = material.getKd();
 		double Ks = material.getKs();
 		
-		for (LightSource lightSource : _scene.getLights()) {
-			
+		LightSelector lightSelector = _scene.getLightSelector();
+		LightSource[] lights = _selectedLights.get();
+		double[] lightWeights = _lightWeights.get();
+		if (lights.length < lightSelector.getMaxSelected()) {
+			lights = new LightSource[lightSelector.getMaxSelected()];
+			lightWeights = new double[lights.length];
+			_selectedLights.set(lights);
+			_lightWeights.set(lightWeights);
+		}
+		int numOfLights = lightSelector.select(geoPoint.point, lights, lightWeights);
+		
+		for (int lightIndex = 0; lightIndex < numOfLights; lightIndex++) {
+			LightSource lightSource = lights[lightIndex];
 			Vector l = lightSource.getL(geoPoint.point);
 			
-			if (l.dotProduct(normalToPoint)*intersectsPoint.dotProduct(normalToPoint) > 0) {
+			if (l.dotProduct(normalToPoint)*viewDotNormal > 0) {
 				
 				double o = occluded(geoPoint, lightSource); 
 				if (!calcs.closeToZero(o * K)) {
-					Color lightIntensity = lightSource.getIntensity(geoPoint.point).scale(o);	
-					color = color.add(
-							calcDiffusive(Kd, l, normalToPoint, lightIntensity),
-							calcSpecular(Ks, l, normalToPoint, intersectsPoint, nShininess, lightIntensity));
+					Color lightIntensity = lightSource.getIntensity(geoPoint.point).scale(o * lightWeights[lightIndex]);	
+					color.add(lightIntensity, calcDiffusive(Kd, l, normalToPoint))
+						 .add(lightIntensity, calcSpecular(Ks, l, normalToPoint, intersectsPoint, nShininess));
 				}
 			}
 		}
@@ -288,58 +772,61 @@ public class Renderer {
 		double coneLength = material.getConeLength();
 		//------
 		
-		Ray originalReflected = constructReflectedRay(normalToPoint, geoPoint.point, inRay), ray;
-		double reflectRadius = material.getReflectRadius();
-		double Kr = geoPoint.geometry.getMaterial().getKr();
+		Ray ray;
+		double Kr = material.getKr();
 		
-		Color reflectedLight = Color.black;
+		ColorAccumulator reflectedLight = new ColorAccumulator();
 		
-		//Calculating the reflecting light.
-		for (int index = 0; index < NUM_REF_RAYS; index++) {
-			ray = random.genRandRay(originalReflected, reflectRadius, coneLength);
-			intersections = _scene.getGeometries().findMapOfIntersections(ray);
-			if (intersections.size() != 0) {
-				_geoPoint reflectedPoint = getClosestPoint(intersections, geoPoint.point);
-				
-				if (geoPoint.point.distance(reflectedPoint.point) < _info.maxRefDistance && reflectedPoint.point != null) {
-					reflectedLight = reflectedLight.add(calcColor(reflectedPoint, ray, level - 1, K * Kr).scale(Kr));
-				}
-			} 
+		//Calculating the reflecting light, unless the next level returns black anyway,
+		//so neither its rays nor its surfaces are made.
+		if (level > 1 && !calcs.closeToZero(K * Kr)) {
+			Ray originalReflected = constructReflectedRay(normalToPoint, geoPoint.point, inRay);
+			double reflectRadius = material.getReflectRadius();
+			for (int index = 0; index < NUM_REF_RAYS; index++) {
+				ray = random.genRandRay(originalReflected, reflectRadius, coneLength);
+				intersections = _scene.getGeometries().findMapOfIntersections(ray);
+				if (intersections.size() != 0) {
+					_geoPoint reflectedPoint = getClosestPoint(intersections, geoPoint.point);
+					
+					if (geoPoint.point.distance(reflectedPoint.point) < _info.maxRefDistance && reflectedPoint.point != null) {
+						reflectedLight.add(calcColor(interact(reflectedPoint, ray), ray, level - 1, K * Kr), Kr);
+					}
+				} 
+			}
 		}
 		
-		Ray originalRefracted = constructRefractedRay(geoPoint.point, inRay);
-		double refractRadius = material.getTranspRadius();
-				
-		Color refractedLight = Color.black;		
-		
-		//Calculating the refrecting light.
-		for (int index = 0; index < NUM_REF_RAYS; index++) {
-			ray = random.genRandRay(originalRefracted, refractRadius, coneLength);
-			intersections = _scene.getGeometries().findMapOfIntersections(ray);
-			if (intersections.size() != 0) {
-				_geoPoint refractedPoint = getClosestPoint(intersections, geoPoint.point);
-				if (refractedPoint.point != null) {
-					refractedLight = refractedLight.add(calcColor(refractedPoint, ray, level - 1, K * Kt).scale(Kt));
-				}
-			} 
+		ColorAccumulator refractedLight = new ColorAccumulator();
+		
+		//Calculating the refrecting light, with the same condition.
+		if (level > 1 && !calcs.closeToZero(K * Kt)) {
+			Ray originalRefracted = constructRefractedRay(geoPoint.point, inRay);
+			double refractRadius = material.getTranspRadius();
+			for (int index = 0; index < NUM_REF_RAYS; index++) {
+				ray = random.genRandRay(originalRefracted, refractRadius, coneLength);
+				intersections = _scene.getGeometries().findMapOfIntersections(ray);
+				if (intersections.size() != 0) {
+					_geoPoint refractedPoint = getClosestPoint(intersections, geoPoint.point);
+					if (refractedPoint.point != null) {
+						refractedLight.add(calcColor(interact(refractedPoint, ray), ray, level - 1, K * Kt), Kt);
+					}
+				} 
+			}
 		}
-		reflectedLight = reflectedLight.scale(1/NUM_REF_RAYS);
-		refractedLight = refractedLight.scale(1/NUM_REF_RAYS);
-		color = color.add(reflectedLight, refractedLight);
-		return new Color(color);
+		color.add(reflectedLight, 1/NUM_REF_RAYS).add(refractedLight, 1/NUM_REF_RAYS);
+		return color.toColor();
 	}
 	
 	/**
 	 * Calculates the color in a given point.
 	 * The function gets a point and returns the color in this point.
-	 * @param geoPoint the point in which it calculates the color
+	 * @param geoPoint The surface in the point in which it calculates the color
 	 * @param inRay The ray which in the first call of this color 
 	 * is the ray from the camera to the point in which we calculate the color,
 	 * and in every recursive call is the ray the continues form that point either forward
 	 * or backward.
 	 * @return the color in the given point
 	 */
-	private Color calcColor(_geoPoint geoPoint, Ray inRay) {
+	private Color calcColor(SurfaceInteraction geoPoint, Ray inRay) {
 		return calcColor(geoPoint, inRay, MAX_CALC_COLOR_LEVEL, 1.0);
 	}
 	
@@ -386,8 +873,11 @@ public class Renderer {
 	/**
 	 * Printing the grid with a fixed interval between lines
 	 * @param interval The interval between the lines.
+	 * @throws IllegalStateException When the image is streamed.
 	 */
 	public void printGrid(int interval) {
+		if (_imageWriter.isStreaming())
+			throw new IllegalStateException("A grid cannot be printed on a streamed image");
 		int width = _imageWriter.getWidth(),
 			height = _imageWriter.getHeight();
 		//Writing the lines.
@@ -400,32 +890,66 @@ public class Renderer {
 
 	/**
 	 * Pots the pixels we wrote by far to an image.
-	 * This function creates the final picture.
+	 * This function creates the final picture, and the files 
+	 * of the auxiliary buffers next to it, if they were rendered.
+	 * @throws UncheckedIOException In case the files of the auxiliary buffers cannot be written.
 	 */
 	public void writeToImage() {
 		_imageWriter.writeToimage();
+		if (_aovs != null) {
+			try {
+				_aovs.write(_imageWriter.getDirectory(), _imageWriter.getImageName());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Hands the image to an encoding queue, which writes it on its own threads,
+	 * so the renderer may render the next frame right away. The renderer 
+	 * continues with a new, black framebuffer of the same settings.
+	 * A streamed image is already in its file, so nothing is done.
+	 * The auxiliary buffers, if they were rendered, are written by the queue too.
+	 * @param queue The encoding queue.
+	 */
+	public void writeToImage(EncodingQueue queue) {
+		if (_imageWriter.isStreaming())
+			return;
+		ImageWriter frame = _imageWriter;
+		_imageWriter = new ImageWriter(frame);
+		queue.submit(frame);
+		if (_aovs != null) {
+			AovBuffers aovs = _aovs;
+			queue.submit(() -> {
+				try {
+					aovs.write(frame.getDirectory(), frame.getImageName());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
 	}
 	
 	/**
 	 * Inner function for calculating the diffusion of the light 
-	 * with the factor Kd, the vectors l and n and the light intensity.
+	 * with the factor Kd and the vectors l and n.
 	 * @param Kd The diffusion factor that the geometry has
 	 * @param l The vector from the light source to the point
 	 * in which we want to calculate the diffuse.
 	 * @param n The normal vector to the geometry in the point 
 	 * in which we want to calculate the diffuse.
-	 * @param lightIntensity The actual intensity of the light source
-	 * @return A new color that represents the diffusion of 
-	 * the light in the wanted point.
+	 * @return The scale of the light's intensity that is the diffusion 
+	 * of the light in the wanted point.
 	 */
-	private Color calcDiffusive(double Kd, Vector l, Vector n, Color lightIntensity) {
+	private double calcDiffusive(double Kd, Vector l, Vector n) {
 		double LdotN = Math.abs(l.normalizedVector().dotProduct(n));
-		return lightIntensity.scale(LdotN * Kd);
+		return LdotN * Kd;
 	}
 	
 	/**
 	 * Inner function for calculating the specularity of the light 
-	 * with the factor Ks, the vectors l and n and the light intensity.
+	 * with the factor Ks and the vectors l and n.
 	 * @param Ks The specularity factor that the geometry has.
 	 * @param l The vector from the light source to the point
 	 * in which we want to calculate the diffuse.
@@ -435,19 +959,17 @@ public class Renderer {
 	 * Note, the head of the vector is the position of the camera.
 	 * That is, the vector starts from the point in which we calculate the intensity.
 	 * @param nShininess The shininess of the geometry.
-	 * @param lightIntensity The actual intensity of the light source
-	 * @return A new color that represents the specularity of 
-	 * the light in the wanted point.
+	 * @return The scale of the light's intensity that is the specularity 
+	 * of the light in the wanted point.
 	 */
-	private Color calcSpecular
-	(double Ks, Vector l, Vector n, Vector v, int nShininess, Color lightIntensity) {
+	private double calcSpecular
+	(double Ks, Vector l, Vector n, Vector v, int nShininess) {
 		
 		Vector r = l.subtract(n.scale(2 * l.dotProduct(n))).normalizedVector();
 		double temp = r.dotProduct(v);
 		if (temp > 0)
-			return Color.black;
-		double factor = Ks * Math.pow(-temp, nShininess);
-		return lightIntensity.scale(factor);
+			return 0;
+		return Ks * Math.pow(-temp, nShininess);
 	}
 	
 	
@@ -456,67 +978,72 @@ public class Renderer {
 	 * is occluded by a geometry in a given point in the space and false 
 	 * otherwise.
 	 * @param l The vector from the light source to the point.
-	 * @param geopoint Point and geometry combined together in one object.
+	 * @param geopoint The surface in the point, with the geometry and its normal.
 	 * @param isDirectional lag for recognizing a directional light,
 	 * that its vector has no length (infinite, actually).
 	 * @param radius The radius of the light source
 	 * @return True if the a light source is occluded by a geometry 
 	 * in a given point in the space and false otherwise.
 	 */
-	private double occluded(_geoPoint geopoint, LightSource lightSource) {
+	private double occluded(SurfaceInteraction geopoint, LightSource lightSource) {
 		Vector l = lightSource.getL(geopoint.point);
 		double distance = lightSource instanceof DirectionalLight ? Double.MAX_VALUE : l.vectorLength();
 		Vector lightDirection = l.scale(-1); //The vector from the point to the light source.
 
 		// Moving the point a little towards the light source 
 		// so the ray we send to the light source won't intersect itself.
-		Vector normal = geopoint.geometry.getNormal(geopoint.point);
+		Vector normal = geopoint.normal;
 		Vector epsVector = normal.scale(normal.dotProduct(lightDirection) > 0 ? 2 : -2);
 		Point3D geometryPoint = geopoint.point.add(epsVector.getHead());
 		
-		double globalShadowK = 0;
-		
-		// a ray from the point to the middle of the light source
-		Ray lightRay = new Ray(geometryPoint, lightDirection);
-		
-		
-		// first ray to the center of the light source
-		Map<Geometry, List<Point3D>> intersectionPoints = _scene.getGeometries().findMapOfIntersections(lightRay);
-		globalShadowK += getShadowK(geopoint, distance, intersectionPoints); 
-		
-		
-		//If the light source does not have a volume so we don't need to send more rays, return.
-		if (!(lightSource instanceof VolumedLightSrc)) {
-			return globalShadowK;
+		//If the light source does not have a volume we need only one ray, 
+		//from the point to the middle of the light source.
+		if (!(lightSource instanceof VolumedLightSrc) || ((VolumedLightSrc)lightSource).getRadius() <= 0) {
+			Ray lightRay = new Ray(geometryPoint, lightDirection);
+			return getShadowK(geopoint, distance, _scene.getGeometries().findMapOfIntersections(lightRay));
 		}
 		
 		//From here and on, we deal with a volumed light source.
 		VolumedLightSrc VlightSource = (VolumedLightSrc)lightSource;
-		double radius = VlightSource.getRadius();
-				
-		// Orthogonal vectors. These make a new 'X, Y' axis on which we build a spiral. 
-		Vector vecY = new Vector(lightDirection.getHead().getY().getNumber(), -lightDirection.getHead().getX().getNumber(), 0).normalizedVector();
-		Vector vecX = lightDirection.crossProduct(vecY).normalizedVector();
-		Vector movementOnSpiral;
-		
-		double deltaRadius = radius / (double)VlightSource.getNumOfSamples();
-		
-		// sending rays from the center of the light source in a spiral up to the radius 
-		// of the light source.
-		
-		int index = 1;
-		
-		//Creating the spiral with the pre-initialized parameters (sin and cos) in the LightSource.
-		//In every entry of lightSource there is a two dimensional array, which in the first index 
-		//is the sin and the second is the cos.
-		for (int i = 0; i < VlightSource.Scalars.size(); i++) {	
-			movementOnSpiral = vecY.scale(VlightSource.Scalars.get(i)[0]).add(vecX.scale(VlightSource.Scalars.get(i)[1])).scale(deltaRadius * (index++));
-			lightRay = new Ray(geometryPoint, lightDirection.add(movementOnSpiral));
-			intersectionPoints = _scene.getGeometries().findMapOfIntersections(lightRay);
-			globalShadowK += getShadowK(geopoint, distance, intersectionPoints);
+		int numOfSamples = VlightSource.getNumOfSamples(), 
+			numOfProbes = VlightSource.getNumOfProbes();
+		
+		// The samples are taken on the disk of the light source that faces the point.
+		// 's' holds a sample on the disk, and then its position relative to the center of the light.
+		double[] s = _diskSample.get();
+		Point3D toLight = lightDirection.getHead(), 
+				toLightUnit = lightDirection.normalizedVector().getHead();
+		double lx = toLight.getX().getNumber(), 
+			   ly = toLight.getY().getNumber(),
+			   lz = toLight.getZ().getNumber(),
+			   ux = toLightUnit.getX().getNumber(), 
+			   uy = toLightUnit.getY().getNumber(),
+			   uz = toLightUnit.getZ().getNumber();
+		
+		double rotation = random.nextDouble(), shadowK, firstShadowK = 0, globalShadowK = 0;
+		boolean agree = true;
+		
+		for (int index = 0; index < numOfSamples; index++) {
+			VlightSource.sampleDisk(index, rotation, random.nextDouble(), s);
+			random.toWorld(ux, uy, uz, s, s);
+			Ray lightRay = new Ray(geometryPoint, new Vector(lx + s[3], ly + s[4], lz + s[5]));
+			shadowK = getShadowK(geopoint, distance, _scene.getGeometries().findMapOfIntersections(lightRay));
+			globalShadowK += shadowK;
+			
+			if (index == 0) {
+				firstShadowK = shadowK;
+			} else if (Math.abs(shadowK - firstShadowK) > SHADOW_AGREEMENT) {
+				agree = false;
+			}
+			
+			//If the probe samples agree, the point is not in a penumbra
+			//and the rest of the samples would not change the result.
+			if (agree && index + 1 == numOfProbes) {
+				return globalShadowK / numOfProbes;
+			}
 		}
 				
-		return globalShadowK / ((double)VlightSource.getNumOfSamples() + 1.0);
+		return globalShadowK / numOfSamples;
 	}
 
 	/**
@@ -529,7 +1056,7 @@ public class Renderer {
 	 * geopoint and the light source.
 	 * @return A shadow parameter between 0 and 1.
 	 */
-	private double getShadowK(_geoPoint geopoint, double distance, Map<Geometry, List<Point3D>> intersectionPoints) {
+	private double getShadowK(SurfaceInteraction geopoint, double distance, Map<Geometry, List<Point3D>> intersectionPoints) {
 		double shadowK = 1.0;
 		for (Map.Entry<Geometry, List<Point3D>> entry : intersectionPoints.entrySet()) {
 			for (Point3D point : entry.getValue()) {
@@ -547,23 +1074,25 @@ public class Renderer {
 	 * @param n The normal to the geometry in the point that is in the geoPoint.
 	 * @param geoPoint Contains the geometry and the point on it 
 	 * @param inRay The ray that hits the geometry.
-	 * @return A new reflected ray
+	 * @return A new reflected ray, whose footprint continues the footprint of the ray that hits the geometry
 	 */
 	private Ray constructReflectedRay(Vector n, Point3D point, Ray inRay) {
 		Vector v = inRay.getDirection();
 		Vector eps = v.subtract(n.scale(2 * v.dotProduct(n))).normalizedVector();
-		return new Ray(point.add(eps.scale(2).getHead()), eps);
+		return new Ray(point.add(eps.scale(2).getHead()), eps, 
+				inRay.getFootprint(inRay.getPoint().distance(point)), inRay.getSpread());
 	}
 	
 	/**
 	 * Function for calculating the ray that is reflected from a geometry forwards.
 	 * @param geoPoint Contains the geometry and the point on it 
 	 * @param inRay The ray that hits the geometry.
-	 * @return A new reflected ray
+	 * @return A new refracted ray, whose footprint continues the footprint of the ray that hits the geometry
 	 */
 	private Ray constructRefractedRay(Point3D point, Ray inRay) {
 		Vector eps = inRay.getDirection().normalizedVector();
-		return new Ray(point.add(eps.scale(2).getHead()), eps);
+		return new Ray(point.add(eps.scale(2).getHead()), eps, 
+				inRay.getFootprint(inRay.getPoint().distance(point)), inRay.getSpread());
 	}
 
 }
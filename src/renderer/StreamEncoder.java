@@ -0,0 +1,57 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Interface for an encoder that writes an image to its file while it is 
+ * being rendered, one band of rows after the other, so the whole image 
+ * never has to be in the memory.
+ * An encoder keeps the state of the image it writes, hence an instance 
+ * encodes a single image at a time.
+ */
+public interface StreamEncoder {
+	
+	/**
+	 * Getter for the extension of the files of this encoder.
+	 * @return The extension of the file, without the dot.
+	 */
+	public String getExtension();
+	
+	/**
+	 * Checks whether the format keeps high dynamic range colors. Such a format 
+	 * gets the colors of the framebuffer as they are, and the other formats 
+	 * get the colors after the tone mapping of the image.
+	 * @return True for a high dynamic range format. The default is false.
+	 */
+	public default boolean isHighDynamicRange() {
+		return false;
+	}
+	
+	/**
+	 * Starts a new image.
+	 * @param channel The channel of the file. The encoder does not close the channel.
+	 * @param width The number of pixels in the breadth of the image.
+	 * @param height The number of pixels in the height of the image.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	public void begin(FileChannel channel, int width, int height) throws IOException;
+	
+	/**
+	 * Writes a band of rows. The bands are given from the top of the 
+	 * image to its bottom, one after the other.
+	 * @param band The colors of the band, in the layout of the framebuffer of
+	 * the {@link ImageWriter}: the red, green and blue of every pixel, not clamped,
+	 * one pixel after the other and one row after the other.
+	 * @param firstRow The row of the image of the first row of the band.
+	 * @param numOfRows The number of rows in the band.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	public void writeRows(float[] band, int firstRow, int numOfRows) throws IOException;
+	
+	/**
+	 * Completes the image, after all its rows were written.
+	 * @throws IOException In case of an error while writing to the file.
+	 */
+	public void end() throws IOException;
+}
@@ -0,0 +1,66 @@
+package renderer;
+
+import geometries.Geometry;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * The data of the surface in a hit of a ray: the emission, the normal and 
+ * the material of the geometry in the point. The data is found once for 
+ * every hit, and the shading, the shadow rays and the auxiliary buffers 
+ * all use it, instead of asking the geometry for it again and again.
+ */
+class SurfaceInteraction {
+	
+	/**
+	 * The geometry that is hit.
+	 */
+	final Geometry geometry;
+	
+	/**
+	 * The point of the hit.
+	 */
+	final Point3D point;
+	
+	/**
+	 * The width of the footprint of the ray in the point.
+	 */
+	final double footprint;
+	
+	/**
+	 * The emission of the geometry in the point, and its intensity.
+	 */
+	final Color emission;
+	final double intensity;
+	
+	/**
+	 * The normal to the geometry in the point, null if it has none.
+	 */
+	final Vector normal;
+	
+	/**
+	 * The material of the geometry.
+	 */
+	final Material material;
+	
+	/**
+	 * Constructor that finds the data of a hit.
+	 * @param geometry The geometry that is hit.
+	 * @param point The point of the hit.
+	 * @param ray The ray that hits the geometry.
+	 * @param emission An array of three numbers into which the emission is looked up.
+	 */
+	SurfaceInteraction(Geometry geometry, Point3D point, Ray ray, double[] emission) {
+		this.geometry = geometry;
+		this.point = point;
+		//The textures are read in the level of detail of the ray's footprint.
+		footprint = ray.getFootprint(ray.getPoint().distance(point));
+		intensity = geometry.lookupEmission(point, footprint, emission);
+		this.emission = new Color(emission[0], emission[1], emission[2]);
+		normal = geometry.getNormal(point);
+		material = geometry.getMaterial();
+	}
+}
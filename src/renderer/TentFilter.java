@@ -0,0 +1,33 @@
+package renderer;
+
+/**
+ * The tent (triangle) filter, whose weight falls linearly from 1 in
+ * the center to 0 in its radius.
+ */
+public class TentFilter implements ReconstructionFilter {
+	
+	/**
+	 * The radius of the filter.
+	 */
+	private final double _radius;
+	
+	/**
+	 * Constructor for a new tent filter.
+	 * @param radius The radius of the filter in pixels. Must be positive.
+	 */
+	public TentFilter(double radius) {
+		if (radius <= 0)
+			throw new IllegalArgumentException("The radius must be positive");
+		_radius = radius;
+	}
+
+	@Override
+	public double getRadius() {
+		return _radius;
+	}
+
+	@Override
+	public double evaluate(double offset) {
+		return Math.max(0, 1 - Math.abs(offset) / _radius);
+	}
+}
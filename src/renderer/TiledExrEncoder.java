@@ -0,0 +1,190 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder of the high dynamic range framebuffer in the OpenEXR format,
+ * as a single level tiled image of uncompressed half floats.
+ * The colors are written as they are, without clamping, where 1.0 is
+ * the color component 255.
+ */
+public class TiledExrEncoder implements ImageEncoder {
+
+	/**
+	 * The magic number and the version (2, with the 'tiled' flag) of the file.
+	 */
+	private static final int MAGIC = 20000630, VERSION = 2 | 0x200;
+
+	/**
+	 * The pixel type of a half float channel, and the
+	 * compression and line order values that the encoder uses.
+	 */
+	private static final int HALF = 1, NO_COMPRESSION = 0, INCREASING_Y = 0;
+
+	/**
+	 * The size of the (square) tiles.
+	 */
+	private final int _tileSize;
+
+	/**
+	 * Constructor for an encoder with tiles of 64 by 64 pixels.
+	 */
+	public TiledExrEncoder() {
+		this(64);
+	}
+
+	/**
+	 * Constructor for a new encoder.
+	 * @param tileSize The size of the square tiles in pixels.
+	 */
+	public TiledExrEncoder(int tileSize) {
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("The tile size must be positive");
+		_tileSize = tileSize;
+	}
+
+	@Override
+	public String getExtension() {
+		return "exr";
+	}
+
+	@Override
+	public void encode(ImageWriter image, OutputStream out) throws IOException {
+		int width = image.getWidth(), height = image.getHeight();
+		int tilesX = (width + _tileSize - 1) / _tileSize, tilesY = (height + _tileSize - 1) / _tileSize;
+		float[] buffer = image.getBuffer();
+
+		ByteBuffer header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION);
+
+		//The channels are sorted by name, and so are they in every tile.
+		putAttribute(header, "channels", "chlist", 3 * 18 + 1);
+		for (String channel : new String[] {"B", "G", "R"}) {
+			putString(header, channel);
+			header.putInt(HALF).put((byte)0).put((byte)0).put((byte)0).put((byte)0).putInt(1).putInt(1);
+		}
+		header.put((byte)0);
+		putAttribute(header, "compression", "compression", 1);
+		header.put((byte)NO_COMPRESSION);
+		putAttribute(header, "dataWindow", "box2i", 16);
+		header.putInt(0).putInt(0).putInt(width - 1).putInt(height - 1);
+		putAttribute(header, "displayWindow", "box2i", 16);
+		header.putInt(0).putInt(0).putInt(width - 1).putInt(height - 1);
+		putAttribute(header, "lineOrder", "lineOrder", 1);
+		header.put((byte)INCREASING_Y);
+		putAttribute(header, "pixelAspectRatio", "float", 4);
+		header.putFloat(1);
+		putAttribute(header, "screenWindowCenter", "v2f", 8);
+		header.putFloat(0).putFloat(0);
+		putAttribute(header, "screenWindowWidth", "float", 4);
+		header.putFloat(1);
+		//Tiles of a single level.
+		putAttribute(header, "tiles", "tiledesc", 9);
+		header.putInt(_tileSize).putInt(_tileSize).put((byte)0);
+		header.put((byte)0);
+		out.write(header.array(), 0, header.position());
+
+		//The table of the offsets of the tiles in the file, one row of tiles after the other.
+		ByteBuffer offsets = ByteBuffer.allocate(8 * tilesX * tilesY).order(ByteOrder.LITTLE_ENDIAN);
+		long offset = header.position() + offsets.capacity();
+		for (int tileY = 0; tileY < tilesY; tileY++) {
+			for (int tileX = 0; tileX < tilesX; tileX++) {
+				offsets.putLong(offset);
+				offset += 20 + 6 * tileWidth(tileX, width) * tileWidth(tileY, height);
+			}
+		}
+		out.write(offsets.array());
+
+		ByteBuffer tile = ByteBuffer.allocate(20 + 6 * _tileSize * _tileSize).order(ByteOrder.LITTLE_ENDIAN);
+		for (int tileY = 0; tileY < tilesY; tileY++) {
+			for (int tileX = 0; tileX < tilesX; tileX++) {
+				int tileWidth = tileWidth(tileX, width), tileHeight = tileWidth(tileY, height);
+				tile.clear();
+				tile.putInt(tileX).putInt(tileY).putInt(0).putInt(0).putInt(6 * tileWidth * tileHeight);
+				for (int y = tileY * _tileSize; y < tileY * _tileSize + tileHeight; y++) {
+					int first = 3 * (y * width + tileX * _tileSize);
+					//The channels of every scanline are B, G and R.
+					for (int channel = 2; channel >= 0; channel--) {
+						for (int index = first + channel; index < first + 3 * tileWidth; index += 3) {
+							tile.putShort(toHalf(buffer[index] / 255f));
+						}
+					}
+				}
+				out.write(tile.array(), 0, tile.position());
+			}
+		}
+	}
+
+	/**
+	 * Calculates the width of a tile along one axis. The last tile
+	 * along the axis may be smaller than the others.
+	 * @param tileIndex The index of the tile along the axis.
+	 * @param size The size of the image along the axis.
+	 * @return The width of the tile along the axis.
+	 */
+	private int tileWidth(int tileIndex, int size) {
+		return Math.min(_tileSize, size - tileIndex * _tileSize);
+	}
+
+	/**
+	 * Puts the beginning of an attribute of the header: its name, type and size.
+	 * @param header The header.
+	 * @param name The name of the attribute.
+	 * @param type The type of the attribute.
+	 * @param size The size of the value of the attribute, in bytes.
+	 */
+	private static void putAttribute(ByteBuffer header, String name, String type, int size) {
+		putString(header, name);
+		putString(header, type);
+		header.putInt(size);
+	}
+
+	/**
+	 * Puts a null terminated string.
+	 * @param header The header.
+	 * @param string The string.
+	 */
+	private static void putString(ByteBuffer header, String string) {
+		header.put(string.getBytes(StandardCharsets.US_ASCII)).put((byte)0);
+	}
+
+	/**
+	 * Converts a float to the bits of a half float (IEEE 754 binary16).
+	 * Numbers that are too large become infinity, and the mantissa is rounded.
+	 * @param value The float.
+	 * @return The bits of the half float.
+	 */
+	static short toHalf(float value) {
+		int bits = Float.floatToIntBits(value),
+			sign = (bits >>> 16) & 0x8000,
+			floatExponent = (bits >>> 23) & 0xFF,
+			exponent = floatExponent - 127 + 15,
+			mantissa = bits & 0x7FFFFF;
+
+		//Infinity and NaN.
+		if (floatExponent == 0xFF)
+			return (short)(sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+		//Too large for a half float.
+		if (exponent >= 0x1F)
+			return (short)(sign | 0x7C00);
+		//A subnormal half float, or zero if it is too small.
+		if (exponent <= 0) {
+			if (exponent < -10)
+				return (short)sign;
+			mantissa |= 0x800000;
+			int shift = 14 - exponent, half = mantissa >> shift;
+			if (((mantissa >> (shift - 1)) & 1) != 0)
+				half++;
+			return (short)(sign | half);
+		}
+		//A carry of the rounding goes to the exponent, as it should.
+		int half = sign | (exponent << 10) | (mantissa >> 13);
+		if ((mantissa & 0x1000) != 0)
+			half++;
+		return (short)half;
+	}
+}
@@ -0,0 +1,229 @@
+package renderer;
+
+/**
+ * Post process stage that maps the high dynamic range colors of the 
+ * framebuffer to the displayable range, instead of clamping them.
+ * The colors are scaled by the exposure, compressed by a tone curve, 
+ * and encoded with a gamma. The framebuffer itself is never changed, 
+ * so the stage can be applied again with other settings without 
+ * rendering the image again.
+ * In the framebuffer, the color component 255 is 1.0.
+ */
+public class ToneMapper {
+	
+	/**
+	 * The tone curves.
+	 */
+	public enum Operator {
+		/**
+		 * Clamps the colors at 1.0, as the image does without a tone mapper.
+		 */
+		CLAMP,
+		/**
+		 * The extended Reinhard curve, x(1 + x/w^2)/(1 + x), where w is the white point.
+		 * With an infinite white point it is x/(1 + x).
+		 */
+		REINHARD,
+		/**
+		 * Narkowicz's fit of the ACES filmic curve.
+		 */
+		ACES,
+		/**
+		 * Hable's filmic curve (of Uncharted 2), normalized by the white point.
+		 */
+		FILMIC
+	}
+	
+	/**
+	 * The white point of the filmic curve when none is given.
+	 */
+	private static final double DEFAULT_FILMIC_WHITE = 11.2;
+	
+	/**
+	 * The number of intervals in the table of the gamma curve.
+	 */
+	private static final int GAMMA_TABLE_SIZE = 1 << 16;
+	
+	/**
+	 * The tone curve.
+	 */
+	private Operator _operator;
+	
+	/**
+	 * The exposure in stops. Every stop doubles the colors.
+	 */
+	private double _exposure;
+	
+	/**
+	 * The gamma of the encoded colors.
+	 */
+	private double _gamma;
+	
+	/**
+	 * The gamma curve from 0 to 1, scaled to 255, in {@link #GAMMA_TABLE_SIZE}
+	 * equal intervals (and one more entry for 1 itself). A table lookup is 
+	 * much faster than a power, and the error is a small fraction of a level.
+	 */
+	private float[] _gammaTable;
+	
+	/**
+	 * The smallest color that is mapped to white, infinity for the default of the curve.
+	 */
+	private double _white = Double.POSITIVE_INFINITY;
+	
+	/**
+	 * Constructor for a new tone mapper.
+	 * @param operator The tone curve.
+	 * @param exposure The exposure in stops. Zero leaves the colors as they are.
+	 * @param gamma The gamma of the encoded colors (like 2.2). One leaves the colors linear.
+	 */
+	public ToneMapper(Operator operator, double exposure, double gamma) {
+		setOperator(operator);
+		setExposure(exposure);
+		setGamma(gamma);
+	}
+	
+	/**
+	 * Copy constructor.
+	 * @param other The tone mapper that is being copied.
+	 */
+	public ToneMapper(ToneMapper other) {
+		_operator = other._operator;
+		_exposure = other._exposure;
+		_gamma = other._gamma;
+		_gammaTable = other._gammaTable;
+		_white = other._white;
+	}
+	
+	/**
+	 * Setter for the tone curve.
+	 * @param operator The tone curve.
+	 */
+	public void setOperator(Operator operator) {
+		if (operator == null)
+			throw new IllegalArgumentException("The operator must not be null");
+		_operator = operator;
+	}
+	
+	/**
+	 * Setter for the exposure.
+	 * @param exposure The exposure in stops.
+	 */
+	public void setExposure(double exposure) {
+		_exposure = exposure;
+	}
+	
+	/**
+	 * Setter for the gamma.
+	 * @param gamma The gamma of the encoded colors. Must be positive.
+	 */
+	public void setGamma(double gamma) {
+		if (gamma <= 0)
+			throw new IllegalArgumentException("The gamma must be positive");
+		_gamma = gamma;
+		_gammaTable = new float[GAMMA_TABLE_SIZE + 2];
+		for (int i = 0; i <= GAMMA_TABLE_SIZE; i++) {
+			_gammaTable[i] = (float)(255 * Math.pow(i / (double)GAMMA_TABLE_SIZE, 1 / gamma));
+		}
+		//So the interpolation of 1 itself stays inside the table.
+		_gammaTable[GAMMA_TABLE_SIZE + 1] = 255;
+	}
+	
+	/**
+	 * Setter for the white point of the Reinhard and filmic curves.
+	 * @param white The smallest exposed color that is mapped to white,
+	 * where 1.0 is the color component 255. Infinity for the default of the curve.
+	 */
+	public void setWhite(double white) {
+		if (white <= 0)
+			throw new IllegalArgumentException("The white point must be positive");
+		_white = white;
+	}
+	
+	/**
+	 * Getter for the tone curve.
+	 * @return The tone curve.
+	 */
+	public Operator getOperator() {
+		return _operator;
+	}
+	
+	/**
+	 * Getter for the exposure.
+	 * @return The exposure in stops.
+	 */
+	public double getExposure() {
+		return _exposure;
+	}
+	
+	/**
+	 * Getter for the gamma.
+	 * @return The gamma of the encoded colors.
+	 */
+	public double getGamma() {
+		return _gamma;
+	}
+	
+	/**
+	 * Maps a range of the colors of a framebuffer. Every operator has its 
+	 * own loop without branches on the settings, so the loops are simple 
+	 * enough for the compiler to unroll and vectorize.
+	 * @param source The framebuffer, in the range of 0 to 255 (and above).
+	 * @param target The mapped colors, in the range of 0 to 255. May be the source itself.
+	 * @param from The first index of the range.
+	 * @param to The index after the last index of the range.
+	 */
+	public void apply(float[] source, float[] target, int from, int to) {
+		float scale = (float)(Math.pow(2, _exposure) / 255);
+		switch (_operator) {
+		case CLAMP:
+			for (int i = from; i < to; i++) {
+				target[i] = Math.min(Math.max(source[i] * scale, 0f), 1f);
+			}
+			break;
+		case REINHARD:
+			float inverseWhite2 = (float)(1 / (_white * _white));
+			for (int i = from; i < to; i++) {
+				float x = Math.max(source[i] * scale, 0f);
+				target[i] = Math.min(x * (1 + x * inverseWhite2) / (1 + x), 1f);
+			}
+			break;
+		case ACES:
+			for (int i = from; i < to; i++) {
+				float x = Math.max(source[i] * scale, 0f);
+				target[i] = Math.min(x * (2.51f * x + 0.03f) / (x * (2.43f * x + 0.59f) + 0.14f), 1f);
+			}
+			break;
+		case FILMIC:
+			float inverseWhite = (float)(1 / filmic(_white == Double.POSITIVE_INFINITY ? DEFAULT_FILMIC_WHITE : _white));
+			for (int i = from; i < to; i++) {
+				float x = Math.max(source[i] * scale, 0f);
+				target[i] = Math.min((float)filmic(x) * inverseWhite, 1f);
+			}
+			break;
+		}
+		
+		if (_gamma == 1) {
+			for (int i = from; i < to; i++) {
+				target[i] *= 255;
+			}
+		} else {
+			float[] table = _gammaTable;
+			for (int i = from; i < to; i++) {
+				float position = target[i] * GAMMA_TABLE_SIZE;
+				int index = (int)position;
+				target[i] = table[index] + (table[index + 1] - table[index]) * (position - index);
+			}
+		}
+	}
+	
+	/**
+	 * Hable's filmic curve, without normalization.
+	 * @param x The exposed color.
+	 * @return The compressed color.
+	 */
+	private static double filmic(double x) {
+		final double A = 0.15, B = 0.50, C = 0.10, D = 0.20, E = 0.02, F = 0.30;
+		return (x * (A * x + C * B) + D * E) / (x * (A * x + B) + D * F) - E / F;
+	}
+}
@@ -0,0 +1,55 @@
+package renderer;
+
+/**
+ * Runs a worker on several threads of the package (the rendering, the
+ * denoising and the encoding), and waits for all of them to finish.
+ */
+final class Workers {
+
+	/**
+	 * No instances, only the static function.
+	 */
+	private Workers() {
+	}
+
+	/**
+	 * Runs the given worker on the given number of threads and waits
+	 * for all of them to finish. With a single thread, the worker runs
+	 * on the calling thread.
+	 * If the calling thread is interrupted while it waits, the workers are
+	 * interrupted too, and it still waits until all of them are finished,
+	 * so none of them writes to the results after this function returns.
+	 * The calling thread's interrupt flag is set again before it returns.
+	 * @param worker The work that every thread does.
+	 * @param threads The number of threads.
+	 * @param name The prefix of the names of the threads.
+	 */
+	static void run(Runnable worker, int threads, String name) {
+		if (threads <= 1) {
+			worker.run();
+			return;
+		}
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread(worker, name + "-" + i);
+			workers[i].start();
+		}
+		boolean interrupted = false;
+		for (int i = 0; i < workers.length; ) {
+			try {
+				workers[i].join();
+				i++;
+			} catch (InterruptedException e) {
+				if (!interrupted) {
+					interrupted = true;
+					for (Thread thread : workers) {
+						thread.interrupt();
+					}
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -10,8 +10,10 @@ import primitives.Material;
 import java.util.ArrayList;
 import java.util.List;
 
+import elements.AllLightsSelector;
 import elements.AmbientLight;
 import elements.Camera;
+import elements.LightSelector;
 import elements.LightSource;
 
 /**
@@ -46,6 +48,11 @@ public class Scene {
 	 */
 	private List<LightSource> _lights;
 	
+	/**
+	 * The strategy that chooses which lights are evaluated in every point.
+	 */
+	private LightSelector _lightSelector;
+	
 	/**
 	 * The camera in the scene
 	 */
@@ -76,6 +83,7 @@ public class Scene {
 		_background = new Color(0, 0, 0);
 		_geometries = new Geometries(new Material(0,0,0,0,0,0,0), null);
 		_lights = new ArrayList<LightSource>();
+		_lightSelector = new AllLightsSelector();
 		_camera = new Camera(Point3D.zero, new Vector(0, -1, 0), new Vector(0, 0, -1), 3);
 		_distance = 1;
 		_maxReflectedDistance = 100;
@@ -91,6 +99,7 @@ public class Scene {
 		_background = new Color(other._background);
 		_geometries = other._geometries;
 		_lights = other._lights;
+		_lightSelector = other._lightSelector;
 		_camera = new Camera(other._camera);
 		_distance = other._distance;
 		_focalPlane = new Plane(other._focalPlane);
@@ -162,6 +171,16 @@ public class Scene {
 		_lights = lights;
 	}
 	
+	/**
+	 * Function that sets the strategy that chooses which 
+	 * lights are evaluated in every point.
+	 * @param lightSelector The light selection strategy. The default 
+	 * strategy, {@link AllLightsSelector}, evaluates all the lights.
+	 */
+	public void setLightSelector(LightSelector lightSelector) {
+		_lightSelector = lightSelector == null ? new AllLightsSelector() : lightSelector;
+	}
+	
 	/**
 	 * The function gets the distance from the 
 	 * @param distance The distance form the view plane
@@ -216,7 +235,7 @@ public class Scene {
 	 * that the scene has where is no other object.
 	 */
 	public Color getBackground() {
-		return new Color(_background);
+		return _background;
 	}
 	
 	/**
@@ -258,6 +277,15 @@ public class Scene {
 		return _lights;
 	}
 	
+	/**
+	 * Getter for the strategy that chooses which lights are 
+	 * evaluated in every point.
+	 * @return The instance itself, it is shared with the copies of this scene.
+	 */
+	public LightSelector getLightSelector() {
+		return _lightSelector;
+	}
+	
 	/**
 	 * Getter for the name of this scene. that is, the name 
 	 * field of this scene.
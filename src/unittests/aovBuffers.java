@@ -0,0 +1,203 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import elements.LightSource;
+import elements.PointLight;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.Color;
+import primitives.ColorEmissionImp;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Vector;
+import renderer.AovBuffers;
+import renderer.AovBuffers.Channel;
+import renderer.ImageWriter;
+import renderer.Renderer;
+import scene.Scene;
+
+class aovBuffers {
+
+	/**
+	 * The size of the rendered images, where the pixel in the middle looks straight at a sphere.
+	 */
+	private static final int SIZE = 21;
+
+	/**
+	 * Every channel has its components for every pixel, and before a render
+	 * the depth is infinite and the other channels are zero.
+	 */
+	@Test
+	void emptyChannels() {
+		AovBuffers aovs = new AovBuffers(5, 3);
+		for (Channel channel : Channel.values()) {
+			float[] buffer = aovs.getChannel(channel);
+			assertEquals(channel.getComponents() * 15, buffer.length, channel.getName());
+			for (float value : buffer) {
+				assertEquals(channel == Channel.DEPTH ? Float.POSITIVE_INFINITY : 0, value, channel.getName());
+			}
+		}
+		assertSame(aovs.getChannel(Channel.ALBEDO), aovs.getAlbedo());
+		assertSame(aovs.getChannel(Channel.NORMAL), aovs.getNormal());
+		assertSame(aovs.getChannel(Channel.DEPTH), aovs.getDepth());
+	}
+
+	/**
+	 * The pixel that looks straight at a sphere has the albedo, the normal, the depth
+	 * and the identifier of the sphere, and the pixels of the background have the
+	 * background's albedo, no normal, an infinite depth and the identifier 0.
+	 * When a pixel of the view plane is a block of pixels of the image, all of
+	 * them have its data.
+	 */
+	@Test
+	void dataOfHitsAndBackground() {
+		for (int viewPlane : new int[] {SIZE, SIZE / 3}) {
+			AovBuffers aovs = render(viewPlane);
+			int block = SIZE / viewPlane;
+			for (int y = 0; y < SIZE; y++) {
+				for (int x = 0; x < SIZE; x++) {
+					int pixel = y * SIZE + x;
+					String message = "pixel " + x + ", " + y + " of " + viewPlane;
+					if (x / block == viewPlane / 2 && y / block == viewPlane / 2) {
+						assertPixel(aovs, pixel, new float[] {60, 90, 120}, new float[] {0, 0, 1}, 800, 2, message);
+					} else if ((x < block || x >= SIZE - block) && (y < block || y >= SIZE - block)) {
+						assertPixel(aovs, pixel, new float[] {10, 20, 30}, new float[] {0, 0, 0}, Float.POSITIVE_INFINITY, 0, message);
+					}
+					assertTrue(aovs.getChannel(Channel.RAYS)[pixel] >= 1, message);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Every channel is written as a Portable Float Map of its components, from
+	 * the bottom row up, with the albedo divided by 255, and the counters are
+	 * written as heatmaps too.
+	 */
+	@Test
+	void filesOfChannels() throws IOException {
+		AovBuffers aovs = render(SIZE);
+		Path directory = Files.createTempDirectory("aovs");
+		try {
+			aovs.write(directory.toString(), "image");
+			for (Channel channel : Channel.values()) {
+				byte[] bytes = Files.readAllBytes(directory.resolve("image." + channel.getName() + ".pfm"));
+				String header = (channel.getComponents() == 3 ? "PF" : "Pf") + "\n" + SIZE + " " + SIZE + "\n-1.0\n";
+				assertEquals(header, new String(bytes, 0, header.length(), StandardCharsets.US_ASCII));
+				assertEquals(header.length() + 4 * channel.getComponents() * SIZE * SIZE, bytes.length);
+				ByteBuffer values = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length()).slice().order(ByteOrder.LITTLE_ENDIAN);
+				float[] buffer = aovs.getChannel(channel);
+				float scale = channel == Channel.ALBEDO ? 1 / 255f : 1;
+				for (int y = 0; y < SIZE; y++) {
+					for (int index = 0; index < channel.getComponents() * SIZE; index++) {
+						assertEquals(buffer[channel.getComponents() * SIZE * (SIZE - 1 - y) + index] * scale, values.getFloat(), channel.getName());
+					}
+				}
+				if (channel.isCounter()) {
+					BufferedImage heatmap = ImageIO.read(directory.resolve("image." + channel.getName() + ".png").toFile());
+					assertEquals(SIZE, heatmap.getWidth());
+					assertEquals(SIZE, heatmap.getHeight());
+				} else {
+					assertFalse(Files.exists(directory.resolve("image." + channel.getName() + ".png")), channel.getName());
+				}
+			}
+			assertThrows(IOException.class, () -> aovs.write(directory.resolve("missing").toString(), "image"));
+		} finally {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * The heatmap goes from dark blue in zero to red in the largest finite value,
+	 * and an infinite value is red too. Only a channel of one component has a heatmap.
+	 */
+	@Test
+	void heatmapColors() {
+		AovBuffers aovs = new AovBuffers(4, 1);
+		float[] rays = aovs.getChannel(Channel.RAYS);
+		rays[1] = 5;
+		rays[2] = 10;
+		rays[3] = Float.POSITIVE_INFINITY;
+		BufferedImage heatmap = aovs.heatmap(Channel.RAYS);
+		assertEquals(0x00007F, heatmap.getRGB(0, 0) & 0xFFFFFF);
+		assertEquals(0x7FFF7F, heatmap.getRGB(1, 0) & 0xFFFFFF);
+		assertEquals(0x7F0000, heatmap.getRGB(2, 0) & 0xFFFFFF);
+		assertEquals(0x7F0000, heatmap.getRGB(3, 0) & 0xFFFFFF);
+		//Without values, the heatmap is dark blue.
+		assertEquals(0x00007F, aovs.heatmap(Channel.NODES_VISITED).getRGB(2, 0) & 0xFFFFFF);
+		assertThrows(IllegalArgumentException.class, () -> aovs.heatmap(Channel.NORMAL));
+	}
+
+	/**
+	 * Checks the surface data of a pixel.
+	 * @param aovs The buffers.
+	 * @param pixel The index of the pixel.
+	 * @param albedo The expected albedo.
+	 * @param normal The expected normal.
+	 * @param depth The expected depth.
+	 * @param id The expected identifier of the geometry.
+	 * @param message The message of a failure.
+	 */
+	private static void assertPixel(AovBuffers aovs, int pixel, float[] albedo, float[] normal, float depth, int id, String message) {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(albedo[i], aovs.getAlbedo()[3 * pixel + i], 1e-3, "albedo of " + message);
+			assertEquals(normal[i], aovs.getNormal()[3 * pixel + i], 1e-6, "normal of " + message);
+		}
+		assertEquals(depth, aovs.getDepth()[pixel], 1e-3, "depth of " + message);
+		assertEquals(id, aovs.getChannel(Channel.GEOMETRY_ID)[pixel], "identifier of " + message);
+	}
+
+	/**
+	 * Renders the auxiliary buffers of a sphere in front of the camera, which is
+	 * the second geometry of the scene. The first one is out of the view.
+	 * @param viewPlane The number of pixels of the view plane in every row and column.
+	 * @return The buffers.
+	 */
+	private static AovBuffers render(int viewPlane) {
+		Scene scene = new Scene("scene");
+		List<LightSource> lights = new ArrayList<LightSource>();
+		Geometries geometries = new Geometries(new Material(), null);
+		scene.setCamera(new Point3D(0, 0, 0), new Vector(0, 1, 0), new Vector(0, 0, -1), 0);
+		scene.setDistance(40);
+		scene.setGeomtries(geometries);
+		scene.setLights(lights);
+		scene.setFocalPlane(1000);
+		scene.setBackground(new Color(10, 20, 30));
+		scene.setMaxReflectedDistance(4000);
+		lights.add(new PointLight(Color.white, new Point3D(0, 500, 0), 0, 1, 0.0001, 0.000001));
+		geometries.addGeometry(new Sphere(10, new Point3D(0, -5000, 0),
+				new Material(0.5, 0.5, 20, 0, 0, 1, 0), new ColorEmissionImp(new Color(200, 0, 0))));
+		geometries.addGeometry(new Sphere(200, new Point3D(0, 0, -1000),
+				new Material(0.5, 0.5, 20, 0, 0, 1, 0), new ColorEmissionImp(new Color(60, 90, 120))));
+
+		Renderer render = new Renderer(new ImageWriter("aovs", SIZE, SIZE, viewPlane, viewPlane), scene);
+		render.setAovs(true);
+		render.renderImage();
+		return render.getAovs();
+	}
+}
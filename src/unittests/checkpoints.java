@@ -0,0 +1,100 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import elements.LightSource;
+import elements.PointLight;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.Color;
+import primitives.ColorEmissionImp;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Vector;
+import renderer.ImageWriter;
+import renderer.Renderer;
+import scene.Scene;
+
+class checkpoints {
+
+	/**
+	 * A render that is interrupted after some tiles and then resumed from its
+	 * checkpoint gives the image of an uninterrupted render, without rendering
+	 * the saved tiles again, and the checkpoint is deleted when it is completed.
+	 */
+	@Test
+	void resumedRenderMatchesWholeRender() throws IOException {
+		AtomicLong whole = new AtomicLong();
+		float[] expected = render(whole, Long.MAX_VALUE, 1, null);
+		File file = File.createTempFile("checkpoint", ".bin");
+		file.delete();
+		try {
+			//A single thread renders the tiles on the calling thread, so the
+			//interrupt stops it right after the tile of that light sample.
+			render(new AtomicLong(), whole.get() / 3, 1, file);
+			assertTrue(Thread.interrupted());
+			assertTrue(file.exists());
+			AtomicLong resumed = new AtomicLong();
+			float[] actual = render(resumed, Long.MAX_VALUE, 3, file);
+			assertTrue(actual[3 * (40 * 80 + 40)] > 0, "a black image");
+			assertArrayEquals(expected, actual);
+			assertTrue(resumed.get() < whole.get() * 3 / 4, resumed.get() + " of " + whole.get());
+			assertFalse(file.exists());
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Renders a small scene of several tiles, with soft shadows.
+	 * @param samples Counts the light samples of the render.
+	 * @param interrupt The number of light samples after which the calling thread is interrupted.
+	 * @param threads The number of rendering threads.
+	 * @param checkpoint The checkpoint file, null for a render without checkpoint.
+	 * @return The framebuffer of the image.
+	 */
+	private static float[] render(AtomicLong samples, long interrupt, int threads, File checkpoint) {
+		Scene scene = new Scene("scene");
+		List<LightSource> lights = new ArrayList<LightSource>();
+		Geometries geometries = new Geometries(new Material(), null);
+		scene.setCamera(new Point3D(0, 1100, 3200), new Vector(0, 1, 0), new Vector(0, 0, -1), 0);
+		scene.setDistance(3180.0 * 80 / 2000);
+		scene.setGeomtries(geometries);
+		scene.setLights(lights);
+		scene.setFocalPlane(20 + 430*3);
+		scene.setBackground(new Color(10, 10, 10));
+		scene.setMaxReflectedDistance(4000);
+		lights.add(new PointLight(Color.white, new Point3D(0, 3600, -6000), 56, 0.00001, 0.000000001, 0.00000005) {
+			@Override
+			public Color getIntensity(Point3D point) {
+				if (samples.incrementAndGet() == interrupt)
+					Thread.currentThread().interrupt();
+				return super.getIntensity(point);
+			}
+		});
+		geometries.addGeometry(new geometries.Rectangle(
+				new Point3D(-4000, 0, 0), new Point3D(4000, 0, 0), new Point3D(-4000, 0, -16000),
+				new Material(0.3, 0.15, 80, 0, 0, 1, 0), new ColorEmissionImp(new Color(103, 93, 80))));
+		geometries.addGeometry(new Sphere(400, new Point3D(100, 401, -430*5),
+				new Material(0.15, 0.25, 85, 0, 0, 1, 0), new ColorEmissionImp(new Color(120, 50, 50))));
+
+		ImageWriter imageWriter = new ImageWriter("checkpoint", 80, 80, 80, 80);
+		Renderer render = new Renderer(imageWriter, scene);
+		render.setThreads(threads);
+		render.setSeed(5);
+		if (checkpoint != null)
+			render.setCheckpoint(checkpoint.getPath(), 0);
+		render.renderImage();
+		return render.getImageWriter().getBuffer().clone();
+	}
+}
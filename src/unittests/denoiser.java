@@ -0,0 +1,129 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.AovBuffers;
+import renderer.Denoiser;
+
+class denoiser {
+
+	/**
+	 * The size of the images of the tests, whose left half is a surface and right half another one.
+	 */
+	private static final int SIZE = 32;
+
+	/**
+	 * The noise of a flat surface is smoothed, and the edge between two surfaces
+	 * is kept when they differ in their albedo, their normal or their depth.
+	 */
+	@Test
+	void edgesAreKept() {
+		for (String guide : new String[] {"albedo", "normal", "depth"}) {
+			AovBuffers aovs = surfaces(guide);
+			float[] color = noisyHalves(20);
+			double before = deviation(color, 0, SIZE / 2 - 4);
+			new Denoiser().denoise(color, aovs, 3);
+			assertTrue(deviation(color, 0, SIZE / 2 - 4) < before / 4, guide + ": " + before + " to " + deviation(color, 0, SIZE / 2 - 4));
+			assertTrue(deviation(color, SIZE / 2 + 4, SIZE) < before / 4, guide);
+			//The columns next to the edge keep the colors of their sides.
+			assertEquals(100, mean(color, SIZE / 2 - 1, SIZE / 2), 3, guide);
+			assertEquals(150, mean(color, SIZE / 2, SIZE / 2 + 1), 3, guide);
+		}
+	}
+
+	/**
+	 * Without a difference in the albedo, the normal or the depth, the edge is blurred,
+	 * since the difference of the colors alone is within the tolerance of the colors.
+	 */
+	@Test
+	void edgeOfLightingIsBlurred() {
+		float[] color = noisyHalves(0);
+		new Denoiser().denoise(color, surfaces(null), 1);
+		assertTrue(mean(color, SIZE / 2 - 1, SIZE / 2) > 105);
+		assertTrue(mean(color, SIZE / 2, SIZE / 2 + 1) < 145);
+	}
+
+	/**
+	 * Creates the auxiliary buffers of two surfaces, the left half of the image and the right half.
+	 * @param guide The buffer in which the surfaces differ: "albedo", "normal"
+	 * or "depth", null for the same surface in both halves.
+	 * @return The buffers.
+	 */
+	private static AovBuffers surfaces(String guide) {
+		AovBuffers aovs = new AovBuffers(SIZE, SIZE);
+		float[] albedo = aovs.getAlbedo(), normal = aovs.getNormal(), depth = aovs.getDepth();
+		Arrays.fill(albedo, 150);
+		Arrays.fill(depth, 1000);
+		for (int pixel = 0; pixel < SIZE * SIZE; pixel++) {
+			normal[3 * pixel + 2] = 1;
+			if (pixel % SIZE < SIZE / 2) {
+				continue;
+			}
+			if ("albedo".equals(guide)) {
+				albedo[3 * pixel] = 60;
+			} else if ("normal".equals(guide)) {
+				normal[3 * pixel] = 0.8f;
+				normal[3 * pixel + 2] = 0.6f;
+			} else if ("depth".equals(guide)) {
+				depth[pixel] = 1500;
+			}
+		}
+		return aovs;
+	}
+
+	/**
+	 * Creates a gray image whose left half is 100 and right half is 150, with noise.
+	 * @param noise The largest difference of the noise from the color of the half.
+	 * @return The framebuffer of the image.
+	 */
+	private static float[] noisyHalves(float noise) {
+		Random random = new Random(15);
+		float[] color = new float[3 * SIZE * SIZE];
+		for (int pixel = 0; pixel < SIZE * SIZE; pixel++) {
+			float value = (pixel % SIZE < SIZE / 2 ? 100 : 150) + noise * (2 * random.nextFloat() - 1);
+			Arrays.fill(color, 3 * pixel, 3 * pixel + 3, value);
+		}
+		return color;
+	}
+
+	/**
+	 * Calculates the mean of the red of some columns of an image.
+	 * @param color The framebuffer of the image.
+	 * @param first The first column.
+	 * @param last The column after the last column.
+	 * @return The mean.
+	 */
+	private static double mean(float[] color, int first, int last) {
+		double sum = 0;
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = first; x < last; x++) {
+				sum += color[3 * (y * SIZE + x)];
+			}
+		}
+		return sum / (SIZE * (last - first));
+	}
+
+	/**
+	 * Calculates the standard deviation of the red of some columns of an image.
+	 * @param color The framebuffer of the image.
+	 * @param first The first column.
+	 * @param last The column after the last column.
+	 * @return The standard deviation.
+	 */
+	private static double deviation(float[] color, int first, int last) {
+		double mean = mean(color, first, last), sum = 0;
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = first; x < last; x++) {
+				double difference = color[3 * (y * SIZE + x)] - mean;
+				sum += difference * difference;
+			}
+		}
+		return Math.sqrt(sum / (SIZE * (last - first)));
+	}
+}
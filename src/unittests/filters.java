@@ -0,0 +1,123 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import elements.LightSource;
+import elements.PointLight;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.Color;
+import primitives.ColorEmissionImp;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Vector;
+import renderer.GaussianFilter;
+import renderer.ImageWriter;
+import renderer.MitchellFilter;
+import renderer.ReconstructionFilter;
+import renderer.Renderer;
+import renderer.TentFilter;
+import scene.Scene;
+
+class filters {
+
+	/**
+	 * The samples of every pixel are divided by the sum of their weights, so an
+	 * image of the background alone is the background with every filter, also
+	 * on the edges of the image, where some of the weights are outside of it.
+	 */
+	@Test
+	void weightsAreNormalized() {
+		for (ReconstructionFilter filter : new ReconstructionFilter[] {
+				new TentFilter(1.5), new GaussianFilter(1.5, 0.5), new MitchellFilter(), new MitchellFilter(3, 1, 0)}) {
+			float[] buffer = render(filter, 20, 60, 1, false);
+			for (int index = 0; index < buffer.length; index++) {
+				assertEquals(index % 3 == 2 ? 30 : 10, buffer[index], 1e-4, filter.getClass().getSimpleName() + ", component " + index);
+			}
+		}
+	}
+
+	/**
+	 * A filter that is wider than a tile's border splats into the tiles around it,
+	 * in the four phases, and the image is the same for one thread and for many.
+	 */
+	@Test
+	void splatsOfPhasesSumWithoutRaces() {
+		ReconstructionFilter filter = new MitchellFilter(3, 1 / 3.0, 1 / 3.0);
+		float[] expected = render(filter, 70, 140, 1, true);
+		for (int threads : new int[] {2, 4, 7}) {
+			assertArrayEquals(expected, render(filter, 70, 140, threads, true), threads + " threads");
+		}
+	}
+
+	/**
+	 * A box of a single pixel gives the average of the samples of every pixel,
+	 * as the super sampling without a filter.
+	 */
+	@Test
+	void boxMatchesAveraging() {
+		ReconstructionFilter box = new ReconstructionFilter() {
+			@Override
+			public double getRadius() {
+				return 0.5;
+			}
+
+			@Override
+			public double evaluate(double offset) {
+				return Math.abs(offset) < 0.5 ? 1 : 0;
+			}
+		};
+		float[] expected = render(null, 40, 120, 3, true), actual = render(box, 40, 120, 3, true);
+		for (int index = 0; index < expected.length; index++) {
+			assertEquals(expected[index], actual[index], 1e-3 * Math.max(1, expected[index]), "component " + index);
+		}
+	}
+
+	/**
+	 * Renders a small super sampled scene.
+	 * @param filter The reconstruction filter, null for averaging the samples of every pixel.
+	 * @param size The width and height of the image.
+	 * @param viewPlane The number of pixels of the view plane in every row and column.
+	 * @param threads The number of rendering threads.
+	 * @param geometries Whether the scene has visible geometries, or only the background.
+	 * @return The framebuffer of the image.
+	 */
+	private static float[] render(ReconstructionFilter filter, int size, int viewPlane, int threads, boolean geometries) {
+		Scene scene = new Scene("scene");
+		List<LightSource> lights = new ArrayList<LightSource>();
+		Geometries all = new Geometries(new Material(), null);
+		scene.setCamera(new Point3D(0, 1100, 3200), new Vector(0, 1, 0), new Vector(0, 0, -1), 0);
+		scene.setDistance(3180.0 * size / 2000);
+		scene.setGeomtries(all);
+		scene.setLights(lights);
+		scene.setFocalPlane(20 + 430*3);
+		scene.setBackground(new Color(10, 10, 30));
+		scene.setMaxReflectedDistance(4000);
+		lights.add(new PointLight(Color.white, new Point3D(0, 3600, -6000), 0, 0.00001, 0.000000001, 0.00000005));
+		if (geometries) {
+			all.addGeometry(new geometries.Rectangle(
+					new Point3D(-4000, 0, 0), new Point3D(4000, 0, 0), new Point3D(-4000, 0, -16000),
+					new Material(0.3, 0.15, 80, 0, 0, 1, 0), new ColorEmissionImp(new Color(103, 93, 80))));
+			all.addGeometry(new Sphere(400, new Point3D(100, 401, -430*5),
+					new Material(0.15, 0.25, 85, 0, 0, 1, 0), new ColorEmissionImp(new Color(120, 50, 50))));
+		} else {
+			//Out of the view, since the geometries may not be empty.
+			all.addGeometry(new Sphere(10, new Point3D(0, -100000, 0),
+					new Material(0.15, 0.25, 85, 0, 0, 1, 0), new ColorEmissionImp(new Color(120, 50, 50))));
+		}
+
+		ImageWriter imageWriter = new ImageWriter("filter", size, size, viewPlane, viewPlane);
+		Renderer render = new Renderer(imageWriter, scene);
+		render.setThreads(threads);
+		render.setSeed(3);
+		render.setFilter(filter);
+		render.renderImage();
+		return render.getImageWriter().getBuffer().clone();
+	}
+}
@@ -0,0 +1,425 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.EncodingQueue;
+import renderer.ImageEncoder;
+import renderer.ImageWriter;
+import renderer.PfmEncoder;
+import renderer.ParallelPngEncoder;
+import renderer.PfmStreamEncoder;
+import renderer.PngStreamEncoder;
+import renderer.StreamEncoder;
+import renderer.TiledExrEncoder;
+
+class imageEncoders {
+
+	/**
+	 * The PFM file has the colors of the framebuffer as they are, from the bottom row up.
+	 */
+	@Test
+	void pfmRoundTrip() throws IOException {
+		ImageWriter image = randomImage(37, 23, 1);
+		float[] pixels = readPfm(encode(new PfmEncoder(), image), 37, 23);
+		float[] buffer = image.getBuffer();
+		for (int index = 0; index < buffer.length; index++) {
+			assertEquals(buffer[index] / 255f, pixels[index], "component " + index);
+		}
+	}
+
+	/**
+	 * The tiles of the EXR file have the colors of the framebuffer as rounded half floats,
+	 * also in the tiles on the edges, which are smaller than the others.
+	 */
+	@Test
+	void exrRoundTrip() throws IOException {
+		int width = 37, height = 23, tileSize = 16;
+		ImageWriter image = randomImage(width, height, 2);
+		float[] buffer = image.getBuffer();
+		//Numbers of every kind of half float: zero, subnormal, the largest and too large.
+		float[] special = {0, -0f, 1e-7f * 255, -3e-6f * 255, 65504f * 255, 1e8f, Float.NaN, Float.NEGATIVE_INFINITY};
+		System.arraycopy(special, 0, buffer, 3 * (width * 20 + 35), special.length);
+
+		ByteBuffer file = ByteBuffer.wrap(encode(new TiledExrEncoder(tileSize), image)).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(20000630, file.getInt());
+		assertEquals(2 | 0x200, file.getInt());
+		for (String name = readString(file); !name.isEmpty(); name = readString(file)) {
+			readString(file);
+			int size = file.getInt();
+			if (name.equals("tiles")) {
+				assertEquals(tileSize, file.getInt(file.position()));
+				assertEquals(tileSize, file.getInt(file.position() + 4));
+			} else if (name.equals("dataWindow")) {
+				assertEquals(width - 1, file.getInt(file.position() + 8));
+				assertEquals(height - 1, file.getInt(file.position() + 12));
+			}
+			file.position(file.position() + size);
+		}
+
+		int tilesX = (width + tileSize - 1) / tileSize, tilesY = (height + tileSize - 1) / tileSize;
+		long[] offsets = new long[tilesX * tilesY];
+		for (int tile = 0; tile < offsets.length; tile++) {
+			offsets[tile] = file.getLong();
+		}
+		for (int tileY = 0; tileY < tilesY; tileY++) {
+			for (int tileX = 0; tileX < tilesX; tileX++) {
+				int tileWidth = Math.min(tileSize, width - tileX * tileSize),
+					tileHeight = Math.min(tileSize, height - tileY * tileSize);
+				file.position((int)offsets[tileY * tilesX + tileX]);
+				assertEquals(tileX, file.getInt());
+				assertEquals(tileY, file.getInt());
+				assertEquals(0, file.getInt());
+				assertEquals(0, file.getInt());
+				assertEquals(6 * tileWidth * tileHeight, file.getInt());
+				for (int y = tileY * tileSize; y < tileY * tileSize + tileHeight; y++) {
+					//The channels of every scanline are B, G and R.
+					for (int channel = 2; channel >= 0; channel--) {
+						for (int x = tileX * tileSize; x < tileX * tileSize + tileWidth; x++) {
+							assertHalf(buffer[3 * (y * width + x) + channel] / 255f, file.getShort());
+						}
+					}
+				}
+			}
+		}
+		assertEquals(file.limit(), file.position());
+	}
+
+	/**
+	 * The streamed PFM file is the same as the PFM file of the whole image,
+	 * also when the last band is partial.
+	 */
+	@Test
+	void pfmStreamMatchesPfm() throws IOException {
+		ImageWriter image = randomImage(37, 23, 3);
+		byte[] whole = encode(new PfmEncoder(), image);
+		for (int bandRows : new int[] {1, 5, 23, 40}) {
+			assertArrayEquals(whole, stream(new PfmStreamEncoder(), image, 23, bandRows), "bands of " + bandRows);
+		}
+	}
+
+	/**
+	 * The rows that were not streamed are black.
+	 */
+	@Test
+	void unreachedRowsAreBlack() throws IOException {
+		ImageWriter image = randomImage(37, 23, 4);
+		float[] pixels = readPfm(stream(new PfmStreamEncoder(), image, 10, 4), 37, 23),
+				buffer = image.getBuffer();
+		for (int index = 0; index < buffer.length; index++) {
+			assertEquals(index < 3 * 37 * 10 ? buffer[index] / 255f : 0, pixels[index], "component " + index);
+		}
+	}
+
+	/**
+	 * A stream whose file cannot be created fails when it is opened, and a band
+	 * that cannot be written fails the stream when it is closed.
+	 */
+	@Test
+	void streamFailuresAreThrown() throws IOException {
+		Path directory = Files.createTempDirectory("stream");
+		try {
+			ImageWriter missing = new ImageWriter("stream", 8, 8, 8, 8, new PfmStreamEncoder());
+			missing.setDirectory(directory.resolve("missing").toString());
+			assertThrows(UncheckedIOException.class, () -> missing.openStream(4));
+			AtomicInteger bands = new AtomicInteger();
+			ImageWriter failing = new ImageWriter("stream", 8, 8, 8, 8, new PfmStreamEncoder() {
+				@Override
+				public void writeRows(float[] band, int firstRow, int numOfRows) throws IOException {
+					if (bands.incrementAndGet() == 2)
+						throw new IOException("band " + firstRow);
+					super.writeRows(band, firstRow, numOfRows);
+				}
+			});
+			failing.setDirectory(directory.toString());
+			failing.openStream(2);
+			failing.flushBand();
+			//The failure of the second band is kept, and the later bands are not written.
+			failing.flushBand();
+			failing.flushBand();
+			UncheckedIOException e = assertThrows(UncheckedIOException.class, failing::closeStream);
+			assertEquals("band 2", e.getCause().getMessage());
+			assertEquals(2, bands.get());
+		} finally {
+			Files.deleteIfExists(directory.resolve("stream.pfm"));
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * The streamed PNG file has the same pixels as the PNG file of the whole image.
+	 */
+	@Test
+	void pngStreamMatchesPng() throws IOException {
+		ImageWriter image = randomImage(300, 200, 5);
+		assertSamePixels(decode(encode(ImageEncoder.PNG, image)), decode(stream(new PngStreamEncoder(), image, 200, 7)));
+	}
+
+	/**
+	 * The PNG file that is compressed in parallel chunks is a valid zlib stream, whose
+	 * checksum is combined from the chunks, and it has the pixels of the PNG file.
+	 */
+	@Test
+	void parallelPngMatchesPng() throws IOException, DataFormatException {
+		//Three chunks, the last of them partial.
+		int width = 600, height = 1300;
+		ImageWriter image = randomImage(width, height, 6);
+		byte[] parallel = encode(new ParallelPngEncoder(4), image);
+		assertArrayEquals(encode(new ParallelPngEncoder(1), image), parallel);
+		assertEquals(height * (1 + 3 * width), inflatePng(parallel));
+		assertSamePixels(decode(encode(ImageEncoder.PNG, image)), decode(parallel));
+	}
+
+	/**
+	 * A failed job does not stop the frames after it, and its failure is thrown when the queue is closed.
+	 */
+	@Test
+	void failedJobsAreReported() {
+		AtomicInteger written = new AtomicInteger();
+		EncodingQueue queue = new EncodingQueue(2, 2);
+		for (int i = 0; i < 10; i++) {
+			int frame = i;
+			queue.submit(() -> {
+				if (frame % 3 == 1)
+					throw new IllegalArgumentException("frame " + frame);
+				written.incrementAndGet();
+			});
+		}
+		IllegalStateException e = assertThrows(IllegalStateException.class, queue::close);
+		assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+		assertEquals(2, e.getCause().getSuppressed().length);
+		assertEquals(7, written.get());
+		//The failure is thrown once.
+		queue.close();
+	}
+
+	/**
+	 * A frame whose directory does not exist fails its job, and the error of its
+	 * file is thrown when the queue is closed, while the other frames are written.
+	 */
+	@Test
+	void failedFramesAreReported() throws IOException {
+		Path directory = Files.createTempDirectory("queue");
+		try {
+			ImageWriter written = randomImage(20, 10, 7), lost = randomImage(20, 10, 8);
+			written.setDirectory(directory.toString());
+			written.setEncoder(ImageEncoder.PNG);
+			lost.setDirectory(directory.resolve("missing").toString());
+			EncodingQueue queue = new EncodingQueue(2, 1);
+			queue.submit(lost);
+			queue.submit(written);
+			IllegalStateException e = assertThrows(IllegalStateException.class, queue::close);
+			assertEquals(UncheckedIOException.class, e.getCause().getClass());
+			assertTrue(Files.exists(directory.resolve("random.png")));
+		} finally {
+			Files.deleteIfExists(directory.resolve("random.png"));
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Checks the CRCs of the chunks of a PNG file and inflates its image data,
+	 * which checks the Adler-32 checksum of the zlib stream.
+	 * @param bytes The bytes of the file.
+	 * @return The number of the inflated bytes.
+	 */
+	static int inflatePng(byte[] bytes) throws DataFormatException {
+		ByteBuffer file = ByteBuffer.wrap(bytes);
+		file.position(8);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		while (file.hasRemaining()) {
+			int length = file.getInt(), start = file.position();
+			CRC32 crc = new CRC32();
+			crc.update(bytes, start, 4 + length);
+			if (new String(bytes, start, 4, StandardCharsets.US_ASCII).equals("IDAT"))
+				data.write(bytes, start + 4, length);
+			file.position(start + 4 + length);
+			assertEquals((int)crc.getValue(), file.getInt());
+		}
+		Inflater inflater = new Inflater();
+		inflater.setInput(data.toByteArray());
+		byte[] output = new byte[1 << 16];
+		int total = 0;
+		while (!inflater.finished()) {
+			int length = inflater.inflate(output);
+			assertTrue(length > 0 || !inflater.needsInput(), "the zlib stream is cut");
+			total += length;
+		}
+		inflater.end();
+		return total;
+	}
+
+	/**
+	 * Streams the rows of an image to a temporary file, band by band.
+	 * @param encoder The encoder of the stream.
+	 * @param image The image.
+	 * @param rows The number of rows that are streamed, from the top.
+	 * @param bandRows The number of rows in every band.
+	 * @return The bytes of the file.
+	 */
+	static byte[] stream(StreamEncoder encoder, ImageWriter image, int rows, int bandRows) throws IOException {
+		int width = image.getWidth(), height = image.getHeight();
+		float[] buffer = image.getBuffer();
+		Path directory = Files.createTempDirectory("stream");
+		Path file = directory.resolve("stream." + encoder.getExtension());
+		try {
+			ImageWriter streamed = new ImageWriter("stream", width, height, width, height, encoder);
+			streamed.setDirectory(directory.toString());
+			streamed.openStream(bandRows);
+			for (int y = 0; y < rows; y++) {
+				if (y > 0 && y % bandRows == 0) {
+					streamed.flushBand();
+				}
+				for (int x = 0; x < width; x++) {
+					int index = 3 * (y * width + x);
+					streamed.writePixel(x, y, buffer[index], buffer[index + 1], buffer[index + 2]);
+				}
+			}
+			streamed.closeStream();
+			return Files.readAllBytes(file);
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Decodes an image file.
+	 * @param bytes The bytes of the file.
+	 * @return The image.
+	 */
+	static BufferedImage decode(byte[] bytes) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+		assertNotNull(image);
+		return image;
+	}
+
+	/**
+	 * Checks that two images have the same size and pixels.
+	 * @param expected The expected image.
+	 * @param actual The actual image.
+	 */
+	static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + ", " + y);
+			}
+		}
+	}
+
+	/**
+	 * Creates an image with random colors in its framebuffer, some of them
+	 * negative and some above the range of a byte.
+	 * @param width The width of the image.
+	 * @param height The height of the image.
+	 * @param seed The seed of the colors.
+	 * @return The image.
+	 */
+	static ImageWriter randomImage(int width, int height, long seed) {
+		ImageWriter image = new ImageWriter("random", width, height, width, height);
+		float[] buffer = image.getBuffer();
+		Random random = new Random(seed);
+		for (int index = 0; index < buffer.length; index++) {
+			buffer[index] = random.nextFloat() * 300 - 20;
+		}
+		return image;
+	}
+
+	/**
+	 * Encodes an image into the memory.
+	 * @param encoder The encoder.
+	 * @param image The image.
+	 * @return The bytes of the file.
+	 */
+	static byte[] encode(ImageEncoder encoder, ImageWriter image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.encode(image, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads a little endian PFM file.
+	 * @param bytes The bytes of the file.
+	 * @param width The expected width.
+	 * @param height The expected height.
+	 * @return The colors, from the top row down.
+	 */
+	static float[] readPfm(byte[] bytes, int width, int height) {
+		String header = "PF\n" + width + " " + height + "\n-1.0\n";
+		assertEquals(header, new String(bytes, 0, header.length(), StandardCharsets.US_ASCII));
+		assertEquals(header.length() + 12 * width * height, bytes.length);
+		ByteBuffer data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length()).order(ByteOrder.LITTLE_ENDIAN);
+		float[] pixels = new float[3 * width * height];
+		for (int y = height - 1; y >= 0; y--) {
+			for (int index = 3 * y * width; index < 3 * (y + 1) * width; index++) {
+				pixels[index] = data.getFloat();
+			}
+		}
+		return pixels;
+	}
+
+	/**
+	 * Reads a null terminated string.
+	 * @param buffer The buffer, at the beginning of the string.
+	 * @return The string.
+	 */
+	private static String readString(ByteBuffer buffer) {
+		StringBuilder string = new StringBuilder();
+		for (byte b = buffer.get(); b != 0; b = buffer.get()) {
+			string.append((char)b);
+		}
+		return string.toString();
+	}
+
+	/**
+	 * Checks that a half float is the nearest half float to a float.
+	 * @param expected The float.
+	 * @param half The bits of the half float.
+	 */
+	private static void assertHalf(float expected, short half) {
+		int exponent = (half >> 10) & 0x1F, mantissa = half & 0x3FF;
+		double sign = half < 0 ? -1 : 1, value;
+		if (exponent == 0x1F)
+			value = mantissa != 0 ? Double.NaN : sign * Double.POSITIVE_INFINITY;
+		else if (exponent == 0)
+			value = sign * mantissa * Math.pow(2, -24);
+		else
+			value = sign * (1024 + mantissa) * Math.pow(2, exponent - 25);
+
+		if (Float.isNaN(expected)) {
+			assertTrue(Double.isNaN(value), "NaN became " + value);
+		} else if (Math.abs(expected) >= 65520) {
+			assertEquals((double)expected > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY, value);
+		} else {
+			//Half of the distance between two neighbor half floats.
+			double tolerance = Math.abs(expected) < Math.pow(2, -14) ? Math.pow(2, -25) : Math.abs(expected) * Math.pow(2, -11);
+			assertEquals(expected, value, tolerance, "half of " + expected);
+			assertEquals(expected < 0 || Float.floatToIntBits(expected) == Float.floatToIntBits(-0f), half < 0, "sign of " + expected);
+		}
+	}
+}
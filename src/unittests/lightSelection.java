@@ -0,0 +1,223 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import elements.AllLightsSelector;
+import elements.DirectionalLight;
+import elements.InfluenceCullingSelector;
+import elements.LightSelector;
+import elements.LightSource;
+import elements.LightTreeSelector;
+import elements.PointLight;
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+import util.random;
+
+class lightSelection {
+
+	/**
+	 * On average, the weighted lights that the light tree picks give the same lighting as all the lights.
+	 */
+	@Test
+	void lightTreeIsUnbiased() {
+		List<LightSource> lights = createLights();
+		LightSelector all = new AllLightsSelector(), tree = new LightTreeSelector(2);
+		all.build(lights);
+		tree.build(lights);
+		assertTrue(tree.getMaxSelected() < all.getMaxSelected());
+		LightSource[] selected = new LightSource[all.getMaxSelected()];
+		double[] weights = new double[selected.length];
+		random.getStream().setSeed(11);
+		for (Point3D point : new Point3D[] {new Point3D(0, 0, 0), new Point3D(-900, 50, -1500), new Point3D(1200, 300, -3000)}) {
+			double expected = lighting(point, selected, weights, all.select(point, selected, weights));
+			double sum = 0;
+			int rounds = 200000;
+			for (int i = 0; i < rounds; i++) {
+				sum += lighting(point, selected, weights, tree.select(point, selected, weights));
+			}
+			assertEquals(expected, sum / rounds, expected * 0.01, "lighting in " + point);
+		}
+	}
+
+	/**
+	 * The lights without a position are always picked by the light tree, with a weight of one.
+	 */
+	@Test
+	void unboundedLightsAlwaysPicked() {
+		List<LightSource> lights = createLights();
+		LightSelector tree = new LightTreeSelector(3);
+		tree.build(lights);
+		LightSource[] selected = new LightSource[tree.getMaxSelected()];
+		double[] weights = new double[selected.length];
+		random.getStream().setSeed(12);
+		for (int i = 0; i < 1000; i++) {
+			int count = tree.select(new Point3D(i, 0, -i), selected, weights);
+			assertTrue(count >= 2 && count <= selected.length, "count " + count);
+			assertSame(lights.get(0), selected[0]);
+			assertEquals(1, weights[0]);
+		}
+	}
+
+	/**
+	 * The culling selects exactly the lights whose sphere of influence covers a point, 
+	 * and the lights without a sphere, with a weight of one, in random points inside and 
+	 * outside the grid. Among the lights, there is a light whose sphere covers too many 
+	 * cells, a light that is never below the cutoff, and a light that is always below it.
+	 */
+	@Test
+	void cullingMatchesBruteForce() {
+		Random rand = new Random(13);
+		List<LightSource> lights = new ArrayList<LightSource>();
+		lights.add(new DirectionalLight(new Color(30, 30, 30), new Vector(0, -1, -1)));
+		for (int i = 0; i < 200; i++) {
+			Color color = new Color(50 + rand.nextInt(100), 50 + rand.nextInt(100), 50 + rand.nextInt(100));
+			Point3D position = new Point3D(-1500 + rand.nextDouble() * 3000, -1500 + rand.nextDouble() * 3000, -1500 + rand.nextDouble() * 3000);
+			lights.add(i % 2 == 0 ? new PointLight(color, position, 0, 0, 1, 0) : new PointLight(color, position, 0, 1, 0.01, 0.01));
+		}
+		lights.add(new PointLight(new Color(1200, 0, 0), new Point3D(200, -300, 100), 0, 0, 1, 0));
+		lights.add(new PointLight(new Color(100, 100, 100), new Point3D(0, 0, 0), 0, 1, 0, 0));
+		lights.add(new PointLight(new Color(1, 1, 1), new Point3D(10, 10, 10), 0, 1, 0.1, 0.1));
+		Point3D[] points = new Point3D[5000];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = new Point3D(-3000 + rand.nextDouble() * 6000, -3000 + rand.nextDouble() * 6000, -3000 + rand.nextDouble() * 6000);
+		}
+		assertCulling(lights, 1, points);
+	}
+	
+	/**
+	 * The culling selects exactly the covering lights also in the points on the borders 
+	 * of the cells, on the spheres of influence and on the faces of the grid. All the 
+	 * spheres have the same radius, so the cells are as large as the spheres, and the 
+	 * points of a lattice of half a sphere are on the borders.
+	 */
+	@Test
+	void cullingOnCellBorders() {
+		Random rand = new Random(14);
+		List<LightSource> lights = new ArrayList<LightSource>();
+		for (int i = 0; i < 30; i++) {
+			lights.add(new PointLight(new Color(100, 20 + rand.nextInt(80), 20), 
+					new Point3D(100 * (rand.nextInt(21) - 10), 100 * (rand.nextInt(21) - 10), 100 * (rand.nextInt(21) - 10)), 0, 0, 1, 0));
+		}
+		List<Point3D> points = new ArrayList<Point3D>();
+		for (int x = -1200; x <= 1200; x += 50) {
+			for (int y = -1200; y <= 1200; y += 50) {
+				for (int z = -1200; z <= 1200; z += 50) {
+					points.add(new Point3D(x, y, z));
+				}
+			}
+		}
+		assertCulling(lights, 1, points.toArray(new Point3D[points.size()]));
+	}
+	
+	/**
+	 * The sphere of influence of a point light ends where its strongest color component 
+	 * is attenuated to the cutoff. Without attenuation by the distance, the light is never 
+	 * below the cutoff, or it is always below it, and without a positive cutoff, no light is.
+	 */
+	@Test
+	void influenceRadius() {
+		for (PointLight light : new PointLight[] {
+				new PointLight(new Color(200, 40, 10), new Point3D(5, -7, 3), 0, 1, 0.01, 0.0001),
+				new PointLight(new Color(20, 240, 10), new Point3D(5, -7, 3), 0, 1, 0.02, 0),
+				new PointLight(new Color(20, 40, 100), new Point3D(5, -7, 3), 0, 0.5, 0, 0.001)}) {
+			for (double cutoff : new double[] {0.1, 1, 10}) {
+				double radius = light.getInfluenceRadius(cutoff);
+				Color color = light.getIntensity(new Point3D(5 + radius, -7, 3));
+				//The coordinates of the point are rounded a little.
+				assertEquals(cutoff, Math.max(color.getRed(), Math.max(color.getGreen(), color.getBlue())), cutoff * 1e-6);
+			}
+			assertEquals(Double.POSITIVE_INFINITY, light.getInfluenceRadius(0));
+			assertEquals(Double.POSITIVE_INFINITY, light.getInfluenceRadius(-1));
+		}
+		PointLight constant = new PointLight(new Color(100, 50, 20), new Point3D(0, 0, 0), 0, 2, 0, 0);
+		assertEquals(Double.POSITIVE_INFINITY, constant.getInfluenceRadius(40));
+		assertEquals(0, constant.getInfluenceRadius(50));
+		assertEquals(0, constant.getInfluenceRadius(60));
+		assertEquals(Double.POSITIVE_INFINITY, constant.getInfluenceRadius(0));
+		assertEquals(Double.POSITIVE_INFINITY, constant.getInfluenceRadius(-1));
+	}
+	
+	/**
+	 * Checks the lights that the culling selects in points against the lights 
+	 * whose sphere of influence covers them, found by checking all the lights.
+	 * @param lights The lights.
+	 * @param cutoff The cutoff of the culling.
+	 * @param points The points.
+	 */
+	private static void assertCulling(List<LightSource> lights, double cutoff, Point3D[] points) {
+		LightSelector culling = new InfluenceCullingSelector(cutoff);
+		culling.build(lights);
+		LightSource[] selected = new LightSource[culling.getMaxSelected()];
+		double[] weights = new double[selected.length];
+		for (Point3D point : points) {
+			Set<LightSource> expected = Collections.newSetFromMap(new IdentityHashMap<LightSource, Boolean>()),
+							 actual = Collections.newSetFromMap(new IdentityHashMap<LightSource, Boolean>());
+			for (LightSource light : lights) {
+				if (!(light instanceof PointLight)) {
+					expected.add(light);
+					continue;
+				}
+				double radius = ((PointLight)light).getInfluenceRadius(cutoff);
+				Point3D position = ((PointLight)light).getPosition();
+				double dx = position.getX().getNumber() - point.getX().getNumber(),
+					   dy = position.getY().getNumber() - point.getY().getNumber(),
+					   dz = position.getZ().getNumber() - point.getZ().getNumber();
+				if (radius > 0 && dx * dx + dy * dy + dz * dz <= radius * radius) {
+					expected.add(light);
+				}
+			}
+			int count = culling.select(point, selected, weights);
+			for (int i = 0; i < count; i++) {
+				assertTrue(actual.add(selected[i]), "a light is selected twice in " + point);
+				assertEquals(1, weights[i]);
+			}
+			assertEquals(expected, actual, "lights in " + point);
+		}
+	}
+
+	/**
+	 * Creates a directional light and many point lights of different colors.
+	 * @return The lights, the directional light first.
+	 */
+	private static List<LightSource> createLights() {
+		Random rand = new Random(10);
+		List<LightSource> lights = new ArrayList<LightSource>();
+		lights.add(new DirectionalLight(new Color(30, 30, 30), new Vector(0, -1, -1)));
+		for (int i = 0; i < 40; i++) {
+			lights.add(new PointLight(
+					new Color(20 + rand.nextInt(200), 20 + rand.nextInt(200), 20 + rand.nextInt(200)),
+					new Point3D(-3000 + rand.nextDouble() * 6000, 200 + rand.nextDouble() * 800, -rand.nextDouble() * 6000),
+					0, 1, 0.001, 0.00001));
+		}
+		return lights;
+	}
+
+	/**
+	 * Sums the weighted intensities of the selected lights in a point.
+	 * @param point The point.
+	 * @param selected The selected lights.
+	 * @param weights The weights of the selected lights.
+	 * @param count The number of selected lights.
+	 * @return The sum of the red, green and blue of the weighted intensities.
+	 */
+	private static double lighting(Point3D point, LightSource[] selected, double[] weights, int count) {
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			Color color = selected[i].getIntensity(point);
+			sum += weights[i] * (color.getRed() + color.getGreen() + color.getBlue());
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,46 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.Sphere;
+import primitives.Color;
+import primitives.ColorEmissionImp;
+import primitives.Material;
+import primitives.Point3D;
+
+class materialIntern {
+
+	/**
+	 * Equal materials are interned into a single instance, and different materials are not.
+	 */
+	@Test
+	void equalMaterialsShareAnInstance() {
+		Material first = new Material(0.3, 0.15, 80, 0.2, 0.1, 1, 0.26),
+				 equal = new Material(0.3, 0.15, 80, 0.2, 0.1, 1, 0.26),
+				 other = new Material(0.3, 0.15, 81, 0.2, 0.1, 1, 0.26);
+		assertEquals(first, equal);
+		assertEquals(first.hashCode(), equal.hashCode());
+		assertNotEquals(first, other);
+		assertSame(Material.intern(first), Material.intern(equal));
+		assertSame(Material.intern(first), Material.intern(new Material(first)));
+		assertNotSame(Material.intern(first), Material.intern(other));
+	}
+
+	/**
+	 * Geometries of equal materials share the interned instance, and so do their copies.
+	 */
+	@Test
+	void geometriesShareTheirMaterials() {
+		ColorEmissionImp emission = new ColorEmissionImp(new Color(10, 20, 30));
+		Sphere first = new Sphere(1, new Point3D(0, 0, 0), new Material(0.5, 0.5, 20, 0, 0, 1, 1), emission),
+			   second = new Sphere(2, new Point3D(5, 0, 0), new Material(0.5, 0.5, 20, 0, 0, 1, 1), emission);
+		assertSame(first.getMaterial(), second.getMaterial());
+		assertSame(first.getMaterial(), new Sphere(first).getMaterial());
+		assertSame(first.getMaterial(), Material.intern(new Material(0.5, 0.5, 20, 0, 0, 1, 1)));
+	}
+}
@@ -0,0 +1,294 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+import primitives.MipMap;
+import primitives.TextureCache;
+
+class mipMaps {
+
+	/**
+	 * Every level of the pyramid is half of the level before it, where every
+	 * texel is the rounded average of the two by two texels it covers.
+	 */
+	@Test
+	void levelsAreAverages() {
+		BufferedImage image = randomImage(100, 37, 1);
+		MipMap map = new MipMap(image);
+		assertEquals(7, map.getNumOfLevels());
+		for (int y = 0; y < 37; y++) {
+			for (int x = 0; x < 100; x++) {
+				assertEquals(image.getRGB(x, y) & 0xFFFFFF, map.getTexel(0, x, y));
+			}
+		}
+		for (int level = 1; level < map.getNumOfLevels(); level++) {
+			int width = map.getWidth(level), height = map.getHeight(level);
+			assertEquals(Math.max(1, map.getWidth(level - 1) / 2), width);
+			assertEquals(Math.max(1, map.getHeight(level - 1) / 2), height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					for (int shift = 0; shift <= 16; shift += 8) {
+						int sum = 0;
+						for (int dy = 0; dy < 2; dy++) {
+							for (int dx = 0; dx < 2; dx++) {
+								sum += (map.getTexel(level - 1, 2 * x + dx, 2 * y + dy) >> shift) & 0xFF;
+							}
+						}
+						assertEquals((sum + 2) / 4, (map.getTexel(level, x, y) >> shift) & 0xFF,
+								"level " + level + ", texel " + x + ", " + y);
+					}
+				}
+			}
+		}
+		assertEquals(1, map.getWidth(map.getNumOfLevels() - 1));
+		assertEquals(1, map.getHeight(map.getNumOfLevels() - 1));
+	}
+
+	/**
+	 * The level of detail is the logarithm of the texels of the footprint, and a
+	 * lookup without filtering reads the nearest texel of the nearest level.
+	 */
+	@Test
+	void lookupOfLevelOfDetail() {
+		MipMap map = new MipMap(randomImage(64, 32, 2));
+		assertEquals(0, map.levelOfDetail(0.5 / 64, 0));
+		assertEquals(3, map.levelOfDetail(8.0 / 64, 2.0 / 32), 1e-12);
+		assertEquals(4, map.levelOfDetail(1.0 / 64, 16.0 / 32), 1e-12);
+		for (int level = 0; level < map.getNumOfLevels(); level++) {
+			int width = map.getWidth(level), height = map.getHeight(level);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					//The middle of the texel, where v is 0 at the bottom (and the rows
+					//of the nearest texel are spread over v from 0 to 1 inclusive).
+					double u = (x + 0.5) / width, v = height == 1 ? 0 : Math.min((height - 0.5 - y) / (height - 1), 1);
+					assertEquals(map.getTexel(level, x, y), map.lookup(u, v, level, false));
+					assertEquals(map.getTexel(level, x, y), map.lookup(u, 1 - (y + 0.5) / height, level, true));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The tiles of the exact levels of an image file have the texels of the pyramid 
+	 * of the whole image, also in the partial tiles on the edges, and every tile 
+	 * has the same texels when it is loaded again after it was dropped.
+	 */
+	@Test
+	void tilesMatchWholeImage() throws IOException {
+		BufferedImage image = randomImage(300, 217, 3);
+		File file = writeImage(image);
+		try {
+			MipMap whole = new MipMap(image);
+			TextureCache cache = new TextureCache(1L << 30);
+			MipMap tiled = cache.get(file.getPath());
+			assertSame(tiled, cache.get(file.getPath()));
+			assertEquals(whole.getNumOfLevels(), tiled.getNumOfLevels());
+			for (int level = 0; level <= MipMap.EXACT_LEVELS; level++) {
+				assertArrayEquals(texels(whole, level), texels(tiled, level), "level " + level);
+			}
+			int[][] loaded = new int[tiled.getNumOfLevels()][];
+			for (int level = 0; level < loaded.length; level++) {
+				loaded[level] = texels(tiled, level);
+			}
+			assertTrue(cache.getSize() > 0);
+			cache.clear();
+			assertEquals(0, cache.getSize());
+			//From the last level, so the tiles are loaded in another order.
+			for (int level = loaded.length - 1; level >= 0; level--) {
+				assertArrayEquals(loaded[level], texels(tiled, level), "level " + level);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * The levels above the exact levels, which are averaged from a subsampled read,
+	 * are close to the levels of the whole image when the image is smooth.
+	 */
+	@Test
+	void coarseLevelsAreClose() throws IOException {
+		BufferedImage image = new BufferedImage(1000, 700, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int r = (int)(127.5 + 127.5 * Math.sin(x / 150.0)), g = (int)(127.5 + 127.5 * Math.cos(y / 120.0)),
+					b = (x + y) * 255 / 1700;
+				image.setRGB(x, y, (r << 16) | (g << 8) | b);
+			}
+		}
+		File file = writeImage(image);
+		try {
+			MipMap whole = new MipMap(image), tiled = new TextureCache(1L << 30).get(file.getPath());
+			for (int level = MipMap.EXACT_LEVELS + 1; level < whole.getNumOfLevels(); level++) {
+				int[] expected = texels(whole, level), actual = texels(tiled, level);
+				for (int i = 0; i < expected.length; i++) {
+					for (int shift = 0; shift <= 16; shift += 8) {
+						int difference = ((expected[i] >> shift) & 0xFF) - ((actual[i] >> shift) & 0xFF);
+						assertTrue(Math.abs(difference) <= 8, "level " + level + ", texel " + i + ": " + difference);
+					}
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reading a texel loads its tile alone, not the whole image.
+	 */
+	@Test
+	void onlyReadTilesAreLoaded() throws IOException {
+		File file = writeImage(randomImage(300, 217, 6));
+		try {
+			TextureCache cache = new TextureCache(1L << 30);
+			MipMap tiled = cache.get(file.getPath());
+			assertEquals(0, cache.getSize());
+			tiled.getTexel(0, 100, 100);
+			assertEquals(4 * TextureCache.TILE_SIZE * TextureCache.TILE_SIZE, cache.getSize());
+			//The partial tile of the corner.
+			tiled.getTexel(0, 299, 216);
+			assertEquals(4 * TextureCache.TILE_SIZE * TextureCache.TILE_SIZE + 4 * 44 * 25, cache.getSize());
+			tiled.getTexel(tiled.getNumOfLevels() - 1, 0, 0);
+			assertEquals(4 * TextureCache.TILE_SIZE * TextureCache.TILE_SIZE + 4 * 44 * 25 + 4, cache.getSize());
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * A cache with a small budget drops the least recently read tiles, and
+	 * the tiles that are loaded again have the same texels.
+	 */
+	@Test
+	void smallBudget() throws IOException {
+		File file = writeImage(randomImage(300, 217, 4));
+		try {
+			MipMap all = new TextureCache(1L << 30).get(file.getPath());
+			int[][] expected = new int[all.getNumOfLevels()][];
+			for (int level = 0; level < expected.length; level++) {
+				expected[level] = texels(all, level);
+			}
+			long budget = 3 * 4 * TextureCache.TILE_SIZE * TextureCache.TILE_SIZE;
+			TextureCache cache = new TextureCache(budget);
+			MipMap tiled = cache.get(file.getPath());
+			Random random = new Random(5);
+			for (int i = 0; i < 2000; i++) {
+				int level = random.nextInt(expected.length), width = tiled.getWidth(level),
+					x = random.nextInt(width), y = random.nextInt(tiled.getHeight(level));
+				assertEquals(expected[level][y * width + x], tiled.getTexel(level, x, y), "level " + level + ", texel " + x + ", " + y);
+				assertTrue(cache.getSize() <= budget, "cache size " + cache.getSize());
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * A preloaded image gives the placeholder until its single tile levels are
+	 * decoded, and then the texels of an image that is loaded when it is read.
+	 */
+	@Test
+	void preloadGivesPlaceholder() throws IOException, InterruptedException {
+		File file = writeImage(randomImage(300, 217, 7));
+		try {
+			MipMap expected = new TextureCache(1L << 30).get(file.getPath());
+			TextureCache cache = new TextureCache(1L << 30);
+			cache.setPlaceholder(new Color(255, 0, 300));
+			MipMap image = cache.get(file.getPath());
+			int last = image.getNumOfLevels() - 1;
+			//The decoding waits for the image's lock, so it cannot finish here.
+			synchronized (image) {
+				assertSame(image, cache.preload(file.getPath()));
+				assertEquals(0xFF00FF, image.getTexel(last, 0, 0));
+				assertEquals(0xFF00FF, image.getTexel(0, 0, 0));
+			}
+			cache.awaitLoading();
+			for (int level = last; level >= 0; level--) {
+				assertArrayEquals(texels(expected, level), texels(image, level), "level " + level);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	/**
+	 * The failure to decode a preloaded image is thrown by the wait for the preloading.
+	 */
+	@Test
+	void preloadFailureIsThrown() throws IOException, InterruptedException {
+		File file = writeImage(randomImage(40, 30, 8));
+		try {
+			TextureCache cache = new TextureCache(1L << 30);
+			cache.get(file.getPath());
+			//The file is replaced after its dimensions were read.
+			Files.write(file.toPath(), new byte[] {1, 2, 3, 4});
+			cache.preload(file.getPath());
+			assertThrows(IOException.class, () -> cache.awaitLoading());
+			//The failure is reported once.
+			cache.awaitLoading();
+		} finally {
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Reads all the texels of a level.
+	 * @param map The pyramid.
+	 * @param level The index of the level.
+	 * @return The texels, one row after the other.
+	 */
+	private static int[] texels(MipMap map, int level) {
+		int width = map.getWidth(level), height = map.getHeight(level);
+		int[] texels = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				texels[y * width + x] = map.getTexel(level, x, y);
+			}
+		}
+		return texels;
+	}
+
+	/**
+	 * Writes an image to a temporary PNG file.
+	 * @param image The image.
+	 * @return The file.
+	 */
+	private static File writeImage(BufferedImage image) throws IOException {
+		File file = Files.createTempFile("texture", ".png").toFile();
+		assertTrue(ImageIO.write(image, "png", file));
+		return file;
+	}
+
+	/**
+	 * Creates an image of random colors.
+	 * @param width The width of the image.
+	 * @param height The height of the image.
+	 * @param seed The seed of the colors.
+	 * @return The image.
+	 */
+	static BufferedImage randomImage(int width, int height, long seed) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(seed);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+		return image;
+	}
+}
@@ -0,0 +1,99 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Axis;
+import primitives.CheckerTexture;
+import primitives.Color;
+import primitives.ConstantTexture;
+import primitives.IGetEmission;
+import primitives.PerlinNoise;
+import primitives.PlaneTextureImp;
+import primitives.Point3D;
+import primitives.ProceduralTexture;
+import primitives.SphericalTextureImp;
+import primitives.Texture;
+
+class proceduralTexture {
+
+	/**
+	 * The procedural checker has the same colors and intensities as the checker of Texture.
+	 */
+	@Test
+	void checkerMatchesTexture() {
+		Color first = new Color(100, 20, 20), second = new Color(20, 100, 20), outline = new Color(20, 20, 100);
+		double size = Math.PI / 25, outlineWidth = Math.PI / 160;
+		Texture texture = new Texture(first, second, outline, size, outlineWidth);
+		texture.setOutlineIntensity(true);
+		ProceduralTexture checker = new CheckerTexture(new ConstantTexture(first, 0), new ConstantTexture(second, 0),
+				new ConstantTexture(outline, 1), size, outlineWidth);
+		double[] stack = new double[checker.getStackSize()];
+		Random random = new Random(5);
+		for (int i = 0; i < 1000000; i++) {
+			double x = (random.nextDouble() - 0.5) * 10, y = (random.nextDouble() - 0.5) * 10;
+			Color color = texture.getColor(x, y);
+			checker.evaluate(x, y, 0, stack, 0);
+			assertEquals(color.getRed(), stack[ProceduralTexture.RED], "red in " + x + ", " + y);
+			assertEquals(color.getGreen(), stack[ProceduralTexture.GREEN], "green in " + x + ", " + y);
+			assertEquals(color.getBlue(), stack[ProceduralTexture.BLUE], "blue in " + x + ", " + y);
+			assertEquals(texture.getIntensity(x, y), stack[ProceduralTexture.INTENSITY], "intensity in " + x + ", " + y);
+		}
+	}
+
+	/**
+	 * The lookup of the color and the intensity at once gives the color and the intensity
+	 * of their own functions, on a plane and on a sphere, also from many threads at once.
+	 * On the plane, the outline has the intensity, as on the sphere.
+	 */
+	@Test
+	void emissionLookupMatchesGetters() {
+		Color outline = new Color(20, 20, 100);
+		Texture texture = new Texture(new Color(100, 20, 20), new Color(20, 100, 20), outline, 0.2, 0.02);
+		texture.setOutlineIntensity(true);
+		Point3D center = new Point3D(30, -20, 10);
+		IGetEmission plane = new PlaneTextureImp(texture, new Axis(center), 100, 60),
+					 sphere = new SphericalTextureImp(400, texture, new Axis(center));
+		IntStream.range(0, 100000).parallel().forEach(i -> {
+			Random random = new Random(i);
+			double x = random.nextGaussian(), y = random.nextGaussian(), z = random.nextGaussian(),
+				   length = Math.sqrt(x * x + y * y + z * z), footprint = random.nextDouble() * 5;
+			Point3D onPlane = new Point3D(30 + 500 * x, -20 + 500 * y, 10),
+					onSphere = new Point3D(30 + 400 * x / length, -20 + 400 * y / length, 10 + 400 * z / length);
+			double[] emission = new double[3];
+			for (IGetEmission imp : new IGetEmission[] {plane, sphere}) {
+				Point3D point = imp == plane ? onPlane : onSphere;
+				double intensity = imp.lookup(point, footprint, emission);
+				Color color = imp.getEmission(point, footprint);
+				assertEquals(color.getRed(), emission[0], "red in " + point);
+				assertEquals(color.getGreen(), emission[1], "green in " + point);
+				assertEquals(color.getBlue(), emission[2], "blue in " + point);
+				assertEquals(imp.getIntensity(point, footprint), intensity, "intensity in " + point);
+				assertEquals(color.getBlue() == outline.getBlue() ? 1 : 0, intensity, "outline in " + point);
+			}
+		});
+	}
+
+	/**
+	 * The octaves after the 31st add almost nothing, so the noise does not change with them.
+	 */
+	@Test
+	void noiseWithManyOctaves() {
+		Random random = new Random(7);
+		PerlinNoise reference = new PerlinNoise(7, 1, 31);
+		for (int octaves : new int[] {32, 40, 64}) {
+			PerlinNoise noise = new PerlinNoise(7, 1, octaves);
+			for (int i = 0; i < 10000; i++) {
+				double x = random.nextDouble() * 50, y = random.nextDouble() * 50, z = random.nextDouble() * 50;
+				double value = noise.evaluate(x, y, z);
+				assertTrue(value >= 0 && value <= 1, "noise of " + octaves + " octaves out of range: " + value);
+				assertEquals(reference.evaluate(x, y, z), value, 1e-6, "noise of " + octaves + " octaves");
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import elements.LightSource;
+import elements.PointLight;
+import geometries.Geometries;
+import geometries.Sphere;
+import primitives.Color;
+import primitives.ColorEmissionImp;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Vector;
+import renderer.ImageWriter;
+import renderer.Renderer;
+import scene.Scene;
+import util.RandomStream;
+
+class randomStreams {
+
+	/**
+	 * The streams of the same pixel and seed give the same numbers, and of other pixels they do not.
+	 */
+	@Test
+	void streamOfPixel() {
+		RandomStream first = new RandomStream(RandomStream.seedFor(3, 10, 20)),
+					 same = new RandomStream(RandomStream.seedFor(3, 10, 20)),
+					 other = new RandomStream(RandomStream.seedFor(3, 20, 10));
+		boolean different = false;
+		for (int i = 0; i < 1000; i++) {
+			double value = first.nextDouble();
+			assertEquals(value, same.nextDouble());
+			different |= value != other.nextDouble();
+		}
+		assertTrue(different);
+	}
+
+	/**
+	 * An image with soft shadows and focus rays is the same when it is rendered with one thread or with many.
+	 */
+	@Test
+	void sameImageForAnyNumberOfThreads() {
+		assertArrayEquals(render(24, 24, 1), render(24, 24, 4));
+	}
+
+	/**
+	 * A super sampled image is the same when it is rendered with one thread or with many.
+	 */
+	@Test
+	void sameSuperSampledImageForAnyNumberOfThreads() {
+		assertArrayEquals(render(12, 24, 1), render(12, 24, 3));
+	}
+
+	/**
+	 * Renders a small scene with random soft shadows and focus rays.
+	 * @param size The width and height of the image.
+	 * @param viewPlane The number of pixels of the view plane in every row and column.
+	 * @param threads The number of rendering threads.
+	 * @return The framebuffer of the image.
+	 */
+	private float[] render(int size, int viewPlane, int threads) {
+		Scene scene = new Scene("scene");
+		List<LightSource> lights = new ArrayList<LightSource>();
+		Geometries geometries = new Geometries(new Material(), null);
+		scene.setCamera(new Point3D(0, 1100, 3200), new Vector(0, 1, 0), new Vector(0, 0, -1), 20);
+		scene.setNumFocusRays(3);
+		scene.setDistance(3180.0 * size / 2000);
+		scene.setGeomtries(geometries);
+		scene.setLights(lights);
+		scene.setFocalPlane(20 + 430*3);
+		scene.setBackground(new Color(10, 10, 10));
+		scene.setMaxReflectedDistance(4000);
+		lights.add(new PointLight(Color.white, new Point3D(0, 3600, -6000), 56, 0.00001, 0.000000001, 0.00000005));
+		geometries.addGeometry(new geometries.Rectangle(
+				new Point3D(-4000, 0, 0), new Point3D(4000, 0, 0), new Point3D(-4000, 0, -16000),
+				new Material(0.3, 0.15, 80, 0.3, 0, 1, 0.26), new ColorEmissionImp(new Color(103, 93, 80))));
+		geometries.addGeometry(new Sphere(400, new Point3D(800, 401, -430*5),
+				new Material(0.15, 0.25, 85, 0.3, 0, 1, 0), new ColorEmissionImp(new Color(120, 50, 50))));
+		geometries.addGeometry(new Sphere(330, new Point3D(30, 331, -670*5),
+				new Material(0.35, 0.65, 85, 0, 0, 1, 0), new ColorEmissionImp(new Color(50, 50, 120))));
+
+		ImageWriter imageWriter = new ImageWriter("threads", size, size, viewPlane, viewPlane);
+		Renderer render = new Renderer(imageWriter, scene);
+		render.setThreads(threads);
+		render.setSeed(7);
+		render.renderImage();
+		//The renderer renders into its own copy of the image writer.
+		float[] buffer = render.getImageWriter().getBuffer().clone();
+		float sum = 0;
+		for (float component : buffer) {
+			sum += component;
+		}
+		assertTrue(sum > 0, "a black image");
+		return buffer;
+	}
+}
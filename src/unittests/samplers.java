@@ -0,0 +1,132 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import elements.PointLight;
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+import util.random;
+
+class samplers {
+
+	/**
+	 * The concentric mapping stays in the unit disk and covers it uniformly.
+	 */
+	@Test
+	void diskSamplesInUnitDisk() {
+		Random rand = new Random(1);
+		double[] out = new double[2];
+		double sum = 0;
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			random.sampleDisk(rand.nextDouble(), rand.nextDouble(), out);
+			double squared = out[0] * out[0] + out[1] * out[1];
+			assertTrue(squared <= 1 + 1e-12, "sample out of the disk: " + squared);
+			sum += squared;
+		}
+		//The squared distance from the center of a uniform sample is uniform in [0, 1].
+		assertEquals(0.5, sum / count, 0.01);
+		random.sampleDisk(0.5, 0.5, out);
+		assertEquals(0, out[0]);
+		assertEquals(0, out[1]);
+	}
+
+	/**
+	 * The uniform and the cosine cones give unit directions inside the cone.
+	 */
+	@Test
+	void coneSamplesInCone() {
+		Random rand = new Random(2);
+		double[] out = new double[3];
+		for (double cosThetaMax : new double[] {0, 0.5, 0.9, 0.999}) {
+			double sum = 0;
+			int count = 50000;
+			for (int i = 0; i < count; i++) {
+				random.sampleUniformCone(cosThetaMax, rand.nextDouble(), rand.nextDouble(), out);
+				assertDirectionInCone(out, cosThetaMax);
+				sum += out[2];
+				random.sampleCosineCone(cosThetaMax, rand.nextDouble(), rand.nextDouble(), out);
+				assertDirectionInCone(out, cosThetaMax);
+			}
+			//The cosine of a uniform direction in the cone is uniform in [cosThetaMax, 1].
+			assertEquals((1 + cosThetaMax) / 2, sum / count, 0.01 * (1 - cosThetaMax), "cone of " + cosThetaMax);
+		}
+	}
+
+	/**
+	 * Turning a sample to the world frame keeps its length and its angle from the center.
+	 */
+	@Test
+	void toWorldKeepsTheAngle() {
+		Random rand = new Random(3);
+		double[] center = new double[3], s = new double[6];
+		for (int i = 0; i < 10000; i++) {
+			random.sampleUniformSphere(rand.nextDouble(), rand.nextDouble(), center);
+			random.sampleUniformHemisphere(rand.nextDouble(), rand.nextDouble(), s);
+			double z = s[2];
+			random.toWorld(center[0], center[1], center[2], s, s);
+			assertEquals(1, s[3] * s[3] + s[4] * s[4] + s[5] * s[5], 1e-9);
+			assertEquals(z, s[3] * center[0] + s[4] * center[1] + s[5] * center[2], 1e-9);
+		}
+	}
+
+	/**
+	 * The random rays stay inside the cone of the given radius and length.
+	 */
+	@Test
+	void randomRaysInCone() {
+		random.getStream().setSeed(4);
+		Ray ray = new Ray(new Point3D(1, 2, 3), new Vector(1, -2, 0.5).normalizedVector());
+		Point3D head = ray.getDirection().getHead();
+		double cx = head.getX().getNumber(), cy = head.getY().getNumber(), cz = head.getZ().getNumber();
+		double radius = 3, length = 10, cosThetaMax = length / Math.sqrt(length * length + radius * radius);
+		for (int i = 0; i < 10000; i++) {
+			Ray sample = random.genRandRay(ray, radius, length);
+			assertEquals(ray.getPoint(), sample.getPoint());
+			Point3D direction = sample.getDirection().getHead();
+			double[] d = {direction.getX().getNumber(), direction.getY().getNumber(), direction.getZ().getNumber()};
+			double cos = (d[0] * cx + d[1] * cy + d[2] * cz) / Math.sqrt(d[0] * d[0] + d[1] * d[1] + d[2] * d[2]);
+			assertTrue(cos >= cosThetaMax - 1e-9, "ray out of the cone: " + cos);
+		}
+	}
+
+	/**
+	 * The samples of a light stay in its disk, each one in its own ring of equal area.
+	 */
+	@Test
+	void lightSamplesInTheirRings() {
+		Random rand = new Random(5);
+		PointLight light = new PointLight(Color.white, new Point3D(0, 0, 0), 56, 1, 0, 0);
+		int samples = light.getNumOfSamples();
+		double area = 56 * 56;
+		double[] out = new double[3];
+		for (int i = 0; i < 10000; i++) {
+			double rotation = rand.nextDouble();
+			for (int index = 0; index < samples; index++) {
+				light.sampleDisk(index, rotation, rand.nextDouble(), out);
+				double squared = (out[0] * out[0] + out[1] * out[1]) / area;
+				int ring = samples - 1 - index;
+				assertEquals(0, out[2]);
+				assertTrue(squared >= (double)ring / samples - 1e-12 && squared <= (ring + 1.0) / samples + 1e-12,
+						"sample " + index + " out of its ring: " + squared);
+			}
+		}
+	}
+
+	/**
+	 * Checks that a local direction is a unit vector inside the cone around the z axis.
+	 * @param out The direction.
+	 * @param cosThetaMax The cosine of the half angle of the cone.
+	 */
+	private static void assertDirectionInCone(double[] out, double cosThetaMax) {
+		assertEquals(1, out[0] * out[0] + out[1] * out[1] + out[2] * out[2], 1e-9);
+		assertTrue(out[2] >= cosThetaMax - 1e-9, "direction out of the cone: " + out[2]);
+	}
+}
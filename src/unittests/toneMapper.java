@@ -0,0 +1,96 @@
+package unittests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.ToneMapper;
+import renderer.ToneMapper.Operator;
+
+class toneMapper {
+
+	/**
+	 * The gamma table gives the colors of the direct formulas of every curve,
+	 * within a small fraction of a level (and within half a level next to black,
+	 * where the gamma curve is the steepest).
+	 */
+	@Test
+	void tableMatchesFormulas() {
+		Random random = new Random(8);
+		float[] source = new float[20000], target = new float[source.length];
+		for (int i = 0; i < source.length; i++) {
+			//Mostly dark colors, as in most images, and some far above white.
+			source[i] = (float)(Math.pow(random.nextDouble(), 3) * 2000 - 1);
+		}
+		for (Operator operator : Operator.values()) {
+			for (double white : new double[] {Double.POSITIVE_INFINITY, 4}) {
+				for (double exposure : new double[] {0, 1.5, -2}) {
+					for (double gamma : new double[] {1, 1.8, 2.2}) {
+						ToneMapper mapper = new ToneMapper(operator, exposure, gamma);
+						mapper.setWhite(white);
+						mapper.apply(source, target, 0, source.length);
+						for (int i = 0; i < source.length; i++) {
+							double curve = curve(operator, white, Math.max(source[i] * Math.pow(2, exposure) / 255, 0));
+							String message = operator + ", white " + white + ", exposure " + exposure + ", gamma " + gamma + " of " + source[i];
+							assertEquals(255 * Math.pow(curve, 1 / gamma), target[i], curve < 1e-3 ? 0.5 : 1e-3, message);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The colors may be mapped in place, and a range of them leaves the others as they are.
+	 */
+	@Test
+	void mapsInPlace() {
+		Random random = new Random(9);
+		float[] source = new float[1000];
+		for (int i = 0; i < source.length; i++) {
+			source[i] = random.nextFloat() * 600;
+		}
+		ToneMapper mapper = new ToneMapper(Operator.ACES, 0.5, 2.2);
+		float[] expected = source.clone(), actual = source.clone();
+		mapper.apply(source, expected, 100, 900);
+		mapper.apply(actual, actual, 100, 900);
+		assertArrayEquals(expected, actual);
+		for (int i = 0; i < source.length; i++) {
+			if (i < 100 || i >= 900)
+				assertEquals(source[i], actual[i]);
+		}
+	}
+
+	/**
+	 * The tone curve of an operator, by its formula.
+	 * @param operator The operator.
+	 * @param white The white point.
+	 * @param x The exposed color, where 1.0 is the color component 255.
+	 * @return The compressed color, between 0 and 1.
+	 */
+	private static double curve(Operator operator, double white, double x) {
+		switch (operator) {
+		case REINHARD:
+			return Math.min(x * (1 + x / (white * white)) / (1 + x), 1);
+		case ACES:
+			return Math.min(x * (2.51 * x + 0.03) / (x * (2.43 * x + 0.59) + 0.14), 1);
+		case FILMIC:
+			return Math.min(filmic(x) / filmic(white == Double.POSITIVE_INFINITY ? 11.2 : white), 1);
+		default:
+			return Math.min(x, 1);
+		}
+	}
+
+	/**
+	 * Hable's filmic curve, without normalization.
+	 * @param x The exposed color.
+	 * @return The compressed color.
+	 */
+	private static double filmic(double x) {
+		final double A = 0.15, B = 0.50, C = 0.10, D = 0.20, E = 0.02, F = 0.30;
+		return (x * (A * x + C * B) + D * E) / (x * (A * x + B) + D * F) - E / F;
+	}
+}
@@ -1,12 +1,16 @@
 package util;
 
 import java.math.BigInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * A counter that may be increased by the rendering threads at once,
+ * without losing updates and without contending on a single field.
+ */
 public class Counter {
-	private BigInteger _counter = new BigInteger("0");
-	private static BigInteger _one = new BigInteger("1");
+	private LongAdder _counter = new LongAdder();
 	public void increase() {
-		_counter = _counter.add(_one);
+		_counter.increment();
 	}
-	public BigInteger getNumber() {return _counter;}
+	public BigInteger getNumber() {return BigInteger.valueOf(_counter.sum());}
 }
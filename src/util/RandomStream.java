@@ -0,0 +1,96 @@
+package util;
+
+/**
+ * A small, splittable stream of pseudo random numbers (SplitMix64).
+ * A stream is fully defined by its seed, so a stream that is seeded
+ * from a frame seed and a pixel index produces the same numbers no matter
+ * which thread draws them, or in what order the pixels are rendered.
+ * A stream is not thread safe by itself - every worker owns its own stream.
+ */
+public class RandomStream {
+
+	/**
+	 * The increment of the SplitMix64 generator (the golden ratio in 64 bits).
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The inner state of the generator.
+	 */
+	private long _state;
+
+	/**
+	 * Constructor for a new stream.
+	 * @param seed The seed of the stream. Two streams with the same seed
+	 * generate the same numbers.
+	 */
+	public RandomStream(long seed) {
+		_state = seed;
+	}
+
+	/**
+	 * Copy constructor. The new stream continues from the same point
+	 * as the given stream, independently from it.
+	 * @param other The stream that is being copied.
+	 */
+	public RandomStream(RandomStream other) {
+		_state = other._state;
+	}
+
+	/**
+	 * Restarts this stream from the given seed, without allocating a new stream.
+	 * @param seed The new seed of the stream.
+	 */
+	public void setSeed(long seed) {
+		_state = seed;
+	}
+
+	/**
+	 * Generates the next 64 random bits of this stream.
+	 * @return The next random long.
+	 */
+	public long nextLong() {
+		return mix64(_state += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Generates the next random number of this stream.
+	 * @return A uniformly distributed number in the range [0, 1).
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Splits a new, statistically independent stream from this stream.
+	 * This stream is advanced by the split.
+	 * @return A new stream.
+	 */
+	public RandomStream split() {
+		return new RandomStream(mix64(nextLong()));
+	}
+
+	/**
+	 * Derives the seed of the stream of a single pixel from the seed of the frame.
+	 * The derived seed depends only on the given arguments, hence the numbers that
+	 * are drawn for a pixel do not depend on the number of rendering threads.
+	 * @param frameSeed The seed of the whole frame.
+	 * @param row The row of the pixel.
+	 * @param column The column of the pixel.
+	 * @return The seed of the stream of the given pixel.
+	 */
+	public static long seedFor(long frameSeed, int row, int column) {
+		return mix64(mix64(frameSeed + GOLDEN_GAMMA * (row + 1)) + GOLDEN_GAMMA * (column + 1));
+	}
+
+	/**
+	 * The finalizer of SplitMix64 (a variant of MurmurHash3's fmix64).
+	 * @param z The bits to mix.
+	 * @return The mixed bits.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
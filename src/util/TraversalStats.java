@@ -0,0 +1,64 @@
+package util;
+
+/**
+ * Counters of the work of the ray tracing: the rays that were traced
+ * through the scene and the nodes of the bounding volume hierarchy that
+ * were visited. Every thread has its own counters, so counting needs no
+ * locking, and the work of a single pixel is the difference of the 
+ * counters of its thread before and after the pixel was rendered.
+ */
+public class TraversalStats {
+	
+	/**
+	 * The counters of every thread.
+	 */
+	private static final ThreadLocal<TraversalStats> stats = ThreadLocal.withInitial(TraversalStats::new);
+	
+	/**
+	 * The number of rays that were traced.
+	 */
+	private long _rays;
+	
+	/**
+	 * The number of nodes of the hierarchy that were visited.
+	 */
+	private long _nodesVisited;
+	
+	/**
+	 * Getter for the counters of the current thread.
+	 * @return The counters of the current thread.
+	 */
+	public static TraversalStats get() {
+		return stats.get();
+	}
+	
+	/**
+	 * Counts a ray that is traced.
+	 */
+	public void addRay() {
+		_rays++;
+	}
+	
+	/**
+	 * Counts a visited node of the hierarchy.
+	 */
+	public void addNode() {
+		_nodesVisited++;
+	}
+	
+	/**
+	 * Getter for the number of rays that were traced by this thread.
+	 * @return The number of rays.
+	 */
+	public long getRays() {
+		return _rays;
+	}
+	
+	/**
+	 * Getter for the number of nodes of the hierarchy that were visited by this thread.
+	 * @return The number of nodes.
+	 */
+	public long getNodesVisited() {
+		return _nodesVisited;
+	}
+}
@@ -66,20 +66,21 @@ public class binaryTree { //In our case, T1 would be a geometry or a bounding bo
 	
 	public ArrayList<Geometry> minListGeometries(Ray ray) {
 		ArrayList<Geometry> toReturn = new ArrayList<Geometry>();
-		fillGeometryList(ray, toReturn, _root);
+		fillGeometryList(ray, toReturn, _root, TraversalStats.get());
 		return toReturn;
 	}
 
 	private void fillGeometryList
-	(Ray ray, ArrayList<Geometry> lst, Node node) {
+	(Ray ray, ArrayList<Geometry> lst, Node node, TraversalStats stats) {
+		stats.addNode();
 		if (node.geometry != null) {
 			if (node._box.isIntersect(ray))
 				lst.add(node.geometry);
 			return;
 		}
 		if (node._box.isIntersect(ray)) {
-			fillGeometryList(ray, lst, node._left);
-			fillGeometryList(ray, lst, node._right);
+			fillGeometryList(ray, lst, node._left, stats);
+			fillGeometryList(ray, lst, node._right, stats);
 		}
 	}
 }
@@ -1,32 +1,73 @@
 package util;
 
-import java.util.Random;
-
+import primitives.Point3D;
 import primitives.Ray;
 import primitives.Vector;
 
 /**
  * Helper for getting random rays and random vectors.
+ * Every thread draws its numbers from its own {@link RandomStream}, so
+ * the helpers can be called concurrently by the rendering threads.
+ * The renderer re-seeds the stream of the current thread for every pixel,
+ * which makes the rendered image independent of the number of threads.
  */
 public class random {
 
-	private static Random rand = new Random();
+	/**
+	 * The random stream of every thread.
+	 */
+	private static final ThreadLocal<RandomStream> stream = 
+			ThreadLocal.withInitial(() -> new RandomStream(Thread.currentThread().getId()));
+	
+	/**
+	 * Getter for the random stream of the current thread.
+	 * The returned stream must not be shared with other threads.
+	 * @return The random stream of the current thread.
+	 */
+	public static RandomStream getStream() {
+		return stream.get();
+	}
+	
+	/**
+	 * Generates a random number from the stream of the current thread.
+	 * @return A uniformly distributed number in the range [0, 1).
+	 */
+	public static double nextDouble() {
+		return stream.get().nextDouble();
+	}
+	
+	/**
+	 * Scratch arrays of every thread for the sampling in {@link #genRandRay}.
+	 * The first three entries hold the local sample and the last three the 
+	 * direction of the ray.
+	 */
+	private static final ThreadLocal<double[]> scratch = 
+			ThreadLocal.withInitial(() -> new double[6]);
 	
 	/**
 	 * With given ray, radius and length, the function generates
 	 * a new random ray that starts from when the given ray starts 
 	 * and the direction is bounded inside the cone that is made of the 
 	 * given ray, radius and length.
+	 * The directions are distributed uniformly over the solid angle of the cone.
 	 * @param ray The ray part of the cone.
 	 * @param radius The radius of the base of the cone.
 	 * @param length The length of the cone.
 	 * @return A new randomly generated ray that is bounded inside the 
-	 * cone that consists of the given ray, radius and length.
+	 * cone that consists of the given ray, radius and length, with the footprint 
+	 * of the given ray. If the radius is zero, the given ray itself is returned.
 	 */
 	public static Ray genRandRay(Ray ray, double radius, double length) {
-		Vector movement = getRandVec(radius);
-		Vector direction = ray.getDirection().scale(length).add(movement);
-		return new Ray(ray.getPoint(), direction);
+		if (radius <= 0) {
+			return ray;
+		}
+		RandomStream rand = stream.get();
+		double[] s = scratch.get();
+		Point3D head = ray.getDirection().getHead();
+		sampleUniformCone(length / Math.sqrt(length * length + radius * radius),
+				rand.nextDouble(), rand.nextDouble(), s);
+		toWorld(head.getX().getNumber(), head.getY().getNumber(), head.getZ().getNumber(), s, s);
+		return new Ray(ray.getPoint(), new Vector(s[3], s[4], s[5]), ray.getFootprint(0), ray.getSpread());
 	}
 
 	/**
@@ -37,18 +78,144 @@ public class random {
 	 * the given radius.
 	 */
 	public static Vector getRandVec(double radius) {
-		return genRandUnitVec().scale(radius * rand.nextDouble());
+		return genRandUnitVec().scale(radius * nextDouble());
 	}
 	
 	/**
-	 * Generate random unit vector.
+	 * Generate random unit vector. The vectors are distributed 
+	 * uniformly over the unit sphere.
 	 * @return A new random unit vector.
 	 */
 	public static Vector genRandUnitVec() {
-		return new Vector
-				(rand.nextDouble() - 0.5, 
-				 rand.nextDouble() - 0.5,
-				 rand.nextDouble() - 0.5).normalizedVector();
+		RandomStream rand = stream.get();
+		double[] s = scratch.get();
+		sampleUniformSphere(rand.nextDouble(), rand.nextDouble(), s);
+		return new Vector(s[0], s[1], s[2]);
+	}
+	
+//*********************Allocation free sampling*********************//
+	
+	/*
+	 * The next functions map two uniform numbers u1, u2 in [0, 1) to 
+	 * a sample in a local frame, where the z axis is the center of the 
+	 * sampled domain. They write the sample to the first entries of 
+	 * the given 'out' array and allocate nothing, so the numbers can come 
+	 * from a stratified pattern as well as from a random stream.
+	 * Use toWorld to turn the local sample to a direction around a vector.
+	 */
+	
+	/**
+	 * Maps two uniform numbers to a point that is uniformly distributed 
+	 * in the unit disk, with the concentric mapping of Shirley and Chiu.
+	 * The mapping keeps strata compact, which is good for stratified samples.
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0] and out[1] get the x and y of the point.
+	 */
+	public static void sampleDisk(double u1, double u2, double[] out) {
+		double a = 2 * u1 - 1, b = 2 * u2 - 1, r, phi;
+		if (a == 0 && b == 0) {
+			out[0] = out[1] = 0;
+			return;
+		}
+		if (a * a > b * b) {
+			r = a;
+			phi = (Math.PI / 4) * (b / a);
+		} else {
+			r = b;
+			phi = (Math.PI / 2) - (Math.PI / 4) * (a / b);
+		}
+		out[0] = r * Math.cos(phi);
+		out[1] = r * Math.sin(phi);
+	}
+	
+	/**
+	 * Maps two uniform numbers to a direction that is uniformly 
+	 * distributed over the unit sphere.
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0], out[1] and out[2] get the direction.
+	 */
+	public static void sampleUniformSphere(double u1, double u2, double[] out) {
+		double z = 1 - 2 * u1, r = Math.sqrt(Math.max(0, 1 - z * z)), phi = 2 * Math.PI * u2;
+		out[0] = r * Math.cos(phi);
+		out[1] = r * Math.sin(phi);
+		out[2] = z;
+	}
+	
+	/**
+	 * Maps two uniform numbers to a direction that is uniformly 
+	 * distributed over the hemisphere around the z axis.
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0], out[1] and out[2] get the direction.
+	 */
+	public static void sampleUniformHemisphere(double u1, double u2, double[] out) {
+		sampleUniformCone(0, u1, u2, out);
+	}
+	
+	/**
+	 * Maps two uniform numbers to a direction on the hemisphere around 
+	 * the z axis, with density proportional to the cosine of the angle 
+	 * from the z axis (Malley's method).
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0], out[1] and out[2] get the direction.
+	 */
+	public static void sampleCosineHemisphere(double u1, double u2, double[] out) {
+		sampleCosineCone(0, u1, u2, out);
+	}
+	
+	/**
+	 * Maps two uniform numbers to a direction that is uniformly 
+	 * distributed over the solid angle of a cone around the z axis.
+	 * @param cosThetaMax The cosine of the half angle of the cone.
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0], out[1] and out[2] get the direction.
+	 */
+	public static void sampleUniformCone(double cosThetaMax, double u1, double u2, double[] out) {
+		double z = 1 - u1 * (1 - cosThetaMax), r = Math.sqrt(Math.max(0, 1 - z * z)), phi = 2 * Math.PI * u2;
+		out[0] = r * Math.cos(phi);
+		out[1] = r * Math.sin(phi);
+		out[2] = z;
+	}
+	
+	/**
+	 * Maps two uniform numbers to a direction inside a cone around the 
+	 * z axis, with density proportional to the cosine of the angle from 
+	 * the z axis.
+	 * @param cosThetaMax The cosine of the half angle of the cone.
+	 * @param u1 A number in the range [0, 1).
+	 * @param u2 A number in the range [0, 1).
+	 * @param out out[0], out[1] and out[2] get the direction.
+	 */
+	public static void sampleCosineCone(double cosThetaMax, double u1, double u2, double[] out) {
+		double sinThetaMax = Math.sqrt(Math.max(0, 1 - cosThetaMax * cosThetaMax));
+		sampleDisk(u1, u2, out);
+		out[0] *= sinThetaMax;
+		out[1] *= sinThetaMax;
+		out[2] = Math.sqrt(Math.max(0, 1 - out[0] * out[0] - out[1] * out[1]));
+	}
+	
+	/**
+	 * Turns a sample from the local frame, where z is the center of the 
+	 * sampled domain, to the world frame, where the given unit vector is 
+	 * the center. The frame is built with the branchless method of Duff et al.
+	 * @param nx The x of the unit vector.
+	 * @param ny The y of the unit vector.
+	 * @param nz The z of the unit vector.
+	 * @param local The local sample in its first three entries.
+	 * @param out The world direction is written to out[3], out[4] and out[5],
+	 * so the same array can be passed as both local and out.
+	 */
+	public static void toWorld(double nx, double ny, double nz, double[] local, double[] out) {
+		double sign = Math.copySign(1.0, nz), a = -1.0 / (sign + nz), b = nx * ny * a;
+		double tx = 1 + sign * nx * nx * a, ty = sign * b, tz = -sign * nx,
+			   bx = b, by = sign + ny * ny * a, bz = -ny;
+		double x = local[0], y = local[1], z = local[2];
+		out[3] = x * tx + y * bx + z * nx;
+		out[4] = x * ty + y * by + z * ny;
+		out[5] = x * tz + y * bz + z * nz;
 	}
-
 }